@@ -0,0 +1,74 @@
+package com.poc.filecoin.benchmarks;
+
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.service.AddressService;
+import com.poc.filecoin.util.FilecoinAddressCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for encoding, decoding and checksumming filecoin addresses
+ *
+ * @author Vijay Pratap Singh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class AddressCodecBenchmark {
+
+    @Param({"SECP256K1", "BLS"})
+    public FilecoinProtocol protocol;
+
+    private AddressService addressService;
+    private AddressService cachedAddressService;
+    private Address address;
+    private String encodedAddress;
+    private byte[] payloadBuffer;
+    private char[] charBuffer;
+
+    @Setup
+    public void setup() {
+        addressService = new AddressService();
+        cachedAddressService = new AddressService();
+        cachedAddressService.initAddressCache();
+        address = BenchmarkFixtures.address(protocol);
+        encodedAddress = addressService.encode(address);
+        payloadBuffer = new byte[address.getPayload().length];
+        charBuffer = new char[encodedAddress.length()];
+    }
+
+    @Benchmark
+    public String encode() {
+        return addressService.encode(address);
+    }
+
+    @Benchmark
+    public Address decode() {
+        return addressService.decode(encodedAddress);
+    }
+
+    @Benchmark
+    public Address decodeCached() {
+        return cachedAddressService.decode(encodedAddress);
+    }
+
+    @Benchmark
+    public int codecEncodeIntoBuffer() {
+        return FilecoinAddressCodec.encode(address.getFilecoinNetwork(), protocol, address.getPayload(), 0,
+                address.getPayload().length, charBuffer, 0);
+    }
+
+    @Benchmark
+    public int codecDecodeIntoBuffer() throws Exception {
+        return FilecoinAddressCodec.decode(encodedAddress, payloadBuffer, 0);
+    }
+
+    @Benchmark
+    public byte[] checksum() {
+        return addressService.checksum(address.getPayload(), protocol);
+    }
+}
@@ -0,0 +1,66 @@
+package com.poc.filecoin.benchmarks;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.model.Transaction;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+
+import java.util.Random;
+
+/**
+ * Fixed keys and messages shared by the benchmarks, so results are comparable between runs and releases
+ * and no network access is needed
+ *
+ * @author Vijay Pratap Singh
+ */
+final class BenchmarkFixtures {
+
+    static final String SECP256K1_PRIVATE_KEY = "1f2e3d4c5b6a79881f2e3d4c5b6a79881f2e3d4c5b6a79881f2e3d4c5b6a7988";
+    static final String BLS_PRIVATE_KEY = "2a9f7e6d5c4b3a291807f6e5d4c3b2a12a9f7e6d5c4b3a291807f6e5d4c3b2a1";
+    static final String RECIPIENT_PRIVATE_KEY = "3c1b0a99887766553c1b0a99887766553c1b0a99887766553c1b0a9988776655";
+    static final FilecoinNetwork NETWORK = FilecoinNetwork.DEV_NET;
+
+    private BenchmarkFixtures() {
+    }
+
+    static byte[] privateKey(FilecoinProtocol filecoinProtocol) {
+        return decodeHex(filecoinProtocol == FilecoinProtocol.BLS ? BLS_PRIVATE_KEY : SECP256K1_PRIVATE_KEY);
+    }
+
+    static Address address(FilecoinProtocol filecoinProtocol) {
+        if (filecoinProtocol == FilecoinProtocol.BLS) {
+            return new BLSAddress(privateKey(filecoinProtocol), NETWORK);
+        }
+        return new SECP256K1Address(privateKey(filecoinProtocol), NETWORK);
+    }
+
+    static Transaction transaction(FilecoinProtocol filecoinProtocol, int messageSize) {
+        // fixed seed, the same message bytes on every run
+        byte[] message = new byte[messageSize];
+        new Random(messageSize).nextBytes(message);
+        Address recipient = new SECP256K1Address(decodeHex(RECIPIENT_PRIVATE_KEY), NETWORK);
+        return new Transaction(0,
+                recipient.getAddress(),
+                address(filecoinProtocol).getAddress(),
+                42,
+                "1000000000000000000",
+                40000000,
+                "100",
+                "0",
+                0,
+                Base64.encodeBase64(message));
+    }
+
+    private static byte[] decodeHex(String hex) {
+        try {
+            return Hex.decodeHex(hex);
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
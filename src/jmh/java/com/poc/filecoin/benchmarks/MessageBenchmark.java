@@ -0,0 +1,71 @@
+package com.poc.filecoin.benchmarks;
+
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinPayloadException;
+import com.poc.filecoin.model.Transaction;
+import com.poc.filecoin.util.CborMessageEncoder;
+import com.poc.filecoin.util.UtilityService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for CBOR encoding and digesting of filecoin messages across message sizes
+ *
+ * @author Vijay Pratap Singh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class MessageBenchmark {
+
+    @Param({"SECP256K1", "BLS"})
+    public FilecoinProtocol protocol;
+
+    @Param({"0", "256", "4096", "65536"})
+    public int messageSize;
+
+    private Transaction transaction;
+    private byte[] cbor;
+    private ByteBuffer buffer;
+    private byte[] digestBuffer;
+
+    @Setup
+    public void setup() throws InvalidFilecoinPayloadException {
+        transaction = BenchmarkFixtures.transaction(protocol, messageSize);
+        cbor = CborMessageEncoder.encode(transaction);
+        buffer = ByteBuffer.allocate(CborMessageEncoder.encodedSize(transaction));
+        digestBuffer = new byte[UtilityService.CID_LENGTH];
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream marshalCBOR() {
+        return UtilityService.marshalCBOR(transaction);
+    }
+
+    @Benchmark
+    public byte[] encode() throws InvalidFilecoinPayloadException {
+        return CborMessageEncoder.encode(transaction);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() throws InvalidFilecoinPayloadException {
+        buffer.clear();
+        return CborMessageEncoder.encode(transaction, buffer);
+    }
+
+    @Benchmark
+    public byte[] digest() {
+        return UtilityService.getDigest(cbor);
+    }
+
+    @Benchmark
+    public byte[] digestIntoBuffer() {
+        UtilityService.getDigest(cbor, 0, cbor.length, digestBuffer, 0);
+        return digestBuffer;
+    }
+}
@@ -0,0 +1,60 @@
+package com.poc.filecoin.benchmarks;
+
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinPayloadException;
+import com.poc.filecoin.model.BLSSignature;
+import com.poc.filecoin.model.ECDSASignature;
+import com.poc.filecoin.model.SECP256K1Signer;
+import com.poc.filecoin.model.Signature;
+import com.poc.filecoin.util.CborMessageEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for signing CBOR encoded filecoin messages with ECDSA and BLS keys
+ *
+ * @author Vijay Pratap Singh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class SignatureBenchmark {
+
+    @Param({"SECP256K1", "BLS"})
+    public FilecoinProtocol protocol;
+
+    @Param({"0", "4096"})
+    public int messageSize;
+
+    private byte[] cbor;
+    private byte[] privateKey;
+    private SECP256K1Signer signer;
+
+    @Setup
+    public void setup() throws InvalidFilecoinPayloadException {
+        cbor = CborMessageEncoder.encode(BenchmarkFixtures.transaction(protocol, messageSize));
+        privateKey = BenchmarkFixtures.privateKey(protocol);
+        if (protocol == FilecoinProtocol.SECP256K1) {
+            signer = new SECP256K1Signer(privateKey);
+        }
+    }
+
+    @Benchmark
+    public Signature sign() {
+        if (protocol == FilecoinProtocol.BLS) {
+            return new BLSSignature(cbor, privateKey);
+        }
+        return new ECDSASignature(cbor, privateKey);
+    }
+
+    @Benchmark
+    public Signature signWithReusedSigner() {
+        if (protocol == FilecoinProtocol.BLS) {
+            return new BLSSignature(cbor, privateKey);
+        }
+        return signer.sign(cbor);
+    }
+}
@@ -1,16 +1,21 @@
 package com.poc.filecoin;
 
 
+import com.poc.filecoin.util.SecurityProviders;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @Slf4j
 public class FilecoinLibraryApplication {
 
 
     public static void main(String[] args) throws Exception {
+        // registering the security provider once for the whole application
+        SecurityProviders.registerBouncyCastle();
         SpringApplication.run(FilecoinLibraryApplication.class, args);
     }
 
@@ -0,0 +1,71 @@
+package com.poc.filecoin.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors of the transaction pipeline. Signing is CPU bound and runs on a pool sized to the cores,
+ * calls to the filecoin node block on I/O and run on a separate, larger pool. Both queues are bounded. A full
+ * signing queue runs the task on the submitting thread, which slows the producer down, a full rpc queue rejects
+ * the task instead so no node call ever blocks a signing thread, the stage waiting for it fails
+ *
+ * @author Vijay Pratap Singh
+ */
+@Component
+@Getter
+@Slf4j
+public class PipelineExecutors {
+
+    @Value("${filecoin.executor.signing.threads}")
+    int signingThreads;
+
+    @Value("${filecoin.executor.signing.queue-capacity}")
+    int signingQueueCapacity;
+
+    @Value("${filecoin.executor.rpc.threads}")
+    int rpcThreads;
+
+    @Value("${filecoin.executor.rpc.queue-capacity}")
+    int rpcQueueCapacity;
+
+    private ExecutorService signingExecutor;
+    private ExecutorService rpcExecutor;
+
+    @PostConstruct
+    void init() {
+        int threads = signingThreads > 0 ? signingThreads : Runtime.getRuntime().availableProcessors();
+        this.signingExecutor = newExecutor(threads, signingQueueCapacity, "filecoin-signing-",
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.rpcExecutor = newExecutor(rpcThreads, rpcQueueCapacity, "filecoin-rpc-", (task, executor) -> {
+            throw new RejectedExecutionException("Queue of the rpc executor is full");
+        });
+        log.info("Pipeline executors initialized with {} signing and {} rpc threads", threads, rpcThreads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        signingExecutor.shutdown();
+        rpcExecutor.shutdown();
+    }
+
+    private ExecutorService newExecutor(int threads, int queueCapacity, String threadNamePrefix,
+                                        RejectedExecutionHandler rejectedExecutionHandler) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory(threadNamePrefix),
+                rejectedExecutionHandler);
+    }
+
+}
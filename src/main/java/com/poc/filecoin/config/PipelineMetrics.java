@@ -0,0 +1,92 @@
+package com.poc.filecoin.config;
+
+import com.poc.filecoin.enums.SignatureType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timers of the transaction pipeline stages, published with percentile histograms so the latency of every
+ * stage can be followed through the actuator prometheus endpoint
+ *
+ * @author Vijay Pratap Singh
+ */
+@Component
+@Getter
+public class PipelineMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer decodeTimer;
+    private final Timer nonceTimer;
+    private final Timer cborTimer;
+    private final Timer digestTimer;
+    private final Timer pushSuccessTimer;
+    private final Timer pushFailureTimer;
+    private final Map<SignatureType, Timer> signTimers = new EnumMap<>(SignatureType.class);
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.decodeTimer = timer("filecoin.transaction.decode", "Decoding of the from and to addresses");
+        this.nonceTimer = timer("filecoin.transaction.nonce", "Getting the nonce of the sender");
+        this.cborTimer = timer("filecoin.transaction.cbor", "CBOR marshalling of the message");
+        this.digestTimer = timer("filecoin.transaction.digest", "Digest of the marshalled message");
+        this.pushSuccessTimer = Timer.builder("filecoin.transaction.push")
+                .description("Pushing the signed message to the mempool")
+                .tag("outcome", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.pushFailureTimer = Timer.builder("filecoin.transaction.push")
+                .description("Pushing the signed message to the mempool")
+                .tag("outcome", "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (SignatureType signatureType : SignatureType.values()) {
+            signTimers.put(signatureType, Timer.builder("filecoin.transaction.sign")
+                    .description("Signing of the message digest")
+                    .tag("type", signatureType.toString())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Method to start timing a stage
+     *
+     * @return Timer.Sample
+     */
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Method to get the sign timer of a signature type
+     *
+     * @param signatureType
+     * @return Timer
+     */
+    public Timer getSignTimer(SignatureType signatureType) {
+        return signTimers.get(signatureType);
+    }
+
+    /**
+     * Method to get the push timer of an outcome
+     *
+     * @param success
+     * @return Timer
+     */
+    public Timer getPushTimer(boolean success) {
+        return success ? pushSuccessTimer : pushFailureTimer;
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
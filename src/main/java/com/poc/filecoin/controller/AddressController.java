@@ -1,16 +1,42 @@
 package com.poc.filecoin.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheStats;
+import com.poc.filecoin.dto.AddressBatchCreateRequestDTO;
+import com.poc.filecoin.dto.AddressCacheStatsDTO;
 import com.poc.filecoin.dto.AddressCreateRequestDTO;
 import com.poc.filecoin.dto.AddressDTO;
 import com.poc.filecoin.dto.AddressRequestDTO;
+import com.poc.filecoin.dto.AddressResolutionDTO;
+import com.poc.filecoin.dto.AddressValidationDTO;
+import com.poc.filecoin.dto.HDAddressDTO;
+import com.poc.filecoin.dto.HDDeriveRequestDTO;
+import com.poc.filecoin.enums.AddressValidationResult;
+import com.poc.filecoin.enums.FilecoinProtocol;
 import com.poc.filecoin.model.Address;
+import com.poc.filecoin.service.AddressResolverService;
 import com.poc.filecoin.service.AddressService;
+import com.poc.filecoin.service.HDWalletService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Controller for address methods
@@ -25,6 +51,15 @@ public class AddressController {
     @Autowired
     AddressService addressService;
 
+    @Autowired
+    AddressResolverService addressResolverService;
+
+    @Autowired
+    HDWalletService hdWalletService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     /**
      * API method to create new address
      *
@@ -43,6 +78,61 @@ public class AddressController {
         }
     }
 
+    /**
+     * API method to create new addresses in bulk, addresses are streamed back as new line delimited JSON
+     * while they are being generated
+     *
+     * @param addressBatchCreateRequestDTO
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "new/batch", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> createAddresses(
+            @RequestBody AddressBatchCreateRequestDTO addressBatchCreateRequestDTO) {
+        try {
+            Stream<AddressDTO> addressDTOs = addressService.create(addressBatchCreateRequestDTO.getAddressProtocol(),
+                    addressBatchCreateRequestDTO.getCount());
+            StreamingResponseBody responseBody = outputStream ->
+                    addressDTOs.forEach(addressDTO -> writeLine(outputStream, addressDTO));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+        } catch (Exception e) {
+            log.error("Error while creating addresses: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write(String.valueOf(e.getMessage()).getBytes()));
+        }
+    }
+
+    /**
+     * API method to derive a range of addresses of an account from a seed, addresses are streamed back as new
+     * line delimited JSON while they are being derived
+     *
+     * @param hdDeriveRequestDTO
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "hd/derive", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> deriveAddresses(@RequestBody HDDeriveRequestDTO hdDeriveRequestDTO) {
+        try {
+            Stream<HDAddressDTO> addressDTOs = hdWalletService.derive(hdDeriveRequestDTO.getAddressProtocol(),
+                    hdDeriveRequestDTO.getSeed(),
+                    hdDeriveRequestDTO.getAccount(),
+                    hdDeriveRequestDTO.getStart(),
+                    hdDeriveRequestDTO.getCount(),
+                    hdDeriveRequestDTO.isIncludePrivateKey());
+            // closing the stream zeroes the account key it derives from
+            StreamingResponseBody responseBody = outputStream -> {
+                try (addressDTOs) {
+                    addressDTOs.forEach(addressDTO -> writeLine(outputStream, addressDTO));
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+        } catch (Exception e) {
+            log.error("Error while deriving addresses: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write(String.valueOf(e.getMessage()).getBytes()));
+        }
+    }
+
     /**
      * API method to get address
      *
@@ -67,5 +157,123 @@ public class AddressController {
         }
     }
 
+    /**
+     * API method to validate a batch of addresses, every address gets a result code in the order of the request
+     *
+     * @param encodedAddresses
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "validate/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity validateAddresses(@RequestBody List<String> encodedAddresses) {
+        try {
+            List<AddressValidationResult> results = addressService.validate(encodedAddresses);
+            return ResponseEntity.ok(IntStream.range(0, results.size())
+                    .mapToObj(i -> new AddressValidationDTO(i, results.get(i).getValue(), results.get(i).toString()))
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Error while validating addresses: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to validate addresses sent one per line, results are streamed back as new line delimited JSON
+     * in the order of the lines while the request is still being read
+     *
+     * @param inputStream
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "validate", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> validateAddressStream(InputStream inputStream) {
+        StreamingResponseBody responseBody = outputStream -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            // results are small, so they are buffered instead of flushing every line
+            OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+            addressService.validate(reader, result -> {
+                try {
+                    bufferedOutputStream.write(objectMapper.writeValueAsBytes(result));
+                    bufferedOutputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            bufferedOutputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+    }
+
+    /**
+     * API method to resolve an address to its ID address, and an ID address to the key address of its account,
+     * at the finalized tipset
+     *
+     * @param address
+     * @return ResponseEntity
+     */
+    @GetMapping(value = "{address}/resolve", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity resolveAddress(@PathVariable String address) {
+        try {
+            FilecoinProtocol filecoinProtocol = addressService.decode(address).getFilecoinProtocol();
+            String idAddress = addressResolverService.lookupId(address);
+            String keyAddress = null;
+            if (filecoinProtocol == FilecoinProtocol.SECP256K1 || filecoinProtocol == FilecoinProtocol.BLS) {
+                keyAddress = address;
+            } else if (idAddress != null) {
+                keyAddress = addressResolverService.lookupKeyAddress(idAddress);
+            }
+            if (idAddress == null && keyAddress == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(new AddressResolutionDTO(address, idAddress, keyAddress));
+        } catch (Exception e) {
+            log.error("Error while resolving address: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to get the hit and miss counters of the decoded address cache
+     *
+     * @return ResponseEntity
+     */
+    @GetMapping(value = "cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity getAddressCacheStats() {
+        try {
+            CacheStats decodedStats = addressService.getDecodedAddressCacheStats();
+            CacheStats invalidStats = addressService.getInvalidAddressCacheStats();
+            return ResponseEntity.ok(new AddressCacheStatsDTO(addressService.getDecodedAddressCacheSize()
+                    , decodedStats.hitCount()
+                    , decodedStats.missCount()
+                    , decodedStats.hitRate()
+                    , decodedStats.evictionCount()
+                    , invalidStats.hitCount()
+                    , invalidStats.missCount()));
+        } catch (Exception e) {
+            log.error("Error while getting address cache stats: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Method to write a DTO as a single JSON line, output stream is shared by the parallel writers
+     *
+     * @param outputStream
+     * @param dto
+     */
+    private void writeLine(OutputStream outputStream, Object dto) {
+        try {
+            byte[] line = objectMapper.writeValueAsBytes(dto);
+            synchronized (outputStream) {
+                outputStream.write(line);
+                outputStream.write('\n');
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
 }
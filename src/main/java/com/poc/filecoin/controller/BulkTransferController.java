@@ -0,0 +1,96 @@
+package com.poc.filecoin.controller;
+
+import com.poc.filecoin.dto.BulkTransferRequestDTO;
+import com.poc.filecoin.service.BulkTransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for bulk transfer jobs
+ *
+ * @author Vijay Pratap Singh
+ */
+@RestController()
+@RequestMapping("transaction/bulk")
+@Slf4j
+public class BulkTransferController {
+
+    @Autowired
+    BulkTransferService bulkTransferService;
+
+    /**
+     * API method to start a bulk transfer job from a file, or to resume it from its checkpoint
+     *
+     * @param bulkTransferRequest
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity start(@RequestBody BulkTransferRequestDTO bulkTransferRequest) {
+        try {
+            return ResponseEntity.ok(bulkTransferService.start(bulkTransferRequest));
+        } catch (Exception e) {
+            log.error("Error while starting bulk transfer job: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to get the progress of every bulk transfer job
+     *
+     * @return ResponseEntity
+     */
+    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity getJobs() {
+        try {
+            return ResponseEntity.ok(bulkTransferService.getJobs());
+        } catch (Exception e) {
+            log.error("Error while getting bulk transfer jobs: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to get the progress of a bulk transfer job
+     *
+     * @param jobId
+     * @return ResponseEntity
+     */
+    @GetMapping(value = "{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity getJob(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(bulkTransferService.getJob(jobId));
+        } catch (Exception e) {
+            log.error("Error while getting bulk transfer job: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to cancel a bulk transfer job, it can be resumed later by starting it again
+     *
+     * @param jobId
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "{jobId}/cancel", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity cancel(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(bulkTransferService.cancel(jobId));
+        } catch (Exception e) {
+            log.error("Error while cancelling bulk transfer job: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.poc.filecoin.controller;
+
+import com.poc.filecoin.dto.AddressCreateRequestDTO;
+import com.poc.filecoin.dto.KeyImportRequestDTO;
+import com.poc.filecoin.service.KeyStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+
+/**
+ * Controller for the local key store
+ *
+ * @author Vijay Pratap Singh
+ */
+@RestController()
+@RequestMapping("keystore")
+@Slf4j
+public class KeyStoreController {
+
+    @Autowired
+    KeyStoreService keyStoreService;
+
+    /**
+     * API method to import a private key into the key store
+     *
+     * @param keyImportRequestDTO
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "import", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity importKey(@RequestBody KeyImportRequestDTO keyImportRequestDTO) {
+        byte[] privateKey = null;
+        try {
+            privateKey = Hex.decodeHex(keyImportRequestDTO.getPrivateKey());
+            return ResponseEntity.ok(keyStoreService.importKey(privateKey, keyImportRequestDTO.getAddressProtocol()));
+        } catch (Exception e) {
+            log.error("Error while importing key: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        } finally {
+            if (privateKey != null) {
+                Arrays.fill(privateKey, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * API method to generate a new key straight into the key store, the private key is never returned
+     *
+     * @param addressCreateRequestDTO
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "new", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity createKey(@RequestBody AddressCreateRequestDTO addressCreateRequestDTO) {
+        try {
+            return ResponseEntity.ok(keyStoreService.createKey(addressCreateRequestDTO.getAddressProtocol()));
+        } catch (Exception e) {
+            log.error("Error while creating key: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to list the key ids and addresses of the stored keys
+     *
+     * @return ResponseEntity
+     */
+    @GetMapping(value = "keys", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity listKeys() {
+        try {
+            return ResponseEntity.ok(keyStoreService.listKeys());
+        } catch (Exception e) {
+            log.error("Error while listing keys: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+}
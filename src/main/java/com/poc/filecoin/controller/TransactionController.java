@@ -1,5 +1,9 @@
 package com.poc.filecoin.controller;
 
+import com.poc.filecoin.dto.BLSAggregateVerifyRequestDTO;
+import com.poc.filecoin.dto.OfflineSignRequestDTO;
+import com.poc.filecoin.dto.SignRequestDTO;
+import com.poc.filecoin.dto.SignedMessageDTO;
 import com.poc.filecoin.dto.TransactionRequestDTO;
 import com.poc.filecoin.service.TransactionService;
 import lombok.extern.slf4j.Slf4j;
@@ -11,6 +15,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Controller class for transaction
  *
@@ -34,6 +42,7 @@ public class TransactionController {
     public ResponseEntity signAndSendTransaction(@RequestBody TransactionRequestDTO transactionRequest) {
         try {
             var transaction = transactionService.signAndSendTransaction(transactionRequest.getPrivateKey(),
+                    transactionRequest.getKeyId(),
                     transactionRequest.getFromAddress(),
                     transactionRequest.getToAddress(),
                     transactionRequest.getMessage(),
@@ -47,4 +56,148 @@ public class TransactionController {
 
 
     }
+
+    /**
+     * API method to sign and send transaction without blocking the request thread
+     *
+     * @param transactionRequest
+     * @return CompletableFuture of ResponseEntity
+     */
+    @PostMapping(value = "send/async", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity> signAndSendTransactionAsync(
+            @RequestBody TransactionRequestDTO transactionRequest) {
+        return transactionService.signAndSendTransactionAsync(transactionRequest.getPrivateKey(),
+                        transactionRequest.getKeyId(),
+                        transactionRequest.getFromAddress(),
+                        transactionRequest.getToAddress(),
+                        transactionRequest.getMessage(),
+                        transactionRequest.getValue())
+                .<ResponseEntity>thenApply(ResponseEntity::ok)
+                .exceptionally(throwable -> {
+                    Throwable e = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    log.error("Error while signing and sending transaction: {}", e.getStackTrace());
+                    e.printStackTrace();
+                    return ResponseEntity.internalServerError().body(e.getMessage());
+                });
+    }
+
+    /**
+     * API method to sign a batch of pre-built messages without sending them
+     *
+     * @param signRequests
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "sign/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity signTransactions(@RequestBody List<SignRequestDTO> signRequests) {
+        try {
+            return ResponseEntity.ok(transactionService.signTransactions(signRequests));
+        } catch (Exception e) {
+            log.error("Error while signing transactions: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to sign a fully specified message offline, returning the signed message, its CBOR bytes and CID
+     *
+     * @param signRequest
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "sign/offline", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity signOffline(@RequestBody OfflineSignRequestDTO signRequest) {
+        try {
+            return ResponseEntity.ok(transactionService.signOffline(signRequest));
+        } catch (Exception e) {
+            log.error("Error while signing transaction offline: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to sign a batch of fully specified messages offline
+     *
+     * @param signRequests
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "sign/offline/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity signOfflineBatch(@RequestBody List<OfflineSignRequestDTO> signRequests) {
+        try {
+            return ResponseEntity.ok(transactionService.signOfflineBatch(signRequests));
+        } catch (Exception e) {
+            log.error("Error while signing transactions offline: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to sign a batch of pre-built messages with BLS keys and aggregate the signatures
+     *
+     * @param signRequests
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "sign/bls/aggregate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity signAndAggregateBLS(@RequestBody List<SignRequestDTO> signRequests) {
+        try {
+            return ResponseEntity.ok(transactionService.signAndAggregateBLS(signRequests));
+        } catch (Exception e) {
+            log.error("Error while aggregating BLS signatures: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to verify an aggregate BLS signature over a batch of messages
+     *
+     * @param verifyRequest
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "verify/bls/aggregate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity verifyBLSAggregate(@RequestBody BLSAggregateVerifyRequestDTO verifyRequest) {
+        try {
+            return ResponseEntity.ok(transactionService.verifyBLSAggregate(verifyRequest.getMessages(),
+                    verifyRequest.getSignature()));
+        } catch (Exception e) {
+            log.error("Error while verifying aggregate BLS signature: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to verify the signature of a signed message
+     *
+     * @param signedMessage
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "verify", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity verifySignedMessage(@RequestBody SignedMessageDTO signedMessage) {
+        try {
+            return ResponseEntity.ok(transactionService.verifySignedMessage(signedMessage));
+        } catch (Exception e) {
+            log.error("Error while verifying signed message: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * API method to verify the signatures of a batch of signed messages
+     *
+     * @param signedMessages
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "verify/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity verifySignedMessages(@RequestBody List<SignedMessageDTO> signedMessages) {
+        try {
+            return ResponseEntity.ok(transactionService.verifySignedMessages(signedMessages));
+        } catch (Exception e) {
+            log.error("Error while verifying signed messages: {}", e.getStackTrace());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,137 @@
+package com.poc.filecoin.controller;
+
+import com.poc.filecoin.service.ChainStateService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Controller for balance and actor queries, answered from the chain state cached for the current head
+ *
+ * @author Vijay Pratap Singh
+ */
+@RestController()
+@RequestMapping("wallet")
+@Slf4j
+public class WalletController {
+
+    @Autowired
+    ChainStateService chainStateService;
+
+    /**
+     * API method to get the balance of an address
+     *
+     * @param address
+     * @return CompletableFuture of ResponseEntity
+     */
+    @GetMapping(value = "{address}/balance", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity> getBalance(@PathVariable String address) {
+        try {
+            return chainStateService.getBalance(address)
+                    .<ResponseEntity>thenApply(ResponseEntity::ok)
+                    .exceptionally(throwable -> error("getting balance", throwable));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error("getting balance", e));
+        }
+    }
+
+    /**
+     * API method to get the balances of a batch of addresses, all read at the same head
+     *
+     * @param addresses
+     * @return CompletableFuture of ResponseEntity
+     */
+    @PostMapping(value = "balance/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity> getBalances(@RequestBody List<String> addresses) {
+        try {
+            return chainStateService.getBalances(addresses)
+                    .<ResponseEntity>thenApply(ResponseEntity::ok)
+                    .exceptionally(throwable -> error("getting balances", throwable));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error("getting balances", e));
+        }
+    }
+
+    /**
+     * API method to get the actor behind an address
+     *
+     * @param address
+     * @return CompletableFuture of ResponseEntity, not found when there is no actor behind the address
+     */
+    @GetMapping(value = "{address}/actor", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity> getActor(@PathVariable String address) {
+        try {
+            return chainStateService.getActor(address)
+                    .<ResponseEntity>thenApply(actor -> actor == null
+                            ? ResponseEntity.notFound().build() : ResponseEntity.ok(actor))
+                    .exceptionally(throwable -> error("getting actor", throwable));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error("getting actor", e));
+        }
+    }
+
+    /**
+     * API method to add addresses to the watchlist, their balances are refreshed once per epoch
+     *
+     * @param addresses
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "watch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity watch(@RequestBody List<String> addresses) {
+        try {
+            return ResponseEntity.ok(chainStateService.watch(addresses));
+        } catch (Exception e) {
+            return error("adding addresses to the watchlist", e);
+        }
+    }
+
+    /**
+     * API method to remove addresses from the watchlist
+     *
+     * @param addresses
+     * @return ResponseEntity
+     */
+    @PostMapping(value = "unwatch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity unwatch(@RequestBody List<String> addresses) {
+        try {
+            return ResponseEntity.ok(chainStateService.unwatch(addresses));
+        } catch (Exception e) {
+            return error("removing addresses from the watchlist", e);
+        }
+    }
+
+    /**
+     * API method to get the balances of every address on the watchlist
+     *
+     * @return CompletableFuture of ResponseEntity
+     */
+    @GetMapping(value = "watch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity> getWatchlistBalances() {
+        try {
+            return chainStateService.getWatchlistBalances()
+                    .<ResponseEntity>thenApply(ResponseEntity::ok)
+                    .exceptionally(throwable -> error("getting watchlist balances", throwable));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(error("getting watchlist balances", e));
+        }
+    }
+
+    private ResponseEntity error(String action, Throwable throwable) {
+        Throwable e = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        log.error("Error while {}: {}", action, e.getStackTrace());
+        e.printStackTrace();
+        return ResponseEntity.internalServerError().body(e.getMessage());
+    }
+
+}
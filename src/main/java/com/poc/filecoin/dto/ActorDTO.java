@@ -0,0 +1,19 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ActorDTO {
+    String address;
+    String code;
+    String head;
+    long nonce;
+    String balance;
+    long height;
+}
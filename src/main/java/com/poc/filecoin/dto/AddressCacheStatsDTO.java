@@ -0,0 +1,20 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Getter
+@Setter
+public class AddressCacheStatsDTO {
+
+    long size;
+    long hitCount;
+    long missCount;
+    double hitRate;
+    long evictionCount;
+    long invalidHitCount;
+    long invalidMissCount;
+
+}
@@ -0,0 +1,16 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class AddressResolutionDTO {
+    String address;
+    String idAddress;
+    String keyAddress;
+}
@@ -0,0 +1,16 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class AddressValidationDTO {
+    long index;
+    int code;
+    String result;
+}
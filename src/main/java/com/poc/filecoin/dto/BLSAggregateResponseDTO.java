@@ -0,0 +1,15 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+@Setter
+public class BLSAggregateResponseDTO {
+    List<TransactionResponseDTO> signatures;
+    TransactionResponseDTO aggregate;
+}
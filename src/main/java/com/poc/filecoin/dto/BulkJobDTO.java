@@ -0,0 +1,24 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkJobDTO {
+    String jobId;
+    String inputFile;
+    String outputFile;
+    String status;
+    long read;
+    long succeeded;
+    long failed;
+    long skipped;
+    // every line up to the checkpoint has its result in the output file
+    long checkpoint;
+    String error;
+}
@@ -0,0 +1,17 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkTransferIntentDTO {
+    long line;
+    int nonce;
+    String cid;
+    String messageCid;
+}
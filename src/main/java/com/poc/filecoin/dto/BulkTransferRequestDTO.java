@@ -0,0 +1,19 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkTransferRequestDTO {
+    // paths relative to the bulk directory, the output defaults to the input with a .results.ndjson suffix
+    String inputFile;
+    String outputFile;
+    Integer maxInFlight;
+    // lines whose last result is a failure are sent again when resuming, by default they are skipped
+    Boolean retryFailed;
+}
@@ -0,0 +1,18 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkTransferResultDTO {
+    long line;
+    boolean success;
+    String cid;
+    String messageCid;
+    String error;
+}
@@ -0,0 +1,20 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Getter
+@Setter
+public class HDAddressDTO {
+
+    int index;
+    String path;
+    String privateKey;
+    String publicKey;
+    String type;
+    String network;
+    String address;
+
+}
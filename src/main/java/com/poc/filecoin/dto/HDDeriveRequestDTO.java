@@ -0,0 +1,20 @@
+package com.poc.filecoin.dto;
+
+import com.poc.filecoin.enums.FilecoinProtocol;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class HDDeriveRequestDTO {
+    FilecoinProtocol addressProtocol;
+    String seed;
+    int account;
+    int start;
+    int count;
+    boolean includePrivateKey;
+}
@@ -0,0 +1,17 @@
+package com.poc.filecoin.dto;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class OfflineSignRequestDTO {
+    String privateKey;
+    FilecoinNetwork network;
+    TransactionDTO message;
+}
@@ -0,0 +1,18 @@
+package com.poc.filecoin.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class SignedMessageDTO {
+    @JsonProperty("Message")
+    TransactionDTO message;
+    @JsonProperty("Signature")
+    SignatureDTO signature;
+}
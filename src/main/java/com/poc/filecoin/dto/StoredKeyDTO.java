@@ -0,0 +1,17 @@
+package com.poc.filecoin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@AllArgsConstructor
+@Getter
+@Setter
+public class StoredKeyDTO {
+
+    int keyId;
+    String address;
+    String type;
+    String network;
+
+}
@@ -10,7 +10,9 @@ import lombok.Setter;
 @Getter
 @Setter
 public class TransactionRequestDTO {
+    // optional, the key store is used when no private key is given
     String privateKey;
+    Integer keyId;
     String fromAddress;
     String toAddress;
     String message;
@@ -0,0 +1,17 @@
+package com.poc.filecoin.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class TransactionSendResponseDTO {
+    JsonNode result;
+    String cid;
+    String messageCid;
+}
@@ -0,0 +1,35 @@
+package com.poc.filecoin.enums;
+
+import java.util.Arrays;
+
+/**
+ * Enum for the result of validating an encoded address, the code is stable and compact enough to store
+ *
+ * @author Vijay Pratap Singh
+ */
+public enum AddressValidationResult {
+    VALID(0),
+    EMPTY(1),
+    INVALID_LENGTH(2),
+    INVALID_NETWORK(3),
+    INVALID_PROTOCOL(4),
+    UNSUPPORTED_PROTOCOL(5),
+    INVALID_CHARACTER(6),
+    INVALID_ENCODING(7),
+    INVALID_PAYLOAD_LENGTH(8),
+    INVALID_CHECKSUM(9);
+
+    private int value;
+
+    AddressValidationResult(int value) {
+        this.value = value;
+    }
+
+    public int getValue() {
+        return this.value;
+    }
+
+    public static AddressValidationResult getEnum(int value) {
+        return Arrays.stream(values()).filter(result -> result.value == value).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.poc.filecoin.enums;
+
+/**
+ * Enum for the status of a bulk transfer job
+ *
+ * @author Vijay Pratap Singh
+ */
+public enum BulkJobStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.poc.filecoin.exceptions;
+
+public class FilecoinRpcException extends Exception{
+
+    private final int code;
+
+    public FilecoinRpcException(String errorMessage) {
+        this(errorMessage, 0);
+    }
+
+    public FilecoinRpcException(String errorMessage, int code) {
+        super(errorMessage);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+}
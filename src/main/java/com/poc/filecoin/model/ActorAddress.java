@@ -0,0 +1,37 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+
+/**
+ * Class for Actor Address
+ *
+ * @author Vijay Pratap Singh
+ */
+/*
+    Protocol 2 addresses represent actors created by other actors, such as multisig and payment channels.
+    The payload field contains the Blake2b 160 hash of data produced when the actor was created.
+
+    |------------|----------|------------------------|----------|
+    |  network   | protocol |      payload           | checksum |
+    |------------|----------|------------------------|----------|
+    | 'f' or 't' |    '2'   | blake2b-160(20 bytes)  |  4 bytes |
+                      base32[...................................]
+*/
+public class ActorAddress extends Address {
+
+    public ActorAddress() {
+    }
+
+    public ActorAddress(byte[] payload, FilecoinNetwork filecoinNetwork) {
+        byte[] address = new byte[payload.length + 1];
+        address[0] = (byte) FilecoinProtocol.ACTOR.getValue();
+        System.arraycopy(payload, 0, address, 1, payload.length);
+
+        setFilecoinNetwork(filecoinNetwork);
+        setFilecoinProtocol(FilecoinProtocol.ACTOR);
+        setPayload(payload);
+        setAddress(address);
+    }
+
+}
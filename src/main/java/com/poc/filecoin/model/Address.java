@@ -4,17 +4,16 @@ package com.poc.filecoin.model;
 import com.poc.filecoin.enums.FilecoinNetwork;
 import com.poc.filecoin.enums.FilecoinProtocol;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 
 /**
- * Model class for Filecoin address
+ * Model class for Filecoin address. An address can be frozen once it is fully built, after that every setter
+ * fails, which lets a decoded address be shared between threads through the address cache
  *
  * @author Vijay Pratap Singh
  */
 @Getter
-@Setter
 @Slf4j
 public abstract class Address {
 
@@ -24,5 +23,52 @@ public abstract class Address {
     private byte[] publicKey;
     private FilecoinProtocol filecoinProtocol;
     private FilecoinNetwork filecoinNetwork;
+    private volatile boolean frozen;
+
+    public void setPayload(byte[] payload) {
+        checkNotFrozen();
+        this.payload = payload;
+    }
+
+    public void setAddress(byte[] address) {
+        checkNotFrozen();
+        this.address = address;
+    }
+
+    public void setPrivateKey(byte[] privateKey) {
+        checkNotFrozen();
+        this.privateKey = privateKey;
+    }
+
+    public void setPublicKey(byte[] publicKey) {
+        checkNotFrozen();
+        this.publicKey = publicKey;
+    }
+
+    public void setFilecoinProtocol(FilecoinProtocol filecoinProtocol) {
+        checkNotFrozen();
+        this.filecoinProtocol = filecoinProtocol;
+    }
+
+    public void setFilecoinNetwork(FilecoinNetwork filecoinNetwork) {
+        checkNotFrozen();
+        this.filecoinNetwork = filecoinNetwork;
+    }
+
+    /**
+     * Method to make the address read only, the byte arrays it returns must not be modified either
+     *
+     * @return Address
+     */
+    public Address freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Address is frozen and can not be modified");
+        }
+    }
 
 }
@@ -40,10 +40,14 @@ public class BLSAddress extends Address {
 
     }
 
-    @SneakyThrows
     public BLSAddress(FilecoinNetwork filecoinNetwork) {
+        this(filecoinNetwork, new SecureRandom());
+    }
+
+    @SneakyThrows
+    public BLSAddress(FilecoinNetwork filecoinNetwork, SecureRandom secureRandom) {
 
-        BLSKeyPair blsKeyPair = BLSKeyPair.random(new SecureRandom());
+        BLSKeyPair blsKeyPair = BLSKeyPair.random(secureRandom);
         var privateKey = blsKeyPair.getSecretKey().toBytes();
         var publicKey = blsKeyPair.getPublicKey().toSSZBytes().toArray();
 
@@ -0,0 +1,25 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.enums.SignatureType;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Class for an aggregate of BLS signatures, signature bytes hold the aggregate and the individual signatures
+ * are kept in the order they were aggregated
+ *
+ * @author Vijay Pratap Singh
+ */
+@Getter
+public class BLSAggregateSignature extends Signature {
+
+    private final List<BLSSignature> signatures;
+
+    public BLSAggregateSignature(List<BLSSignature> signatures, byte[] aggregateSignatureBytes) {
+        this.signatures = signatures;
+        this.signatureBytes = aggregateSignatureBytes;
+        this.signatureType = SignatureType.BLS;
+    }
+
+}
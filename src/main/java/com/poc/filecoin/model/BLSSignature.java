@@ -5,10 +5,12 @@ import com.poc.filecoin.util.UtilityService;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import tech.pegasys.teku.bls.BLS;
+import tech.pegasys.teku.bls.BLSPublicKey;
 import tech.pegasys.teku.bls.BLSSecretKey;
 import tech.pegasys.teku.bls.impl.blst.BlstLoader;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Class for BLS Signature
@@ -17,27 +19,119 @@ import java.util.Optional;
  */
 public class BLSSignature extends Signature {
 
-    public BLSSignature(byte[] transaction, byte[] privateKey) {
+    static {
+        // using blst implementation for all the BLS operations, set once instead of per signature
+        BLS.setBlsImplementation(BlstLoader.INSTANCE.get());
+    }
 
+    public BLSSignature(byte[] transaction, byte[] privateKey) {
+        this(signDigestBytes(UtilityService.getDigest(transaction), privateKey));
+    }
 
-        var secretKey = Bytes32.wrap(privateKey);
-        var blsSecretKey = BLSSecretKey.fromBytes(secretKey);
-        var publicKey = blsSecretKey.toPublicKey();
+    public BLSSignature(byte[] signatureBytes) {
+        this.signatureBytes = signatureBytes;
+        this.signatureType = SignatureType.BLS;
+    }
 
-        var digestedTransaction = UtilityService.getDigest(transaction);
+    /**
+     * Method to sign the digest of a transaction, as returned by UtilityService.getDigest
+     *
+     * @param digest
+     * @param privateKey
+     * @return BLSSignature
+     */
+    public static BLSSignature signDigest(byte[] digest, byte[] privateKey) {
+        return new BLSSignature(signDigestBytes(digest, privateKey));
+    }
 
-        var bls12381 = BlstLoader.INSTANCE.get();
+    private static byte[] signDigestBytes(byte[] digest, byte[] privateKey) {
+        var blsSecretKey = BLSSecretKey.fromBytes(Bytes32.wrap(privateKey));
+        var blsSignature = BLS.sign(blsSecretKey, Bytes.wrap(digest));
+        return blsSignature.toSSZBytes().toArray();
+    }
 
-        BLS bls = new BLS();
-        bls.setBlsImplementation(bls12381);
+    /**
+     * Method to aggregate BLS signatures of different messages into a single signature
+     *
+     * @param signatures
+     * @return BLSAggregateSignature
+     */
+    public static BLSAggregateSignature aggregate(List<BLSSignature> signatures) {
+        var blsSignatures = signatures.stream()
+                .map(signature -> tech.pegasys.teku.bls.BLSSignature.fromSSZBytes(Bytes.wrap(signature.getSignatureBytes())))
+                .collect(Collectors.toList());
+        var aggregate = BLS.aggregate(blsSignatures);
+        return new BLSAggregateSignature(signatures, aggregate.toSSZBytes().toArray());
+    }
 
-        var blsSignature = BLS.sign(
-                blsSecretKey, Bytes.wrap(digestedTransaction));
+    /**
+     * Method to verify an aggregate signature against the signers' public keys and the CBOR bytes of the
+     * messages they signed, in the same order
+     *
+     * @param publicKeys
+     * @param transactions
+     * @param aggregateSignature
+     * @return boolean
+     */
+    public static boolean aggregateVerify(List<byte[]> publicKeys, List<byte[]> transactions, byte[] aggregateSignature) {
+        if (publicKeys.size() != transactions.size() || publicKeys.isEmpty()) {
+            return false;
+        }
+        var blsPublicKeys = publicKeys.stream()
+                .map(publicKey -> BLSPublicKey.fromSSZBytes(Bytes.wrap(publicKey)))
+                .collect(Collectors.toList());
+        var digestedTransactions = transactions.stream()
+                .map(transaction -> Bytes.wrap(UtilityService.getDigest(transaction)))
+                .collect(Collectors.toList());
+        var signature = tech.pegasys.teku.bls.BLSSignature.fromSSZBytes(Bytes.wrap(aggregateSignature));
+        return BLS.aggregateVerify(blsPublicKeys, digestedTransactions, signature);
+    }
 
-        this.signatureBytes = blsSignature.toSSZBytes().toArray();
-        ;
-        this.signatureType = SignatureType.BLS;
+    /**
+     * Method to verify a signature over the digest of a transaction, as returned by UtilityService.getDigest,
+     * against the public key of the signer
+     *
+     * @param digest
+     * @param signatureBytes
+     * @param publicKey
+     * @return boolean, false as well for malformed keys or signatures
+     */
+    public static boolean verify(byte[] digest, byte[] signatureBytes, byte[] publicKey) {
+        try {
+            return BLS.verify(BLSPublicKey.fromSSZBytes(Bytes.wrap(publicKey)), Bytes.wrap(digest),
+                    tech.pegasys.teku.bls.BLSSignature.fromSSZBytes(Bytes.wrap(signatureBytes)));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
 
+    /**
+     * Method to verify many signatures of different messages at once. The checks are combined into a single
+     * randomized multi-pairing, so the result only tells whether every signature is valid
+     *
+     * @param publicKeys
+     * @param digests
+     * @param signatures
+     * @return boolean, false when any signature is invalid or malformed
+     */
+    public static boolean batchVerify(List<byte[]> publicKeys, List<byte[]> digests, List<byte[]> signatures) {
+        if (publicKeys.size() != digests.size() || publicKeys.size() != signatures.size() || publicKeys.isEmpty()) {
+            return false;
+        }
+        try {
+            var blsPublicKeys = publicKeys.stream()
+                    .map(publicKey -> List.of(BLSPublicKey.fromSSZBytes(Bytes.wrap(publicKey))))
+                    .collect(Collectors.toList());
+            var messages = digests.stream()
+                    .map(Bytes::wrap)
+                    .collect(Collectors.toList());
+            var blsSignatures = signatures.stream()
+                    .map(signature -> tech.pegasys.teku.bls.BLSSignature.fromSSZBytes(Bytes.wrap(signature)))
+                    .collect(Collectors.toList());
+            return BLS.batchVerify(blsPublicKeys, messages, blsSignatures);
+        } catch (RuntimeException e) {
+            return false;
+        }
     }
 
 }
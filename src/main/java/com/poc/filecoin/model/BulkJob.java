@@ -0,0 +1,83 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.enums.BulkJobStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of a bulk transfer job. Lines complete out of order, the checkpoint is the last line up to which every
+ * line is complete, so only the lines completed ahead of it are remembered
+ *
+ * @author Vijay Pratap Singh
+ */
+@Getter
+public class BulkJob {
+
+    private final String jobId;
+    private final Path inputFile;
+    private final Path outputFile;
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    @Setter
+    private volatile BulkJobStatus status = BulkJobStatus.RUNNING;
+    @Setter
+    private volatile String error;
+    private volatile boolean cancelled;
+    private long checkpoint;
+    private final TreeSet<Long> completedAhead = new TreeSet<>();
+
+    public BulkJob(String jobId, Path inputFile, Path outputFile) {
+        this.jobId = jobId;
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Method to start counting from the checkpoint of an earlier run
+     *
+     * @param checkpoint
+     */
+    public synchronized void resumeFrom(long checkpoint) {
+        this.checkpoint = checkpoint;
+        this.completedAhead.clear();
+    }
+
+    /**
+     * Method to mark a line as complete, a line retried at or below the checkpoint leaves it as it is
+     *
+     * @param line
+     * @return long, the checkpoint after the line
+     */
+    public synchronized long complete(long line) {
+        if (line <= checkpoint) {
+            return checkpoint;
+        }
+        if (line != checkpoint + 1) {
+            completedAhead.add(line);
+            return checkpoint;
+        }
+        checkpoint = line;
+        while (!completedAhead.isEmpty() && completedAhead.first() == checkpoint + 1) {
+            checkpoint = completedAhead.pollFirst();
+        }
+        return checkpoint;
+    }
+
+    public synchronized long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Method to stop reading new lines, lines already in flight still complete
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+}
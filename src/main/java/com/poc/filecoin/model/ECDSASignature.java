@@ -1,17 +1,14 @@
 package com.poc.filecoin.model;
 
 import com.poc.filecoin.enums.SignatureType;
-import com.poc.filecoin.util.UtilityService;
+import com.poc.filecoin.util.Blake2bHasher;
 import lombok.Getter;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Hex;
+import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.apache.tuweni.crypto.SECP256K1;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.web3j.crypto.Hash;
 
-import java.security.*;
+import java.util.Arrays;
 
 /**
  * Class for ECDSA Signature
@@ -22,41 +19,53 @@ import java.security.*;
 @Slf4j
 public class ECDSASignature extends Signature {
 
-    @SneakyThrows
-    public ECDSASignature(byte[] transaction, byte[] privateKey) {
-
-        Security.addProvider(new BouncyCastleProvider());
-        // Get message digest
-        var generatedCid = UtilityService.getDigest(transaction);
-        // Generate blake2b hash of generated Cid
-        var blake2b256HashCid = Hash.blake2b256(generatedCid);
-        log.info("Bytes of final hash before signing:");
-        System.out.print("{");
-        for (int i = 0; i < blake2b256HashCid.length; i++) {
-            System.out.print(Byte.toUnsignedInt(blake2b256HashCid[i]) + ", ");
-        }
-        System.out.println("}");
-        var secretKey = SECP256K1.SecretKey.fromBytes(Bytes32.wrap(privateKey));
-        var publicKey = SECP256K1.PublicKey.fromSecretKey(secretKey);
-        var keyPair = SECP256K1.KeyPair.create(secretKey, publicKey);
-        var secp256k1Signature = SECP256K1.signHashed(blake2b256HashCid, keyPair);
-        var signature = secp256k1Signature.bytes().toArray();
-
-        log.info("Decoded private key string: {}", Hex.encodeHexString(secretKey.bytesArray()));
-        System.out.print("Private Key: {");
-        for (int i = 0; i < privateKey.length; i++) {
-            System.out.print(Byte.toUnsignedInt(privateKey[i]) + ", ");
-        }
-        System.out.println("}");
+    // r and s followed by the recovery id
+    private static final int SIGNATURE_LENGTH = 65;
 
-        System.out.print("ECDSA Signature: [");
-        for (int i = 0; i < signature.length; i++) {
-            System.out.print(Byte.toUnsignedInt(signature[i]) + " ");
+    public ECDSASignature(byte[] transaction, byte[] privateKey) {
+        // one off signer, repeated signing with the same key should reuse a SECP256K1Signer instead
+        SECP256K1Signer signer = new SECP256K1Signer(privateKey);
+        try {
+            this.signatureBytes = signer.sign(transaction).getSignatureBytes();
+        } finally {
+            signer.destroy();
         }
-        System.out.println("]");
+        this.signatureType = SignatureType.ECDSA;
+    }
 
-        this.signatureBytes = signature;
+    public ECDSASignature(byte[] signatureBytes) {
+        this.signatureBytes = signatureBytes;
         this.signatureType = SignatureType.ECDSA;
     }
 
+    /**
+     * Method to verify a signature over the digest of a transaction, as returned by UtilityService.getDigest.
+     * The public key is recovered from the signature and its recovery id, the signature is valid when the
+     * blake2b-160 hash of the uncompressed recovered key is the payload of the sender address
+     *
+     * @param digest
+     * @param signatureBytes
+     * @param payload
+     * @return boolean, false as well for malformed signatures
+     */
+    public static boolean verify(byte[] digest, byte[] signatureBytes, byte[] payload) {
+        if (signatureBytes == null || signatureBytes.length != SIGNATURE_LENGTH) {
+            return false;
+        }
+        try {
+            var hash = Bytes32.wrap(Blake2bHasher.blake2b256(digest));
+            var publicKey = SECP256K1.PublicKey.recoverFromHashAndSignature(hash,
+                    SECP256K1.Signature.fromBytes(Bytes.wrap(signatureBytes)));
+            if (publicKey == null) {
+                return false;
+            }
+            var publicKeyBytes = publicKey.bytesArray();
+            var recoveredPayload = new byte[Blake2bHasher.BLAKE2B_160_LENGTH];
+            Blake2bHasher.blake2b160((byte) 0x04, publicKeyBytes, 0, publicKeyBytes.length, recoveredPayload, 0);
+            return Arrays.equals(recoveredPayload, payload);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.poc.filecoin.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * Node of a hierarchical deterministic key tree, the 32 byte private key and the chain code its children are
+ * derived with. EIP-2333 nodes derive their children from the private key alone and carry an empty chain code.
+ * A node can be destroyed to zero its private key and chain code
+ *
+ * @author Vijay Pratap Singh
+ */
+@Getter
+public class ExtendedKey {
+
+    private final byte[] privateKey;
+    private final byte[] chainCode;
+    // compressed public key, filled in the first time a non-hardened child is derived
+    @Setter
+    private volatile byte[] publicKey;
+    @Getter(AccessLevel.NONE)
+    private boolean destroyed;
+
+    public ExtendedKey(byte[] privateKey, byte[] chainCode) {
+        this.privateKey = privateKey;
+        this.chainCode = chainCode;
+    }
+
+    /**
+     * Method to copy the node unless it is already destroyed, destroying the node leaves the copy as it is
+     *
+     * @return ExtendedKey, null when the node is destroyed
+     */
+    public synchronized ExtendedKey tryCopy() {
+        if (destroyed) {
+            return null;
+        }
+        ExtendedKey copy = new ExtendedKey(privateKey.clone(), chainCode.clone());
+        copy.publicKey = publicKey;
+        return copy;
+    }
+
+    /**
+     * Method to zero the private key and chain code of the node
+     */
+    public synchronized void destroy() {
+        destroyed = true;
+        Arrays.fill(privateKey, (byte) 0);
+        Arrays.fill(chainCode, (byte) 0);
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.util.FilecoinAddressCodec;
+
+/**
+ * Class for ID Address
+ *
+ * @author Vijay Pratap Singh
+ */
+/*
+    Protocol 0 addresses are the ids the init actor assigns to every actor. The payload is the id as an unsigned
+    LEB128 varint, the string form is the decimal id and carries no checksum.
+
+    |------------|----------|-------------|
+    |  network   | protocol |   payload   |
+    |------------|----------|-------------|
+    | 'f' or 't' |    '0'   | decimal id  |
+*/
+public class IDAddress extends Address {
+
+    public IDAddress() {
+    }
+
+    public IDAddress(long id, FilecoinNetwork filecoinNetwork) {
+        byte[] payload = FilecoinAddressCodec.uvarint(id);
+        byte[] address = new byte[payload.length + 1];
+        address[0] = (byte) FilecoinProtocol.ID.getValue();
+        System.arraycopy(payload, 0, address, 1, payload.length);
+
+        setFilecoinNetwork(filecoinNetwork);
+        setFilecoinProtocol(FilecoinProtocol.ID);
+        setPayload(payload);
+        setAddress(address);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.poc.filecoin.model;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Private key held in direct memory outside of the java heap. Readers copy the key out for the duration of a
+ * signature, destroying the key zeroes the direct buffer once in flight copies are done
+ *
+ * @author Vijay Pratap Singh
+ */
+public class OffHeapKey {
+
+    private final ByteBuffer key;
+    // copies share the read lock, destroy waits for them through the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean destroyed;
+
+    public OffHeapKey(byte[] privateKey) {
+        this.key = ByteBuffer.allocateDirect(privateKey.length);
+        this.key.put(privateKey, 0, privateKey.length);
+    }
+
+    /**
+     * Method to copy the key into a new array unless the key is already destroyed, the caller zeroes the copy
+     * once it is done with it
+     *
+     * @return byte[], null when the key is destroyed
+     */
+    public byte[] tryCopy() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (destroyed) {
+                return null;
+            }
+            byte[] copy = new byte[key.capacity()];
+            key.duplicate().clear().get(copy);
+            return copy;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Method to zero the key, it can not be copied afterwards
+     */
+    public void destroy() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (!destroyed) {
+                destroyed = true;
+                for (int i = 0; i < key.capacity(); i++) {
+                    key.put(i, (byte) 0);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
@@ -3,16 +3,15 @@ package com.poc.filecoin.model;
 import com.poc.filecoin.enums.FilecoinNetwork;
 import com.poc.filecoin.enums.FilecoinProtocol;
 import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.util.Blake2bHasher;
+import com.poc.filecoin.util.SecurityProviders;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.bytes.Bytes32;
 import org.apache.tuweni.crypto.SECP256K1;
-import org.bouncycastle.jcajce.provider.digest.Blake2b;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 
-import java.security.*;
+import java.util.Arrays;
 
 
 /**
@@ -36,14 +35,17 @@ import java.security.*;
 @Slf4j
 public class SECP256K1Address extends Address {
 
+    static {
+        // registering the provider once instead of per address
+        SecurityProviders.registerBouncyCastle();
+    }
+
     public SECP256K1Address() {
     }
 
     @SneakyThrows
     public SECP256K1Address(byte[] privateKey, FilecoinNetwork filecoinNetwork) {
 
-
-        Security.addProvider(new BouncyCastleProvider());
         var secretKey = SECP256K1.SecretKey.fromBytes(Bytes32.wrap(privateKey));
         var publicKey = SECP256K1.PublicKey.fromSecretKey(secretKey);
 
@@ -53,7 +55,6 @@ public class SECP256K1Address extends Address {
     @SneakyThrows
     public SECP256K1Address(FilecoinNetwork filecoinNetwork) {
 
-        Security.addProvider(new BouncyCastleProvider());
         var keyPair = SECP256K1.KeyPair.random();
         var privateKey = keyPair.secretKey().bytesArray();
         var publicKey = keyPair.publicKey().bytesArray();
@@ -73,31 +74,17 @@ public class SECP256K1Address extends Address {
     @SneakyThrows
     private void createAddress(byte[] publicKey, byte[] privateKey, FilecoinNetwork filecoinNetwork) {
 
-        // getting uncompressed public key
-        var secp256k1publicKey = SECP256K1.PublicKey.fromBytes(Bytes.wrap(publicKey));
-        var x = secp256k1publicKey.asEcPoint().getXCoord().getEncoded();
-        var y = secp256k1publicKey.asEcPoint().getYCoord().getEncoded();
-        var uncompressedPublic = new byte[1 + x.length + y.length];
-        uncompressedPublic[0] = 0x04;
-        System.arraycopy(x, 0, uncompressedPublic, 1, x.length);
-        System.arraycopy(y, 0, uncompressedPublic, x.length + 1, y.length);
-
-        log.info("Uncompressed Public Key length: {}", uncompressedPublic.length);
-        log.info("Uncompressed Public Key: {}", uncompressedPublic);
-
-
-        // initialize blake2b160
-        var blake2b = new Blake2b.Blake2b160();
-        // digest encoded public key with protocol
-        var blakeDigestedPublicKey = blake2b.digest(uncompressedPublic);
-
-        if (blakeDigestedPublicKey.length != 20) {
-            throw new InvalidFilecoinException("Invalid digested public key length " + blakeDigestedPublicKey.length);
+        // public key holds the 64 bytes of x and y, the uncompressed form is the same with a leading 0x04
+        if (publicKey.length != 64) {
+            throw new InvalidFilecoinException("Invalid public key length " + publicKey.length);
         }
 
-        var blakeDigestedPublicKeyWithProtocol = new byte[blakeDigestedPublicKey.length + 1];
+        // digest uncompressed public key straight behind the protocol byte
+        var blakeDigestedPublicKeyWithProtocol = new byte[Blake2bHasher.BLAKE2B_160_LENGTH + 1];
         blakeDigestedPublicKeyWithProtocol[0] = (byte) FilecoinProtocol.SECP256K1.getValue();
-        System.arraycopy(blakeDigestedPublicKey, 0, blakeDigestedPublicKeyWithProtocol, 1, blakeDigestedPublicKey.length);
+        Blake2bHasher.blake2b160((byte) 0x04, publicKey, 0, publicKey.length, blakeDigestedPublicKeyWithProtocol, 1);
+        var blakeDigestedPublicKey = Arrays.copyOfRange(blakeDigestedPublicKeyWithProtocol, 1,
+                blakeDigestedPublicKeyWithProtocol.length);
 
         // set filecoin address network and protocol
         this.setFilecoinNetwork(filecoinNetwork);
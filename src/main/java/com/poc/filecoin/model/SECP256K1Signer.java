@@ -0,0 +1,130 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.util.Blake2bHasher;
+import com.poc.filecoin.util.SecurityProviders;
+import com.poc.filecoin.util.UtilityService;
+import org.apache.tuweni.bytes.Bytes32;
+import org.apache.tuweni.crypto.SECP256K1;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reusable signer for a single secp256k1 key. The key pair is derived once when the signer is built and reused
+ * for every message, the signer can be shared between threads and destroyed to zero its copy of the key
+ *
+ * @author Vijay Pratap Singh
+ */
+public class SECP256K1Signer {
+
+    static {
+        // registering the provider once instead of per signature
+        SecurityProviders.registerBouncyCastle();
+    }
+
+    private static final ThreadLocal<byte[]> DIGEST_BUFFER = ThreadLocal.withInitial(() -> new byte[UtilityService.CID_LENGTH]);
+
+    private final byte[] privateKey;
+    private final SECP256K1.SecretKey secretKey;
+    private final SECP256K1.KeyPair keyPair;
+    // signing shares the read lock, destroy waits for in flight signatures through the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean destroyed;
+
+    public SECP256K1Signer(byte[] privateKey) {
+        // working on copies, destroying the signer must not clear the caller's key
+        this.privateKey = privateKey.clone();
+        this.secretKey = SECP256K1.SecretKey.fromBytes(Bytes32.wrap(privateKey.clone()));
+        this.keyPair = SECP256K1.KeyPair.create(secretKey, SECP256K1.PublicKey.fromSecretKey(secretKey));
+    }
+
+    /**
+     * Method to sign marshalled CBOR bytes of a transaction
+     *
+     * @param transaction
+     * @return ECDSASignature
+     * @throws IllegalStateException when the signer is destroyed
+     */
+    public ECDSASignature sign(byte[] transaction) {
+        ECDSASignature signature = trySign(transaction);
+        if (signature == null) {
+            throw new IllegalStateException("Signer is destroyed");
+        }
+        return signature;
+    }
+
+    /**
+     * Method to sign marshalled CBOR bytes of a transaction unless the signer is already destroyed
+     *
+     * @param transaction
+     * @return ECDSASignature, null when the signer is destroyed
+     */
+    public ECDSASignature trySign(byte[] transaction) {
+        byte[] digest = DIGEST_BUFFER.get();
+        UtilityService.getDigest(transaction, 0, transaction.length, digest, 0);
+        return trySignDigest(digest);
+    }
+
+    /**
+     * Method to sign the digest of a transaction, as returned by UtilityService.getDigest, unless the signer is
+     * already destroyed
+     *
+     * @param digest
+     * @return ECDSASignature, null when the signer is destroyed
+     */
+    public ECDSASignature trySignDigest(byte[] digest) {
+        // blake2b hash of the message cid is what gets signed
+        byte[] hash = new byte[Blake2bHasher.BLAKE2B_256_LENGTH];
+        Blake2bHasher.blake2b256(digest, 0, digest.length, hash, 0);
+
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            if (destroyed) {
+                return null;
+            }
+            return new ECDSASignature(SECP256K1.signHashed(hash, keyPair).bytes().toArray());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Method to check in constant time whether the signer holds the given private key
+     *
+     * @param privateKey
+     * @return boolean
+     */
+    public boolean matches(byte[] privateKey) {
+        return MessageDigest.isEqual(this.privateKey, privateKey);
+    }
+
+    /**
+     * Method to get the 64 byte public key of the signer
+     *
+     * @return byte[]
+     */
+    public byte[] getPublicKey() {
+        return keyPair.publicKey().bytesArray();
+    }
+
+    /**
+     * Method to zero the key material, the signer can not sign afterwards
+     */
+    public void destroy() {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            if (!destroyed) {
+                destroyed = true;
+                Arrays.fill(privateKey, (byte) 0);
+                secretKey.destroy();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.poc.filecoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Model for a signed transaction ready to be broadcast, with its encoded bytes and CIDs. The CID of a BLS signed
+ * message is the CID of the unsigned message, for SECP256K1 it is the CID of the signed message bytes
+ *
+ * @author Vijay Pratap Singh
+ */
+@AllArgsConstructor
+@Getter
+public class SignedMessage {
+
+    private Transaction transaction;
+    private Signature signature;
+    private byte[] messageCbor;
+    private byte[] signedMessageCbor;
+    private byte[] messageCid;
+    private byte[] cid;
+
+}
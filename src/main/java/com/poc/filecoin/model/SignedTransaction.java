@@ -0,0 +1,18 @@
+package com.poc.filecoin.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Model for a transaction together with its signature
+ *
+ * @author Vijay Pratap Singh
+ */
+@AllArgsConstructor
+@Getter
+public class SignedTransaction {
+
+    private Transaction transaction;
+    private Signature signature;
+
+}
@@ -0,0 +1,20 @@
+package com.poc.filecoin.model;
+
+import com.poc.filecoin.enums.FilecoinProtocol;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Model for a transaction waiting to be signed with the given private key
+ *
+ * @author Vijay Pratap Singh
+ */
+@AllArgsConstructor
+@Getter
+public class UnsignedTransaction {
+
+    private String privateKey;
+    private Transaction transaction;
+    private FilecoinProtocol filecoinProtocol;
+
+}
@@ -0,0 +1,234 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import com.poc.filecoin.model.Address;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service class resolving addresses to their ID address and ID addresses back to the key address of their
+ * account actor. Lookups are made at the finalized tipset, 900 epochs below the head, since a reorg above it can
+ * hand a new id to a different actor. A mapping found there never changes, so it is cached without expiry,
+ * addresses without an actor at finality are remembered for a short time only. Only account actors have a key
+ * address, the code of the actor is checked before its key is asked for
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class AddressResolverService {
+
+    private static final int FINALITY_EPOCHS = 900;
+    // the finalized tipset moves by one epoch every 30 seconds
+    private static final long EPOCH_MILLIS = 30_000;
+
+    @Value("${filecoin.address.resolver.cache.max-size}")
+    private long resolvedCacheMaxSize = 100_000;
+
+    @Value("${filecoin.address.resolver.unresolved.expire-ms}")
+    private long unresolvedExpireMillis = 60_000;
+
+    @Value("${filecoin.address.compact-to-id}")
+    private boolean compactToId = false;
+
+    @Autowired
+    NetworkService networkService;
+
+    @Autowired
+    AddressService addressService;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private Cache<String, String> idByAddress;
+    private Cache<String, String> keyAddressById;
+    private Cache<String, Boolean> unresolved;
+
+    // code CID of the account actor by network version
+    private final Map<Integer, String> accountCodes = new ConcurrentHashMap<>();
+
+    private volatile FinalizedTipSet finalizedTipSet;
+
+    /**
+     * Method to build the caches of resolved and unresolved addresses
+     */
+    @PostConstruct
+    public void initResolverCaches() {
+        this.idByAddress = CacheBuilder.newBuilder()
+                .maximumSize(resolvedCacheMaxSize)
+                .recordStats()
+                .build();
+        this.keyAddressById = CacheBuilder.newBuilder()
+                .maximumSize(resolvedCacheMaxSize)
+                .recordStats()
+                .build();
+        this.unresolved = CacheBuilder.newBuilder()
+                .maximumSize(resolvedCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(unresolvedExpireMillis))
+                .build();
+        if (meterRegistry != null) {
+            GuavaCacheMetrics.monitor(meterRegistry, idByAddress, "filecoin.address.resolver.id");
+            GuavaCacheMetrics.monitor(meterRegistry, keyAddressById, "filecoin.address.resolver.key");
+        }
+    }
+
+    /**
+     * Method to get the ID address of an address
+     *
+     * @param encodedAddress
+     * @return String, null when the address has no actor at the finalized tipset
+     * @throws FilecoinRpcException
+     */
+    @SneakyThrows
+    public String lookupId(String encodedAddress) {
+        if (addressService.decode(encodedAddress).getFilecoinProtocol() == FilecoinProtocol.ID) {
+            return encodedAddress;
+        }
+        String id = idByAddress.getIfPresent(encodedAddress);
+        if (id != null || unresolved.getIfPresent(encodedAddress) != null) {
+            return id;
+        }
+        id = networkService.lookupId(encodedAddress, finalizedTipSet().key);
+        if (id == null) {
+            unresolved.put(encodedAddress, Boolean.TRUE);
+            return null;
+        }
+        idByAddress.put(encodedAddress, id);
+        return id;
+    }
+
+    /**
+     * Method to get the key address of the account actor behind an ID address
+     *
+     * @param encodedAddress
+     * @return String, null when the id has no account actor at the finalized tipset
+     * @throws FilecoinRpcException
+     */
+    @SneakyThrows
+    public String lookupKeyAddress(String encodedAddress) {
+        FilecoinProtocol filecoinProtocol = addressService.decode(encodedAddress).getFilecoinProtocol();
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1 || filecoinProtocol == FilecoinProtocol.BLS) {
+            return encodedAddress;
+        }
+        String keyAddress = keyAddressById.getIfPresent(encodedAddress);
+        if (keyAddress != null || unresolved.getIfPresent(encodedAddress) != null) {
+            return keyAddress;
+        }
+        FinalizedTipSet tipSet = finalizedTipSet();
+        // miners, multisigs and other actors have no key, lotus fails on them instead of returning none
+        keyAddress = isAccountActor(encodedAddress, tipSet)
+                ? networkService.getAccountKey(encodedAddress, tipSet.key)
+                : null;
+        if (keyAddress == null) {
+            unresolved.put(encodedAddress, Boolean.TRUE);
+            return null;
+        }
+        keyAddressById.put(encodedAddress, keyAddress);
+        idByAddress.put(keyAddress, encodedAddress);
+        return keyAddress;
+    }
+
+    /**
+     * Method to check whether the actor behind an address is an account actor at a tipset
+     *
+     * @param encodedAddress
+     * @param tipSet
+     * @return boolean, false when there is no actor behind the address
+     * @throws FilecoinRpcException
+     */
+    @SneakyThrows
+    private boolean isAccountActor(String encodedAddress, FinalizedTipSet tipSet) {
+        JsonNode actor;
+        try {
+            actor = networkService.getActorAsync(encodedAddress, tipSet.key).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+        if (actor == null) {
+            return false;
+        }
+        // the network version is asked for once per finalized tipset, it stays the same for all of its lookups
+        Integer networkVersion = tipSet.networkVersion;
+        if (networkVersion == null) {
+            networkVersion = networkService.getNetworkVersion(tipSet.key);
+            tipSet.networkVersion = networkVersion;
+        }
+        String accountCode = accountCodes.computeIfAbsent(networkVersion,
+                version -> networkService.getActorCodes(version).get("account").get("/").asText());
+        return accountCode.equals(actor.get("Code").get("/").asText());
+    }
+
+    /**
+     * Method to replace an address in a message by its ID address, which encodes in a few bytes instead of 21
+     * or 49. The address is kept as it is while compacting is disabled, while it has no actor at the finalized
+     * tipset or when the lookup fails, so a message is never sent to an id that could still change
+     *
+     * @param address
+     * @return Address, frozen
+     */
+    public Address compact(Address address) {
+        if (!compactToId || address.getFilecoinProtocol() == FilecoinProtocol.ID) {
+            return address;
+        }
+        try {
+            String id = lookupId(addressService.encode(address));
+            return id == null ? address : addressService.decode(id);
+        } catch (Exception e) {
+            log.warn("Could not resolve the ID address, sending to the address as is: {}", e.getMessage());
+            return address;
+        }
+    }
+
+    /**
+     * Method to get the finalized tipset, refreshed at most once per epoch
+     *
+     * @return FinalizedTipSet
+     */
+    private FinalizedTipSet finalizedTipSet() {
+        FinalizedTipSet tipSet = finalizedTipSet;
+        if (tipSet == null || System.currentTimeMillis() - tipSet.fetchedMillis > EPOCH_MILLIS) {
+            synchronized (this) {
+                tipSet = finalizedTipSet;
+                if (tipSet == null || System.currentTimeMillis() - tipSet.fetchedMillis > EPOCH_MILLIS) {
+                    JsonNode head = networkService.getChainHeadTipSet();
+                    long height = Math.max(head.get("Height").asLong() - FINALITY_EPOCHS, 0);
+                    JsonNode tipSetKey = networkService.getTipSetByHeight(height, head.get("Cids")).get("Cids");
+                    tipSet = new FinalizedTipSet(tipSetKey, System.currentTimeMillis());
+                    this.finalizedTipSet = tipSet;
+                }
+            }
+        }
+        return tipSet;
+    }
+
+    /**
+     * Key of the finalized tipset with the network version at it, read the first time it is needed
+     */
+    private static final class FinalizedTipSet {
+
+        private final JsonNode key;
+        private final long fetchedMillis;
+        private volatile Integer networkVersion;
+
+        FinalizedTipSet(JsonNode key, long fetchedMillis) {
+            this.key = key;
+            this.fetchedMillis = fetchedMillis;
+        }
+    }
+
+}
@@ -1,24 +1,47 @@
 package com.poc.filecoin.service;
 
 import com.poc.filecoin.dto.AddressDTO;
+import com.poc.filecoin.dto.AddressValidationDTO;
+import com.poc.filecoin.enums.AddressValidationResult;
 import com.poc.filecoin.enums.FilecoinNetwork;
 import com.poc.filecoin.enums.FilecoinProtocol;
 import com.poc.filecoin.exceptions.InvalidFilecoinAddressException;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
 import com.poc.filecoin.exceptions.InvalidFilecoinNetworkException;
 import com.poc.filecoin.exceptions.InvalidFilecoinProtocolException;
+import com.poc.filecoin.model.ActorAddress;
 import com.poc.filecoin.model.Address;
 import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.IDAddress;
 import com.poc.filecoin.model.SECP256K1Address;
-import com.google.common.io.BaseEncoding;
+import com.poc.filecoin.util.Blake2bHasher;
+import com.poc.filecoin.util.FilecoinAddressCodec;
+import com.poc.filecoin.util.UtilityService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Hex;
-import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Service class for address
@@ -31,10 +54,54 @@ public class AddressService {
 
     private static int PAYLOAD_HASH_LENGTH = 20;
     private static int BLS_PUBLIC_KEY_BYTES = 48;
+    private static final int VALIDATION_CHUNK_SIZE = 8192;
+    private static final ThreadLocal<SecureRandom> SECURE_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    @Value("${filecoin.address.batch.max-count}")
+    private int maxBatchCount;
+
+    @Value("${filecoin.address.cache.max-size}")
+    private long decodedAddressCacheMaxSize = 100_000;
+
+    @Value("${filecoin.address.cache.invalid.max-size}")
+    private long invalidAddressCacheMaxSize = 10_000;
+
+    @Value("${filecoin.address.cache.invalid.expire-ms}")
+    private long invalidAddressExpireMillis = 60_000;
+
+    private Cache<String, Address> decodedAddressCache;
+    private Cache<String, DecodeFailure> invalidAddressCache;
 
     @Autowired
     NetworkService networkService;
 
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    /**
+     * Method to build the caches of decoded and invalid addresses, caching is disabled when the maximum size is 0
+     */
+    @PostConstruct
+    public void initAddressCache() {
+        if (decodedAddressCacheMaxSize <= 0) {
+            log.info("Decoded address cache is disabled");
+            return;
+        }
+        this.decodedAddressCache = CacheBuilder.newBuilder()
+                .maximumSize(decodedAddressCacheMaxSize)
+                .recordStats()
+                .build();
+        this.invalidAddressCache = CacheBuilder.newBuilder()
+                .maximumSize(invalidAddressCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(invalidAddressExpireMillis))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            GuavaCacheMetrics.monitor(meterRegistry, decodedAddressCache, "filecoin.address.decoded");
+            GuavaCacheMetrics.monitor(meterRegistry, invalidAddressCache, "filecoin.address.invalid");
+        }
+    }
+
     /**
      * Method to create an address
      *
@@ -46,17 +113,66 @@ public class AddressService {
     public AddressDTO create(FilecoinProtocol filecoinProtocol) {
         // get filecoin network from network service
         FilecoinNetwork filecoinNetwork = networkService.getFilecoinNetwork();
-        // define address object
-        Address address;
+        // create the address based on network protocol and post map it with DTO
+        return toAddressDTO(createAddress(filecoinProtocol, filecoinNetwork));
+    }
+
+    /**
+     * Method to create addresses in bulk. Network is resolved once for the whole batch and the keys are
+     * generated in parallel on the common fork-join pool, so the returned stream is lazy and parallel:
+     * every address is handed to the terminal operation as soon as it is ready, in no particular order
+     *
+     * @param filecoinProtocol
+     * @param count
+     * @return Stream of AddressDTO
+     * @throws InvalidFilecoinProtocolException
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public Stream<AddressDTO> create(FilecoinProtocol filecoinProtocol, int count) {
+        // validating the request before any key is generated
+        if (filecoinProtocol != FilecoinProtocol.SECP256K1 && filecoinProtocol != FilecoinProtocol.BLS) {
+            throw new InvalidFilecoinProtocolException("Invalid filecoin protocol");
+        }
+        if (count < 1 || count > maxBatchCount) {
+            throw new InvalidFilecoinException("Address count should be between 1 and " + maxBatchCount);
+        }
+        // get filecoin network from network service, once for all the addresses
+        FilecoinNetwork filecoinNetwork = networkService.getFilecoinNetwork();
+        // generating the addresses across all the cores
+        return IntStream.range(0, count)
+                .parallel()
+                .mapToObj(i -> toAddressDTO(createAddress(filecoinProtocol, filecoinNetwork)));
+    }
+
+    /**
+     * Method to create a new address with a random key
+     *
+     * @param filecoinProtocol
+     * @param filecoinNetwork
+     * @return Address
+     * @throws InvalidFilecoinProtocolException
+     */
+    @SneakyThrows
+    private Address createAddress(FilecoinProtocol filecoinProtocol, FilecoinNetwork filecoinNetwork) {
         // based on network protocol create the required address
         if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
-            address = new SECP256K1Address(filecoinNetwork);
+            return new SECP256K1Address(filecoinNetwork);
         } else if (filecoinProtocol == FilecoinProtocol.BLS) {
-            address = new BLSAddress(filecoinNetwork);
+            // seeding from a per thread secure random instead of a new one for each key
+            return new BLSAddress(filecoinNetwork, SECURE_RANDOM.get());
         } else {
             throw new InvalidFilecoinProtocolException("Invalid filecoin protocol");
         }
-        // post mapping the address with DTO, return the dto
+    }
+
+    /**
+     * Method to post map an address with DTO
+     *
+     * @param address
+     * @return AddressDTO
+     */
+    private AddressDTO toAddressDTO(Address address) {
         return new AddressDTO(Hex.encodeHexString(address.getPrivateKey())
                 , Hex.encodeHexString(address.getPublicKey())
                 , address.getFilecoinProtocol().toString()
@@ -82,69 +198,185 @@ public class AddressService {
                     " either MAIN_NET or DEV_NET");
         }
 
-        // appending values of filecoin network and protocol, so that filecoin address appear in the required format
-        StringBuilder encodedAddress = new StringBuilder()
-                .append(address.getFilecoinNetwork().getValue())
-                .append(address.getFilecoinProtocol().getValue());
-
-        // switch case for encoding filecoin address based on the protocol
         switch (address.getFilecoinProtocol()) {
+            case ID:
+                // decimal id without a checksum
+                byte[] payload = address.getPayload();
+                return FilecoinAddressCodec.encodeId(address.getFilecoinNetwork(),
+                        FilecoinAddressCodec.readUvarint(payload, 0, payload.length));
             case SECP256K1:
+            case ACTOR:
             case BLS:
-                var checksum = checksum(address.getPayload(), address.getFilecoinProtocol());
-                byte[] valueWithChecksum = new byte[address.getPayload().length + checksum.length];
-                System.arraycopy(address.getPayload(), 0, valueWithChecksum, 0, address.getPayload().length);
-                System.arraycopy(checksum, 0, valueWithChecksum, address.getPayload().length, checksum.length);
-                encodedAddress.append(BaseEncoding.base32().omitPadding().lowerCase().encode(valueWithChecksum));
-                break;
+                return FilecoinAddressCodec.encode(address.getFilecoinNetwork(), address.getFilecoinProtocol(),
+                        address.getPayload());
             default:
                 throw new InvalidFilecoinProtocolException("Invalid filecoin address protocol: "
                         + address.getFilecoinProtocol().getValue());
         }
-
-        // returning encoded address
-        return encodedAddress.toString();
     }
 
     /**
-     * Method to decode an address from the given string
+     * Method to decode an address from the given string. Decoded addresses are cached and shared, so the
+     * returned address is frozen, invalid addresses are remembered for a short time and fail straight away
      *
      * @param encodedAddress
-     * @return
+     * @return Address
      * @throws InvalidFilecoinAddressException
-     * @throws NoSuchAlgorithmException
+     * @throws InvalidFilecoinProtocolException
      */
     @SneakyThrows
     public Address decode(String encodedAddress) {
+        if (decodedAddressCache == null) {
+            return decodeAddress(encodedAddress);
+        }
+        Address address = decodedAddressCache.getIfPresent(encodedAddress);
+        if (address != null) {
+            return address;
+        }
+        DecodeFailure decodeFailure = invalidAddressCache.getIfPresent(encodedAddress);
+        if (decodeFailure != null) {
+            // every caller gets an exception of its own, a shared instance would carry the first caller's trace
+            throw decodeFailure.toException();
+        }
+        try {
+            address = decodeAddress(encodedAddress).freeze();
+        } catch (Exception e) {
+            // only invalid input is cached, any other failure is tried again by the next caller
+            if (e instanceof InvalidFilecoinAddressException || e instanceof InvalidFilecoinNetworkException
+                    || e instanceof InvalidFilecoinProtocolException || e instanceof InvalidFilecoinException) {
+                invalidAddressCache.put(encodedAddress, new DecodeFailure(e.getClass(), e.getMessage()));
+            }
+            throw e;
+        }
+        decodedAddressCache.put(encodedAddress, address);
+        return address;
+    }
 
-        // Declaring an instance of address that will have the decoded address
-        Address address;
+    /**
+     * Method to validate an encoded address without decoding it or throwing, invalid input is only reported
+     * through the result code
+     *
+     * @param encodedAddress
+     * @return AddressValidationResult
+     */
+    public AddressValidationResult validate(String encodedAddress) {
+        return FilecoinAddressCodec.validate(encodedAddress);
+    }
 
-        // validating the length of the encoded address
-        if (encodedAddress.length() < 3 || encodedAddress.length() > 86) {
-            throw new InvalidFilecoinAddressException("Invalid address length for filecoin address");
-        }
+    /**
+     * Method to validate a batch of encoded addresses in parallel
+     *
+     * @param encodedAddresses
+     * @return List of AddressValidationResult in the order of the addresses
+     */
+    public List<AddressValidationResult> validate(List<String> encodedAddresses) {
+        return encodedAddresses.parallelStream()
+                .map(FilecoinAddressCodec::validate)
+                .collect(Collectors.toList());
+    }
 
-        // validating the network present in encoded address
-        if (encodedAddress.charAt(0) != FilecoinNetwork.DEV_NET.getValue().charAt(0)
-                && encodedAddress.charAt(0) != FilecoinNetwork.MAIN_NET.getValue().charAt(0)) {
+    /**
+     * Method to validate addresses read one per line, plain or as JSON strings. Chunks of lines are validated in
+     * parallel and the results handed to the consumer in the order of the lines, so any number of addresses is
+     * validated in constant memory
+     *
+     * @param reader
+     * @param consumer
+     * @throws IOException
+     */
+    public void validate(BufferedReader reader, Consumer<AddressValidationDTO> consumer) throws IOException {
+        List<String> chunk = new ArrayList<>(VALIDATION_CHUNK_SIZE);
+        long index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            chunk.add(line);
+            if (chunk.size() == VALIDATION_CHUNK_SIZE) {
+                index = validateChunk(chunk, index, consumer);
+                chunk.clear();
+            }
+        }
+        validateChunk(chunk, index, consumer);
+    }
 
-            throw new InvalidFilecoinAddressException("Filecoin address should either start with t or f");
+    private long validateChunk(List<String> chunk, long index, Consumer<AddressValidationDTO> consumer) {
+        AddressValidationResult[] results = chunk.parallelStream()
+                .map(line -> FilecoinAddressCodec.validate(unquote(line)))
+                .toArray(AddressValidationResult[]::new);
+        for (AddressValidationResult result : results) {
+            consumer.accept(new AddressValidationDTO(index++, result.getValue(), result.toString()));
+        }
+        return index;
+    }
 
+    private String unquote(String line) {
+        String address = line.trim();
+        if (address.length() >= 2 && address.charAt(0) == '"' && address.charAt(address.length() - 1) == '"') {
+            return address.substring(1, address.length() - 1);
         }
+        return address;
+    }
+
+    /**
+     * Method to get the hit and miss counters of the decoded address cache
+     *
+     * @return CacheStats, empty when caching is disabled
+     */
+    public CacheStats getDecodedAddressCacheStats() {
+        return decodedAddressCache != null ? decodedAddressCache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Method to get the hit and miss counters of the invalid address cache
+     *
+     * @return CacheStats, empty when caching is disabled
+     */
+    public CacheStats getInvalidAddressCacheStats() {
+        return invalidAddressCache != null ? invalidAddressCache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Method to get the number of addresses held in the decoded address cache
+     *
+     * @return long
+     */
+    public long getDecodedAddressCacheSize() {
+        return decodedAddressCache != null ? decodedAddressCache.size() : 0;
+    }
 
-        // fetching values of filecoin network and protocol from the encoded address
-        FilecoinNetwork filecoinNetwork = FilecoinNetwork.getEnum(Character.toString(encodedAddress.charAt(0)));
-        FilecoinProtocol filecoinProtocol = FilecoinProtocol.getEnum(Integer.parseInt(String.valueOf(encodedAddress.charAt(1))));
+    /**
+     * Method to decode an address from the given string without going through the cache
+     *
+     * @param encodedAddress
+     * @return Address
+     * @throws InvalidFilecoinAddressException
+     * @throws NoSuchAlgorithmException
+     */
+    @SneakyThrows
+    private Address decodeAddress(String encodedAddress) {
+
+        // Declaring an instance of address that will have the decoded address
+        Address address;
 
-        log.info("Filecoin network of address is: {}", filecoinNetwork.toString());
-        log.info("Filecoin protocol of address is: {}", filecoinProtocol.toString());
+        // fetching values of filecoin network and protocol from the encoded address, the codec validates both
+        FilecoinNetwork filecoinNetwork = FilecoinAddressCodec.network(encodedAddress);
+        FilecoinProtocol filecoinProtocol = FilecoinAddressCodec.protocol(encodedAddress);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Filecoin network of address is: {}", filecoinNetwork.toString());
+            log.debug("Filecoin protocol of address is: {}", filecoinProtocol.toString());
+        }
 
         // Based on protocol initializing Address instance
         switch (filecoinProtocol) {
+            case ID:
+                // id addresses hold the decimal id instead of a base32 payload
+                return new IDAddress(FilecoinAddressCodec.decodeId(encodedAddress), filecoinNetwork);
             case SECP256K1:
                 address = new SECP256K1Address();
                 break;
+            case ACTOR:
+                address = new ActorAddress();
+                break;
             case BLS:
                 address = new BLSAddress();
                 break;
@@ -156,45 +388,29 @@ public class AddressService {
         address.setFilecoinNetwork(filecoinNetwork);
         address.setFilecoinProtocol(filecoinProtocol);
 
-        // decoding raw payload which is base32 encoded
-        var raw = BaseEncoding.base32().lowerCase().decode(encodedAddress.substring(2));
+        // decoding the base32 payload right after the protocol byte, checksum is verified while decoding
+        byte[] payloadWithProtocol = new byte[FilecoinAddressCodec.payloadLength(encodedAddress) + 1];
+        payloadWithProtocol[0] = (byte) filecoinProtocol.getValue();
+        FilecoinAddressCodec.decode(encodedAddress, payloadWithProtocol, 1);
 
-        // creating a new byte array to hold payload value from the raw payload
-        byte[] payload = new byte[raw.length - 4];
-        System.arraycopy(raw, 0, payload, 0, raw.length - 4);
         // setting the address value with the payload
+        byte[] payload = Arrays.copyOfRange(payloadWithProtocol, 1, payloadWithProtocol.length);
         address.setPayload(payload);
 
-        // creating a new byte array to hold payload value with protocol from rawWithProtocol
-        byte[] payloadWithProtocol = new byte[raw.length - 3];
-        payloadWithProtocol[0] = (byte)filecoinProtocol.getValue();
-        System.arraycopy(raw, 0, payloadWithProtocol, 1, raw.length - 4);
         // setting the address value with the payload
-        log.info("Bytes with protocol: {}", payloadWithProtocol);
-        System.out.println();
-        System.out.print("[");
-        for(int i=0; i < payloadWithProtocol.length; i++) {
-            System.out.print(Byte.toUnsignedInt(payloadWithProtocol[i]) + " ");
+        if (log.isDebugEnabled()) {
+            log.debug("Bytes with protocol: {}", UtilityService.toUnsignedString(payloadWithProtocol));
         }
-        System.out.println("] ");
         address.setAddress(payloadWithProtocol);
 
         // validating payload length
-        if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1 || filecoinProtocol == FilecoinProtocol.ACTOR) {
             if (payload.length != 20) {
                 throw new InvalidFilecoinAddressException("Invalid bytes");
             }
         }
-
-        // getting last 4 bytes to validate the checksum
-        var encodedAddressChecksumBytes = new byte[4];
-        System.arraycopy(raw, raw.length - 4, encodedAddressChecksumBytes, 0, 4);
-        log.info(Hex.encodeHexString(payload));
-
-        // validating the checksum
-        if (!validateChecksum(payload, filecoinProtocol,
-                encodedAddressChecksumBytes)) {
-            throw new InvalidFilecoinAddressException("Invalid Checksum");
+        if (log.isDebugEnabled()) {
+            log.debug(Hex.encodeHexString(payload));
         }
 
         // returning the address instance
@@ -244,22 +460,14 @@ public class AddressService {
      */
     public byte[] checksum(byte[] addressValue, FilecoinProtocol filecoinProtocol) {
 
-        // merging protocol bytes with address value bytes
-        byte[] bytesToDigest = new byte[addressValue.length + 1];
-        bytesToDigest[0] = (byte) filecoinProtocol.getValue();
-        System.arraycopy(addressValue, 0, bytesToDigest, 1, addressValue.length);
-
-        // generating the digest of bytes of length 4
-        byte[] digestedBytes = new byte[4];
-        // initializing blake2bDigest object with length of 4 so that it generates only 4 bytes
-        var blake2bDigest = new Blake2bDigest(null, 4, null, null);
-        // updating the digest object with bytes to digest
-        blake2bDigest.update(bytesToDigest, 0, bytesToDigest.length);
-        // asking digest object to perform digestion and providing the digestedByte array
-        // in which the digested byte array can be copied
-        blake2bDigest.doFinal(digestedBytes, 0);
-
-        log.info("Black2b 160 digest byte size is {} and byte value is {}", digestedBytes.length, digestedBytes);
+        // generating the digest of bytes of length 4 over the protocol byte and the address value
+        byte[] digestedBytes = new byte[Blake2bHasher.CHECKSUM_LENGTH];
+        Blake2bHasher.checksum((byte) filecoinProtocol.getValue(), addressValue, 0, addressValue.length,
+                digestedBytes, 0);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Black2b 160 digest byte size is {} and byte value is {}", digestedBytes.length, digestedBytes);
+        }
         // returning the digested bytes
         return digestedBytes;
     }
@@ -284,4 +492,29 @@ public class AddressService {
         return false;
     }
 
+    /**
+     * Type and message of the exception an invalid address failed to decode with
+     */
+    private static final class DecodeFailure {
+
+        private final Class<? extends Exception> type;
+        private final String message;
+
+        private DecodeFailure(Class<? extends Exception> type, String message) {
+            this.type = type;
+            this.message = message;
+        }
+
+        private Exception toException() {
+            if (type == InvalidFilecoinNetworkException.class) {
+                return new InvalidFilecoinNetworkException(message);
+            } else if (type == InvalidFilecoinProtocolException.class) {
+                return new InvalidFilecoinProtocolException(message);
+            } else if (type == InvalidFilecoinException.class) {
+                return new InvalidFilecoinException(message);
+            }
+            return new InvalidFilecoinAddressException(message);
+        }
+    }
+
 }
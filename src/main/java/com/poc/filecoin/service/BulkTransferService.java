@@ -0,0 +1,685 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.filecoin.dto.BulkJobDTO;
+import com.poc.filecoin.dto.BulkTransferIntentDTO;
+import com.poc.filecoin.dto.BulkTransferRequestDTO;
+import com.poc.filecoin.dto.BulkTransferResultDTO;
+import com.poc.filecoin.dto.TransactionRequestDTO;
+import com.poc.filecoin.dto.TransactionSendResponseDTO;
+import com.poc.filecoin.enums.BulkJobStatus;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.model.BulkJob;
+import com.poc.filecoin.model.SignedMessage;
+import com.poc.filecoin.util.UtilityService;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for bulk transfers read from NDJSON or CSV files. Every line is one transfer with the fields of
+ * a send request, a CSV file names them in its header line. The file is streamed line by line into the async
+ * send pipeline, at most max in flight transfers are decoded, signed and pushed at a time and the reader waits
+ * for a permit before it reads on, so memory stays flat whatever the size of the file.
+ * <p>
+ * The result of every line is appended to an NDJSON output file and a checkpoint next to it records the last
+ * line up to which all results are written. Starting a job again on the same files resumes after the
+ * checkpoint and skips the lines past it that already have a result, failed lines are only sent again when
+ * asked to.
+ * <p>
+ * Right before a transfer is pushed its line, nonce and CID are forced to an intent file next to the output. A
+ * transfer pushed right before a crash whose result was not written yet is looked up by that CID in the message
+ * pool and on chain when the job resumes, and only sent again when the node knows neither
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class BulkTransferService {
+
+    private static final String RESULT_SUFFIX = ".results.ndjson";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String INTENT_SUFFIX = ".intents.ndjson";
+
+    @Value("${filecoin.bulk.directory}")
+    private String directory = "bulk";
+
+    @Value("${filecoin.bulk.max-in-flight}")
+    private int maxInFlight = 256;
+
+    @Value("${filecoin.bulk.checkpoint-interval-ms}")
+    private long checkpointIntervalMillis = 1_000;
+
+    @Autowired
+    TransactionService transactionService;
+
+    @Autowired
+    NetworkService networkService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    // jobs only read the file and wait for permits, the work itself runs on the pipeline executors
+    private final ExecutorService jobExecutor = Executors.newCachedThreadPool(
+            new CustomizableThreadFactory("filecoin-bulk-"));
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(BulkJob::cancel);
+        jobExecutor.shutdown();
+    }
+
+    /**
+     * Method to start a bulk transfer job, or to resume it when the output file has a checkpoint
+     *
+     * @param bulkTransferRequest
+     * @return BulkJobDTO
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public BulkJobDTO start(BulkTransferRequestDTO bulkTransferRequest) {
+        if (bulkTransferRequest.getInputFile() == null) {
+            throw new InvalidFilecoinException("Input file is required");
+        }
+        Path inputFile = resolve(bulkTransferRequest.getInputFile());
+        if (!Files.isRegularFile(inputFile)) {
+            throw new InvalidFilecoinException("Input file " + bulkTransferRequest.getInputFile() + " does not exist");
+        }
+        Path outputFile = bulkTransferRequest.getOutputFile() == null
+                ? inputFile.resolveSibling(inputFile.getFileName() + RESULT_SUFFIX)
+                : resolve(bulkTransferRequest.getOutputFile());
+        int inFlight = bulkTransferRequest.getMaxInFlight() == null ? maxInFlight : bulkTransferRequest.getMaxInFlight();
+        if (inFlight < 1 || inFlight > maxInFlight) {
+            throw new InvalidFilecoinException("Max in flight should be between 1 and " + maxInFlight);
+        }
+
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), inputFile, outputFile);
+        // the checkpoint belongs to the output file, so only one job may write it at a time
+        synchronized (jobs) {
+            boolean outputInUse = jobs.values().stream()
+                    .anyMatch(running -> running.getStatus() == BulkJobStatus.RUNNING
+                            && running.getOutputFile().equals(outputFile));
+            if (outputInUse) {
+                throw new InvalidFilecoinException("A running job is already writing to " + outputFile.getFileName());
+            }
+            jobs.put(job.getJobId(), job);
+        }
+        boolean retryFailed = Boolean.TRUE.equals(bulkTransferRequest.getRetryFailed());
+        jobExecutor.execute(() -> run(job, inFlight, retryFailed));
+        log.info("Bulk transfer job {} started for {}", job.getJobId(), inputFile);
+        return toBulkJobDTO(job);
+    }
+
+    /**
+     * Method to get the progress of a job
+     *
+     * @param jobId
+     * @return BulkJobDTO
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public BulkJobDTO getJob(String jobId) {
+        return toBulkJobDTO(findJob(jobId));
+    }
+
+    /**
+     * Method to get the progress of every job since startup
+     *
+     * @return List of BulkJobDTO
+     */
+    public List<BulkJobDTO> getJobs() {
+        return jobs.values().stream()
+                .map(this::toBulkJobDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Method to cancel a job, transfers already in flight still complete and are checkpointed
+     *
+     * @param jobId
+     * @return BulkJobDTO
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public BulkJobDTO cancel(String jobId) {
+        BulkJob job = findJob(jobId);
+        job.cancel();
+        return toBulkJobDTO(job);
+    }
+
+    /**
+     * Method to run a job on the calling thread until the input file is read and every transfer completed
+     *
+     * @param job
+     * @param inFlight
+     * @param retryFailed
+     */
+    private void run(BulkJob job, int inFlight, boolean retryFailed) {
+        Path checkpointFile = job.getOutputFile().resolveSibling(job.getOutputFile().getFileName() + CHECKPOINT_SUFFIX);
+        Path intentFile = job.getOutputFile().resolveSibling(job.getOutputFile().getFileName() + INTENT_SUFFIX);
+        Semaphore permits = new Semaphore(inFlight);
+        FileChannel intentChannel = null;
+        Writer writer = null;
+        boolean drained = false;
+        try {
+            long checkpoint = readCheckpoint(checkpointFile);
+            ResumeState resumeState = readResumeState(job.getOutputFile(), intentFile, checkpoint, retryFailed);
+            job.resumeFrom(checkpoint);
+            if (checkpoint > 0) {
+                log.info("Bulk transfer job {} resuming after line {}", job.getJobId(), checkpoint);
+            }
+            findLandedTransfers(job, resumeState);
+
+            intentChannel = openAppend(intentFile);
+            IntentWriter intentWriter = new IntentWriter(intentChannel);
+            FileChannel outputChannel = openAppend(job.getOutputFile());
+            writer = new BufferedWriter(Channels.newWriter(outputChannel, StandardCharsets.UTF_8));
+            CheckpointWriter checkpointWriter = new CheckpointWriter(writer, outputChannel, checkpointFile);
+
+            try (BufferedReader reader = Files.newBufferedReader(job.getInputFile(), StandardCharsets.UTF_8)) {
+                boolean csv = job.getInputFile().getFileName().toString().toLowerCase().endsWith(".csv");
+                String[] header = null;
+                String text;
+                long line = 0;
+                while (!job.isCancelled() && (text = reader.readLine()) != null) {
+                    line++;
+                    if (csv && header == null) {
+                        header = splitCsv(text).toArray(new String[0]);
+                        job.complete(line);
+                        continue;
+                    }
+                    if (text.isBlank()) {
+                        job.complete(line);
+                        continue;
+                    }
+                    job.getRead().incrementAndGet();
+                    BulkTransferIntentDTO landed = resumeState.takeLanded(line);
+                    if (landed != null) {
+                        // pushed before the previous run stopped, only its result is missing
+                        checkpointWriter.write(job, line,
+                                new TransactionSendResponseDTO(null, landed.getCid(), landed.getMessageCid()), null);
+                        continue;
+                    }
+                    if (resumeState.skip(line)) {
+                        job.getSkipped().incrementAndGet();
+                        job.complete(line);
+                        continue;
+                    }
+
+                    // waiting for a transfer to complete once max in flight are running
+                    permits.acquire();
+                    long current = line;
+                    send(text, header, signedMessage -> intentWriter.write(job, current, signedMessage))
+                            .whenComplete((response, throwable) -> {
+                                try {
+                                    checkpointWriter.write(job, current, response, throwable);
+                                } finally {
+                                    permits.release();
+                                }
+                            });
+                }
+            }
+
+            // waiting for the last transfers before the final checkpoint
+            permits.acquire(inFlight);
+            drained = true;
+            checkpointWriter.checkpoint(job);
+            if (job.getError() != null) {
+                job.setStatus(BulkJobStatus.FAILED);
+            } else {
+                job.setStatus(job.isCancelled() ? BulkJobStatus.CANCELLED : BulkJobStatus.COMPLETED);
+            }
+            log.info("Bulk transfer job {} {} at line {}", job.getJobId(), job.getStatus(), job.getCheckpoint());
+        } catch (Exception e) {
+            log.error("Error while running bulk transfer job {}", job.getJobId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(BulkJobStatus.FAILED);
+        } finally {
+            if (writer != null) {
+                // transfers still in flight after a failure write their results before the output is closed
+                if (!drained) {
+                    permits.acquireUninterruptibly(inFlight);
+                }
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    log.error("Error while closing output of bulk transfer job {}", job.getJobId(), e);
+                }
+            }
+            if (intentChannel != null) {
+                try {
+                    intentChannel.close();
+                } catch (IOException e) {
+                    log.error("Error while closing intents of bulk transfer job {}", job.getJobId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to look up the transfers that have an intent but no result kept, in the message pool first and on
+     * chain after that. A failing lookup fails the job, sending the transfers again could pay them twice
+     *
+     * @param job
+     * @param resumeState
+     */
+    private void findLandedTransfers(BulkJob job, ResumeState resumeState) {
+        Map<Long, List<BulkTransferIntentDTO>> intents = resumeState.getIntents();
+        if (intents.isEmpty()) {
+            return;
+        }
+        Set<String> pending = networkService.getPendingMessageCids();
+        intents.values().forEach(lineIntents -> lineIntents.stream()
+                .filter(intent -> pending.contains(intent.getCid())
+                        || networkService.searchMessage(intent.getCid()) != null)
+                .findFirst()
+                .ifPresent(resumeState::landed));
+        log.info("Bulk transfer job {} found {} of {} transfers pushed without a result", job.getJobId(),
+                resumeState.getLandedCount(), intents.size());
+        intents.clear();
+    }
+
+    /**
+     * Method to parse a line and hand it to the async send pipeline
+     *
+     * @param text
+     * @param header CSV header, null for NDJSON
+     * @param beforePush
+     * @return CompletableFuture of TransactionSendResponseDTO
+     */
+    private CompletableFuture<TransactionSendResponseDTO> send(String text, String[] header,
+                                                               Consumer<SignedMessage> beforePush) {
+        try {
+            TransactionRequestDTO request = header == null
+                    ? objectMapper.readValue(text, TransactionRequestDTO.class)
+                    : toTransactionRequest(header, splitCsv(text));
+            return transactionService.signAndSendTransactionAsync(request.getPrivateKey(),
+                    request.getKeyId(),
+                    request.getFromAddress(),
+                    request.getToAddress(),
+                    request.getMessage(),
+                    request.getValue(),
+                    beforePush);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private TransactionRequestDTO toTransactionRequest(String[] header, List<String> values)
+            throws InvalidFilecoinException {
+        if (values.size() > header.length) {
+            throw new InvalidFilecoinException("Line has more columns than the header");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header[i].trim(), values.get(i));
+            }
+        }
+        return objectMapper.convertValue(fields, TransactionRequestDTO.class);
+    }
+
+    /**
+     * Method to split a CSV line, fields may be quoted and quotes inside them doubled
+     *
+     * @param line
+     * @return List of String
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private long readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Method to read what the earlier runs of a job left past its checkpoint, the results already written and
+     * the intents of the lines that would be sent again
+     *
+     * @param outputFile
+     * @param intentFile
+     * @param checkpoint
+     * @param retryFailed
+     * @return ResumeState
+     */
+    ResumeState readResumeState(Path outputFile, Path intentFile, long checkpoint, boolean retryFailed)
+            throws IOException {
+        ResumeState resumeState = new ResumeState(checkpoint, retryFailed);
+        readRecords(outputFile, BulkTransferResultDTO.class,
+                result -> resumeState.addResult(result.getLine(), result.isSuccess()));
+        // intents are only read once every result is known, so the ones of finished lines are dropped
+        readRecords(intentFile, BulkTransferIntentDTO.class, resumeState::addIntent);
+        return resumeState;
+    }
+
+    private <T> void readRecords(Path file, Class<T> type, Consumer<T> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        // a reader replaces the bytes of a character cut short by a crash instead of failing on them
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (text.isBlank()) {
+                    continue;
+                }
+                try {
+                    consumer.accept(objectMapper.readValue(text, type));
+                } catch (IOException e) {
+                    // a record cut short by a crash, its line is handled as if it had none
+                    log.warn("Skipping unreadable line in {}", file.getFileName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to open a file for appending, a record cut short by a crash is ended first so the next record
+     * starts on its own line
+     *
+     * @param file
+     * @return FileChannel
+     */
+    private FileChannel openAppend(Path file) throws IOException {
+        boolean endsWithNewLine = true;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "r")) {
+                randomAccessFile.seek(randomAccessFile.length() - 1);
+                endsWithNewLine = randomAccessFile.read() == '\n';
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (!endsWithNewLine) {
+            writeFully(channel, new byte[]{'\n'});
+        }
+        return channel;
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Method to resolve a file inside the bulk directory
+     *
+     * @param file
+     * @return Path
+     * @throws InvalidFilecoinException
+     */
+    private Path resolve(String file) throws InvalidFilecoinException {
+        Path base = Paths.get(directory).toAbsolutePath().normalize();
+        Path path = base.resolve(file).normalize();
+        if (!path.startsWith(base) || path.equals(base)) {
+            throw new InvalidFilecoinException("File " + file + " is outside of the bulk directory");
+        }
+        return path;
+    }
+
+    private BulkJob findJob(String jobId) throws InvalidFilecoinException {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new InvalidFilecoinException("No bulk transfer job with id " + jobId);
+        }
+        return job;
+    }
+
+    private BulkJobDTO toBulkJobDTO(BulkJob job) {
+        return new BulkJobDTO(job.getJobId()
+                , job.getInputFile().getFileName().toString()
+                , job.getOutputFile().getFileName().toString()
+                , job.getStatus().toString()
+                , job.getRead().get()
+                , job.getSucceeded().get()
+                , job.getFailed().get()
+                , job.getSkipped().get()
+                , job.getCheckpoint()
+                , job.getError());
+    }
+
+    /**
+     * Writer of the results of a job. Results are appended as they complete, the output is flushed and forced to
+     * disk before the checkpoint is replaced so the checkpoint never runs ahead of the written results
+     */
+    private class CheckpointWriter {
+
+        private final Writer writer;
+        private final FileChannel channel;
+        private final Path checkpointFile;
+        private final Path checkpointTempFile;
+        private long lastCheckpointMillis = System.currentTimeMillis();
+        private long lastCheckpoint = -1;
+
+        private CheckpointWriter(Writer writer, FileChannel channel, Path checkpointFile) {
+            this.writer = writer;
+            this.channel = channel;
+            this.checkpointFile = checkpointFile;
+            this.checkpointTempFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        }
+
+        private synchronized void write(BulkJob job, long line, TransactionSendResponseDTO response,
+                                        Throwable throwable) {
+            BulkTransferResultDTO result;
+            if (throwable == null) {
+                job.getSucceeded().incrementAndGet();
+                result = new BulkTransferResultDTO(line, true, response.getCid(), response.getMessageCid(), null);
+            } else {
+                job.getFailed().incrementAndGet();
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                result = new BulkTransferResultDTO(line, false, null, null, String.valueOf(cause.getMessage()));
+            }
+            try {
+                writer.write(objectMapper.writeValueAsString(result));
+                writer.write('\n');
+                job.complete(line);
+                if (System.currentTimeMillis() - lastCheckpointMillis >= checkpointIntervalMillis) {
+                    checkpoint(job);
+                }
+            } catch (IOException e) {
+                // without its output the job can not record progress, reading stops and the run fails
+                log.error("Error while writing result of line {} of bulk transfer job {}", line, job.getJobId(), e);
+                job.setError(e.getMessage());
+                job.cancel();
+            }
+        }
+
+        private synchronized void checkpoint(BulkJob job) throws IOException {
+            long checkpoint = job.getCheckpoint();
+            lastCheckpointMillis = System.currentTimeMillis();
+            if (checkpoint == lastCheckpoint) {
+                return;
+            }
+            writer.flush();
+            channel.force(false);
+            try (FileChannel checkpointChannel = FileChannel.open(checkpointTempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(checkpointChannel, Long.toString(checkpoint).getBytes(StandardCharsets.UTF_8));
+                checkpointChannel.force(false);
+            }
+            Files.move(checkpointTempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            lastCheckpoint = checkpoint;
+        }
+    }
+
+    /**
+     * Writer of the intents of a job. Every intent is forced to disk before its message is pushed, a failed write
+     * fails the transfer without pushing it and stops the job
+     */
+    private class IntentWriter {
+
+        private final FileChannel channel;
+
+        private IntentWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private synchronized void write(BulkJob job, long line, SignedMessage signedMessage) {
+            BulkTransferIntentDTO intent = new BulkTransferIntentDTO(line,
+                    signedMessage.getTransaction().getNonce(),
+                    UtilityService.toCidString(signedMessage.getCid()),
+                    UtilityService.toCidString(signedMessage.getMessageCid()));
+            try {
+                writeFully(channel, (objectMapper.writeValueAsString(intent) + '\n')
+                        .getBytes(StandardCharsets.UTF_8));
+                channel.force(false);
+            } catch (IOException e) {
+                log.error("Error while writing intent of line {} of bulk transfer job {}", line, job.getJobId(), e);
+                job.setError(e.getMessage());
+                job.cancel();
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * What the earlier runs of a job left past its checkpoint. A line is finished once it has a result, unless
+     * failed lines are retried and its last result is a failure. Lines that are not finished keep their intents
+     * until the ones pushed already are found
+     */
+    static class ResumeState {
+
+        private final long checkpoint;
+        private final boolean retryFailed;
+        // lines past the checkpoint with a result, removed once they are skipped
+        private final Set<Long> written = new HashSet<>();
+        // lines whose last result is a failure, only kept when failed lines are retried
+        private final Set<Long> failed = new HashSet<>();
+        private final Map<Long, List<BulkTransferIntentDTO>> intents = new HashMap<>();
+        private final Map<Long, BulkTransferIntentDTO> landed = new HashMap<>();
+
+        ResumeState(long checkpoint, boolean retryFailed) {
+            this.checkpoint = checkpoint;
+            this.retryFailed = retryFailed;
+        }
+
+        void addResult(long line, boolean success) {
+            if (line > checkpoint) {
+                written.add(line);
+            }
+            if (!retryFailed) {
+                return;
+            }
+            if (success) {
+                failed.remove(line);
+            } else {
+                failed.add(line);
+            }
+        }
+
+        void addIntent(BulkTransferIntentDTO intent) {
+            if (!isFinished(intent.getLine())) {
+                intents.computeIfAbsent(intent.getLine(), line -> new ArrayList<>()).add(intent);
+            }
+        }
+
+        Map<Long, List<BulkTransferIntentDTO>> getIntents() {
+            return intents;
+        }
+
+        void landed(BulkTransferIntentDTO intent) {
+            landed.put(intent.getLine(), intent);
+        }
+
+        int getLandedCount() {
+            return landed.size();
+        }
+
+        /**
+         * Method to take the intent of a line whose message was found in the message pool or on chain
+         *
+         * @param line
+         * @return BulkTransferIntentDTO, null when the line has none
+         */
+        BulkTransferIntentDTO takeLanded(long line) {
+            return landed.remove(line);
+        }
+
+        /**
+         * Method to check whether a line is finished and skipped, the line is forgotten afterwards
+         *
+         * @param line
+         * @return boolean
+         */
+        boolean skip(long line) {
+            boolean retry = retryFailed && failed.remove(line);
+            boolean finished = line <= checkpoint || written.remove(line);
+            return finished && !retry;
+        }
+
+        private boolean isFinished(long line) {
+            return !(retryFailed && failed.contains(line)) && (line <= checkpoint || written.contains(line));
+        }
+    }
+
+}
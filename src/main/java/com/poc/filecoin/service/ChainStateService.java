@@ -0,0 +1,274 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.poc.filecoin.dto.ActorDTO;
+import com.poc.filecoin.dto.BalanceDTO;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Service class answering balance and actor queries from a cache keyed by the chain head. Every address is read
+ * with a single Filecoin.StateGetActor call per head, concurrent queries for the same address share the call in
+ * flight, and the whole cache is dropped once the head moves. Addresses on the watchlist are read again right
+ * after every head change, so their queries are always answered from the cache
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class ChainStateService {
+
+    // balance lotus reports for addresses that have no actor yet
+    private static final String ZERO_BALANCE = "0";
+
+    @Value("${filecoin.state.watchlist.max-size}")
+    private int watchlistMaxSize = 100_000;
+
+    @Autowired
+    NetworkService networkService;
+
+    @Autowired
+    AddressService addressService;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private final Set<String> watchlist = ConcurrentHashMap.newKeySet();
+    private volatile HeadState headState;
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    /**
+     * Method to register the cache counters
+     */
+    @PostConstruct
+    public void initChainStateMetrics() {
+        if (meterRegistry != null) {
+            this.cacheHits = meterRegistry.counter("filecoin.state.cache", "result", "hit");
+            this.cacheMisses = meterRegistry.counter("filecoin.state.cache", "result", "miss");
+            meterRegistry.gauge("filecoin.state.watchlist.size", watchlist, Set::size);
+        }
+    }
+
+    /**
+     * Method to follow the chain head, a new head drops the cached state and refreshes the watchlist. Nothing is
+     * polled before the first query
+     */
+    @Scheduled(initialDelayString = "${filecoin.state.head-poll-ms}",
+            fixedDelayString = "${filecoin.state.head-poll-ms}")
+    void refreshHead() {
+        if (this.headState == null) {
+            return;
+        }
+        try {
+            updateHead();
+        } catch (Exception e) {
+            log.warn("Could not refresh chain head: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Method to get the balance of an address at the current head
+     *
+     * @param address
+     * @return CompletableFuture of BalanceDTO
+     */
+    public CompletableFuture<BalanceDTO> getBalance(String address) {
+        return getBalance(currentHead(), address);
+    }
+
+    /**
+     * Method to get the balances of a batch of addresses at the same head
+     *
+     * @param addresses
+     * @return CompletableFuture of the list of BalanceDTO in the order of the addresses
+     */
+    public CompletableFuture<List<BalanceDTO>> getBalances(List<String> addresses) {
+        HeadState state = currentHead();
+        List<CompletableFuture<BalanceDTO>> balances = addresses.stream()
+                .map(address -> getBalance(state, address))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(balances.toArray(new CompletableFuture[0]))
+                .thenApply(done -> balances.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    /**
+     * Method to get the actor behind an address at the current head
+     *
+     * @param address
+     * @return CompletableFuture of ActorDTO, completed with null when there is no actor behind the address
+     */
+    public CompletableFuture<ActorDTO> getActor(String address) {
+        HeadState state = currentHead();
+        return getActor(state, address).thenApply(actor -> actor == null ? null : new ActorDTO(address,
+                actor.get("Code").get("/").asText(),
+                actor.get("Head").get("/").asText(),
+                actor.get("Nonce").asLong(),
+                actor.get("Balance").asText(),
+                state.height));
+    }
+
+    /**
+     * Method to add addresses to the watchlist, they are read once right away and again on every new head
+     *
+     * @param addresses
+     * @return int, size of the watchlist
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public int watch(Collection<String> addresses) {
+        // decoding validates the addresses before any of them is added
+        addresses.forEach(addressService::decode);
+        synchronized (watchlist) {
+            long added = addresses.stream().distinct().filter(address -> !watchlist.contains(address)).count();
+            if (watchlist.size() + added > watchlistMaxSize) {
+                throw new InvalidFilecoinException("Watchlist is limited to " + watchlistMaxSize + " addresses");
+            }
+            watchlist.addAll(addresses);
+        }
+        HeadState state = currentHead();
+        addresses.forEach(address -> getActor(state, address));
+        return watchlist.size();
+    }
+
+    /**
+     * Method to remove addresses from the watchlist
+     *
+     * @param addresses
+     * @return int, size of the watchlist
+     */
+    public int unwatch(Collection<String> addresses) {
+        watchlist.removeAll(addresses);
+        return watchlist.size();
+    }
+
+    /**
+     * Method to get the balances of every address on the watchlist, served from the cache
+     *
+     * @return CompletableFuture of the list of BalanceDTO
+     */
+    public CompletableFuture<List<BalanceDTO>> getWatchlistBalances() {
+        return getBalances(new ArrayList<>(watchlist));
+    }
+
+    /**
+     * Method to get the cached head, it is fetched on first use when the poller has not run yet
+     *
+     * @return HeadState
+     */
+    private HeadState currentHead() {
+        HeadState state = this.headState;
+        if (state == null) {
+            synchronized (this) {
+                if (this.headState == null) {
+                    updateHead();
+                }
+                state = this.headState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Method to fetch the chain head and start a new cache when it moved
+     */
+    private synchronized void updateHead() {
+        JsonNode head = networkService.getChainHeadTipSet();
+        JsonNode tipSetKey = head.get("Cids");
+        HeadState previous = this.headState;
+        if (previous != null && previous.tipSetKey.equals(tipSetKey)) {
+            return;
+        }
+        HeadState state = new HeadState(tipSetKey, head.get("Height").asLong());
+        this.headState = state;
+        if (log.isDebugEnabled()) {
+            log.debug("Chain head moved to height {}, refreshing {} watched addresses", state.height,
+                    watchlist.size());
+        }
+        // the transport batches these requests, so the watchlist costs a few round trips per epoch
+        watchlist.forEach(address -> getActor(state, address));
+    }
+
+    /**
+     * Method to get the balance of an address at a head
+     *
+     * @param state
+     * @param address
+     * @return CompletableFuture of BalanceDTO
+     */
+    private CompletableFuture<BalanceDTO> getBalance(HeadState state, String address) {
+        return getActor(state, address).thenApply(actor -> new BalanceDTO(address,
+                actor == null ? ZERO_BALANCE : actor.get("Balance").asText(), state.height));
+    }
+
+    /**
+     * Method to get the actor of an address at a head, sharing the call in flight with concurrent queries. A
+     * failed call is not cached so the next query tries again
+     *
+     * @param state
+     * @param address
+     * @return CompletableFuture of JsonNode, null when there is no actor behind the address
+     */
+    private CompletableFuture<JsonNode> getActor(HeadState state, String address) {
+        CompletableFuture<JsonNode> actor = state.actors.get(address);
+        if (actor != null) {
+            count(cacheHits);
+            return actor;
+        }
+        CompletableFuture<JsonNode> created = new CompletableFuture<>();
+        actor = state.actors.putIfAbsent(address, created);
+        if (actor != null) {
+            count(cacheHits);
+            return actor;
+        }
+        count(cacheMisses);
+        networkService.getActorAsync(address, state.tipSetKey).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                state.actors.remove(address, created);
+                created.completeExceptionally(throwable);
+            } else {
+                created.complete(result);
+            }
+        });
+        return created;
+    }
+
+    private void count(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Head of the chain with the actors read at it
+     */
+    private static final class HeadState {
+
+        private final JsonNode tipSetKey;
+        private final long height;
+        private final ConcurrentHashMap<String, CompletableFuture<JsonNode>> actors = new ConcurrentHashMap<>();
+
+        private HeadState(JsonNode tipSetKey, long height) {
+            this.tipSetKey = tipSetKey;
+            this.height = height;
+        }
+
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.poc.filecoin.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.poc.filecoin.dto.HDAddressDTO;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinProtocolException;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.ExtendedKey;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.util.Bip32KeyDerivation;
+import com.poc.filecoin.util.Blake2bHasher;
+import com.poc.filecoin.util.Eip2333KeyDerivation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Service class for hierarchical deterministic wallets. SECP256K1 addresses are derived with BIP32 on the
+ * BIP44 path m/44'/461'/account'/0/index and BLS addresses with EIP-2333 on m/12381/461/account/index.
+ * Every node on the way to an account is cached for a short while, so deriving a range of addresses costs one
+ * child derivation per address and the range is derived in parallel. Cached nodes hold private keys, they are
+ * zeroed once evicted and callers only ever work on copies of them
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class HDWalletService {
+
+    @Value("${filecoin.address.batch.max-count}")
+    private int maxBatchCount = 10_000;
+
+    @Value("${filecoin.hd.cache.max-size}")
+    private long nodeCacheMaxSize = 1_000;
+
+    @Value("${filecoin.hd.cache.expire-after-write-ms}")
+    private long nodeExpireAfterWriteMillis = 60_000;
+
+    private Cache<String, ExtendedKey> nodeCache;
+
+    @Autowired
+    NetworkService networkService;
+
+    @Autowired
+    AddressService addressService;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    /**
+     * Method to build the cache of derived parent nodes, keyed by protocol, seed digest and path. Nodes expire a
+     * fixed time after they are derived however often they are used, evicted nodes have their keys zeroed
+     */
+    @PostConstruct
+    public void initNodeCache() {
+        if (nodeCacheMaxSize <= 0) {
+            log.info("HD node cache is disabled");
+            return;
+        }
+        this.nodeCache = CacheBuilder.newBuilder()
+                .maximumSize(nodeCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(nodeExpireAfterWriteMillis))
+                .recordStats()
+                .removalListener((RemovalListener<String, ExtendedKey>) notification ->
+                        notification.getValue().destroy())
+                .build();
+        if (meterRegistry != null) {
+            GuavaCacheMetrics.monitor(meterRegistry, nodeCache, "filecoin.hd.node");
+        }
+    }
+
+    /**
+     * Method to derive a range of addresses of an account from a seed. The seed and range are validated and the
+     * account node is derived before the stream is returned, the addresses themselves are derived lazily in
+     * parallel and handed to the terminal operation in no particular order
+     *
+     * @param filecoinProtocol
+     * @param seed hex encoded seed
+     * @param account
+     * @param start index of the first address
+     * @param count
+     * @param includePrivateKey
+     * @return Stream of HDAddressDTO
+     * @throws InvalidFilecoinProtocolException
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public Stream<HDAddressDTO> derive(FilecoinProtocol filecoinProtocol, String seed, int account, int start,
+                                       int count, boolean includePrivateKey) {
+        // validating the request before any key is derived
+        if (filecoinProtocol != FilecoinProtocol.SECP256K1 && filecoinProtocol != FilecoinProtocol.BLS) {
+            throw new InvalidFilecoinProtocolException("Invalid filecoin protocol");
+        }
+        if (count < 1 || count > maxBatchCount) {
+            throw new InvalidFilecoinException("Address count should be between 1 and " + maxBatchCount);
+        }
+        // account and index have to stay below the hardened offset
+        if (account < 0 || start < 0 || (long) start + count - 1 > Integer.MAX_VALUE) {
+            throw new InvalidFilecoinException("Account and address indexes should be between 0 and " + Integer.MAX_VALUE);
+        }
+        if (seed == null) {
+            throw new InvalidFilecoinException("Seed is required");
+        }
+        byte[] seedBytes = Hex.decodeHex(seed);
+        // nodes are cached under a digest of the seed, never the seed itself
+        String seedId = Hex.encodeHexString(Blake2bHasher.blake2b256(seedBytes));
+
+        FilecoinNetwork filecoinNetwork = networkService.getFilecoinNetwork();
+        ExtendedKey accountNode = node(filecoinProtocol, seedBytes, seedId, accountPath(filecoinProtocol, account));
+
+        // deriving the addresses across all the cores, the copy of the account node is zeroed when the stream closes
+        return IntStream.range(start, start + count)
+                .parallel()
+                .mapToObj(index -> deriveAddress(filecoinProtocol, filecoinNetwork, accountNode, account, index,
+                        includePrivateKey))
+                .onClose(accountNode::destroy);
+    }
+
+    /**
+     * Method to derive the address at an index below an account node
+     *
+     * @param filecoinProtocol
+     * @param filecoinNetwork
+     * @param accountNode
+     * @param account
+     * @param index
+     * @param includePrivateKey
+     * @return HDAddressDTO
+     */
+    @SneakyThrows
+    private HDAddressDTO deriveAddress(FilecoinProtocol filecoinProtocol, FilecoinNetwork filecoinNetwork,
+                                       ExtendedKey accountNode, int account, int index, boolean includePrivateKey) {
+        Address address;
+        String path;
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+            address = new SECP256K1Address(Bip32KeyDerivation.deriveChild(accountNode, index).getPrivateKey(),
+                    filecoinNetwork);
+            path = Bip32KeyDerivation.filecoinPath(account, index);
+        } else {
+            address = new BLSAddress(Eip2333KeyDerivation.deriveChild(accountNode.getPrivateKey(), index),
+                    filecoinNetwork);
+            path = Eip2333KeyDerivation.filecoinPath(account, index);
+        }
+        return new HDAddressDTO(index
+                , path
+                , includePrivateKey ? Hex.encodeHexString(address.getPrivateKey()) : null
+                , Hex.encodeHexString(address.getPublicKey())
+                , address.getFilecoinProtocol().toString()
+                , address.getFilecoinNetwork().toString()
+                , addressService.encode(address));
+    }
+
+    /**
+     * Method to get a copy of the node at a path, the node and all of its ancestors are taken from the cache or
+     * derived and cached on the way. The copy belongs to the caller, who destroys it when done
+     *
+     * @param filecoinProtocol
+     * @param seed
+     * @param seedId
+     * @param path
+     * @return ExtendedKey
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    private ExtendedKey node(FilecoinProtocol filecoinProtocol, byte[] seed, String seedId, String path) {
+        if (nodeCache == null) {
+            return deriveNode(filecoinProtocol, seed, seedId, path);
+        }
+        String key = filecoinProtocol + "|" + seedId + "|" + path;
+        // a node evicted between lookup and copy is destroyed, so it is looked up again
+        ExtendedKey copy;
+        do {
+            try {
+                copy = nodeCache.get(key, () -> deriveNode(filecoinProtocol, seed, seedId, path)).tryCopy();
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                throw e.getCause();
+            }
+        } while (copy == null);
+        return copy;
+    }
+
+    /**
+     * Method to derive the node at a path from a copy of its parent, the parent copy is destroyed afterwards
+     *
+     * @param filecoinProtocol
+     * @param seed
+     * @param seedId
+     * @param path
+     * @return ExtendedKey
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    private ExtendedKey deriveNode(FilecoinProtocol filecoinProtocol, byte[] seed, String seedId, String path) {
+        int separator = path.lastIndexOf('/');
+        if (separator < 0) {
+            return master(filecoinProtocol, seed);
+        }
+        ExtendedKey parent = node(filecoinProtocol, seed, seedId, path.substring(0, separator));
+        try {
+            String level = path.substring(separator + 1);
+            if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+                return Bip32KeyDerivation.deriveChild(parent, Bip32KeyDerivation.parsePath(level)[0]);
+            }
+            return new ExtendedKey(Eip2333KeyDerivation.deriveChild(parent.getPrivateKey(),
+                    Eip2333KeyDerivation.parsePath(level)[0]), new byte[0]);
+        } finally {
+            parent.destroy();
+        }
+    }
+
+    @SneakyThrows
+    private ExtendedKey master(FilecoinProtocol filecoinProtocol, byte[] seed) {
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+            return Bip32KeyDerivation.master(seed);
+        }
+        return new ExtendedKey(Eip2333KeyDerivation.master(seed), new byte[0]);
+    }
+
+    private String accountPath(FilecoinProtocol filecoinProtocol, int account) {
+        return filecoinProtocol == FilecoinProtocol.SECP256K1
+                ? Bip32KeyDerivation.accountPath(account)
+                : Eip2333KeyDerivation.accountPath(account);
+    }
+
+}
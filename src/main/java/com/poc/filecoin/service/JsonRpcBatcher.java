@@ -0,0 +1,171 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent JSON-RPC requests and sends them as one batch array. A batch is sent once the window
+ * after its first request elapses or as soon as it is full, and the responses are handed back to every caller's
+ * future by request id
+ *
+ * @author Vijay Pratap Singh
+ */
+@Slf4j
+class JsonRpcBatcher {
+
+    private final JsonRpcTransportService jsonRpcTransportService;
+    private final ExecutorService senderExecutor;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final LinkedBlockingQueue<PendingRequest> pendingRequests = new LinkedBlockingQueue<>();
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    JsonRpcBatcher(JsonRpcTransportService jsonRpcTransportService, ExecutorService senderExecutor,
+                   int maxBatchSize, long windowMillis) {
+        this.jsonRpcTransportService = jsonRpcTransportService;
+        this.senderExecutor = senderExecutor;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.collector = new Thread(this::collect, "filecoin-rpc-batcher");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    /**
+     * Method to queue a request for the next batch
+     *
+     * @param request
+     * @return CompletableFuture of the response object of the request
+     */
+    CompletableFuture<JsonNode> submit(ObjectNode request) {
+        CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new FilecoinRpcException("JSON-RPC batcher is stopped"));
+            return future;
+        }
+        PendingRequest pendingRequest = new PendingRequest(request.get("id").asLong(), request, future);
+        pendingRequests.add(pendingRequest);
+        // stopped while adding, the collector may have drained the queue already
+        if (!running && pendingRequests.remove(pendingRequest)) {
+            future.completeExceptionally(new FilecoinRpcException("JSON-RPC batcher is stopped"));
+        }
+        return future;
+    }
+
+    void stop() {
+        running = false;
+        collector.interrupt();
+    }
+
+    /**
+     * Method run by the collector thread, it waits for a first request and collects more until the window
+     * elapses or the batch is full
+     */
+    private void collect() {
+        List<PendingRequest> unsent = new ArrayList<>();
+        while (running) {
+            List<PendingRequest> batch = new ArrayList<>(maxBatchSize);
+            try {
+                PendingRequest first = pendingRequests.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRequest next = remaining > 0 ? pendingRequests.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        pendingRequests.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    batch.add(next);
+                    pendingRequests.drainTo(batch, maxBatchSize - batch.size());
+                }
+                senderExecutor.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                // the batch being collected is failed along with the queue
+                unsent.addAll(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Error while collecting JSON-RPC batch: {}", e.getMessage());
+            }
+        }
+        // failing whatever is left so no caller waits forever
+        pendingRequests.drainTo(unsent);
+        unsent.forEach(pendingRequest -> pendingRequest.future.completeExceptionally(
+                new FilecoinRpcException("JSON-RPC batcher is stopped")));
+    }
+
+    /**
+     * Method to send a batch and complete the futures of its requests
+     *
+     * @param batch
+     */
+    private void send(List<PendingRequest> batch) {
+        try {
+            if (batch.size() == 1) {
+                // nothing to batch, sending the plain request
+                PendingRequest pendingRequest = batch.get(0);
+                pendingRequest.future.complete(jsonRpcTransportService.send(pendingRequest.request));
+                return;
+            }
+            ArrayNode payload = JsonNodeFactory.instance.arrayNode(batch.size());
+            Map<Long, PendingRequest> requestsById = new HashMap<>();
+            for (PendingRequest pendingRequest : batch) {
+                payload.add(pendingRequest.request);
+                requestsById.put(pendingRequest.id, pendingRequest);
+            }
+            JsonNode responses = jsonRpcTransportService.send(payload);
+            if (!responses.isArray()) {
+                // whole batch was rejected with a single error
+                FilecoinRpcException exception = new FilecoinRpcException("JSON-RPC batch failed: "
+                        + responses.path("error").path("message").asText(), responses.path("error").path("code").asInt());
+                batch.forEach(pendingRequest -> pendingRequest.future.completeExceptionally(exception));
+                return;
+            }
+            for (JsonNode response : responses) {
+                PendingRequest pendingRequest = requestsById.remove(response.path("id").asLong());
+                if (pendingRequest != null) {
+                    pendingRequest.future.complete(response);
+                }
+            }
+            requestsById.values().forEach(pendingRequest -> pendingRequest.future.completeExceptionally(
+                    new FilecoinRpcException("No response for JSON-RPC request " + pendingRequest.id)));
+        } catch (FilecoinRpcException | RuntimeException e) {
+            batch.forEach(pendingRequest -> pendingRequest.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Request waiting in the queue for its batch
+     */
+    private static class PendingRequest {
+
+        private final long id;
+        private final ObjectNode request;
+        private final CompletableFuture<JsonNode> future;
+
+        PendingRequest(long id, ObjectNode request, CompletableFuture<JsonNode> future) {
+            this.id = id;
+            this.request = request;
+            this.future = future;
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class holding the single, long-lived JSON-RPC transport to the filecoin node.
+ * Connections are pooled and kept alive by the underlying http client, so requests after the first one
+ * skip the connection setup and TLS handshake. With batching enabled, concurrent calls are collected into
+ * JSON-RPC batch arrays so many calls share a single http request
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class JsonRpcTransportService {
+
+    @Value("${filecoin.http.client-address}")
+    String clientHttpAddress;
+
+    @Value("${filecoin.rpc.connect-timeout-ms}")
+    long connectTimeoutMillis;
+
+    @Value("${filecoin.rpc.request-timeout-ms}")
+    long requestTimeoutMillis;
+
+    @Value("${filecoin.rpc.max-concurrent-requests}")
+    int maxConcurrentRequests;
+
+    @Value("${filecoin.rpc.keep-alive-seconds}")
+    int keepAliveSeconds;
+
+    @Value("${filecoin.rpc.http2-enabled}")
+    boolean http2Enabled;
+
+    @Value("${filecoin.rpc.batch.enabled}")
+    boolean batchEnabled;
+
+    @Value("${filecoin.rpc.batch.window-ms}")
+    long batchWindowMillis;
+
+    @Value("${filecoin.rpc.batch.max-size}")
+    int batchMaxSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requestId = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private URI endpoint;
+    private HttpClient httpClient;
+    private Semaphore permits;
+    private ExecutorService senderExecutor;
+    private JsonRpcBatcher batcher;
+
+    /**
+     * Method to build the shared http client once the properties are injected
+     */
+    @PostConstruct
+    void init() {
+        // the jdk client reads its pool settings once, so they must be in place before the first client is built
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxConcurrentRequests));
+        }
+        this.endpoint = URI.create(clientHttpAddress);
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.httpClient = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("filecoin-rpc-sender-");
+        threadFactory.setDaemon(true);
+        this.senderExecutor = Executors.newFixedThreadPool(maxConcurrentRequests, threadFactory);
+        if (batchEnabled) {
+            this.batcher = new JsonRpcBatcher(this, senderExecutor, batchMaxSize, batchWindowMillis);
+        }
+        log.info("JSON-RPC transport to {} initialized with {} concurrent requests, http2 {}, batching {}",
+                clientHttpAddress, maxConcurrentRequests, http2Enabled, batchEnabled);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batcher != null) {
+            batcher.stop();
+        }
+        senderExecutor.shutdown();
+    }
+
+    /**
+     * Method to invoke a JSON-RPC method on the filecoin node and read the result into the given type
+     *
+     * @param method
+     * @param params
+     * @param resultType
+     * @return T
+     * @throws FilecoinRpcException
+     */
+    public <T> T invoke(String method, List<?> params, Class<T> resultType) throws FilecoinRpcException {
+        AtomicInteger inFlight = inFlightRequests(method);
+        inFlight.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean success = false;
+        try {
+            ObjectNode request = createRequest(method, params);
+            JsonNode response = batcher != null ? await(batcher.submit(request)) : send(request);
+            T result = readResult(method, response, resultType);
+            success = true;
+            return result;
+        } finally {
+            inFlight.decrementAndGet();
+            sample.stop(requestTimer(method, success));
+        }
+    }
+
+    /**
+     * Method to invoke a JSON-RPC method on the filecoin node without blocking the caller
+     *
+     * @param method
+     * @param params
+     * @param resultType
+     * @return CompletableFuture of the result, completed exceptionally with FilecoinRpcException on failure
+     */
+    public <T> CompletableFuture<T> invokeAsync(String method, List<?> params, Class<T> resultType) {
+        ObjectNode request = createRequest(method, params);
+        CompletableFuture<JsonNode> response;
+        if (batcher != null) {
+            response = withTimeout(batcher.submit(request));
+        } else {
+            response = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return send(request);
+                } catch (FilecoinRpcException e) {
+                    throw new CompletionException(e);
+                }
+            }, senderExecutor);
+        }
+        AtomicInteger inFlight = inFlightRequests(method);
+        inFlight.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return response.thenApply(node -> {
+            try {
+                return readResult(method, node, resultType);
+            } catch (FilecoinRpcException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((result, throwable) -> {
+            inFlight.decrementAndGet();
+            sample.stop(requestTimer(method, throwable == null));
+        });
+    }
+
+    /**
+     * Method to get the in-flight counter of a JSON-RPC method, published as a gauge the first time it is used
+     *
+     * @param method
+     * @return AtomicInteger
+     */
+    private AtomicInteger inFlightRequests(String method) {
+        return inFlightRequests.computeIfAbsent(method, key -> meterRegistry.gauge("filecoin.rpc.in.flight",
+                Tags.of("method", key), new AtomicInteger()));
+    }
+
+    /**
+     * Method to get the latency timer of a JSON-RPC method and outcome
+     *
+     * @param method
+     * @param success
+     * @return Timer
+     */
+    private Timer requestTimer(String method, boolean success) {
+        return Timer.builder("filecoin.rpc.requests")
+                .description("JSON-RPC calls to the filecoin node")
+                .tag("method", method)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Method to wait for the response of a batched request
+     *
+     * @param response
+     * @return JsonNode
+     * @throws FilecoinRpcException
+     */
+    private JsonNode await(CompletableFuture<JsonNode> response) throws FilecoinRpcException {
+        try {
+            // the request may wait for its batch window and a free connection before being sent
+            return response.get(batchWindowMillis + 2 * requestTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FilecoinRpcException) {
+                throw (FilecoinRpcException) e.getCause();
+            }
+            throw new FilecoinRpcException("Error while calling filecoin node: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new FilecoinRpcException("Timed out waiting for the filecoin node to respond");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FilecoinRpcException("Interrupted while calling filecoin node");
+        }
+    }
+
+    /**
+     * Method to bound the wait for a batched request like {@link #await} does, so an async caller is failed
+     * instead of waiting forever when its batch is never sent
+     *
+     * @param response
+     * @return CompletableFuture of JsonNode
+     */
+    private CompletableFuture<JsonNode> withTimeout(CompletableFuture<JsonNode> response) {
+        return response.orTimeout(batchWindowMillis + 2 * requestTimeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause instanceof TimeoutException) {
+                        throw new CompletionException(
+                                new FilecoinRpcException("Timed out waiting for the filecoin node to respond"));
+                    }
+                    throw throwable instanceof CompletionException
+                            ? (CompletionException) throwable : new CompletionException(throwable);
+                });
+    }
+
+    /**
+     * Method to create a JSON-RPC request object with a unique id
+     *
+     * @param method
+     * @param params
+     * @return ObjectNode
+     */
+    ObjectNode createRequest(String method, List<?> params) {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("jsonrpc", "2.0");
+        request.put("method", method);
+        request.set("params", objectMapper.valueToTree(params));
+        request.put("id", requestId.incrementAndGet());
+        return request;
+    }
+
+    /**
+     * Method to read the result of a JSON-RPC response, errors returned by the node are raised as exception
+     *
+     * @param method
+     * @param response
+     * @param resultType
+     * @return T
+     * @throws FilecoinRpcException
+     */
+    <T> T readResult(String method, JsonNode response, Class<T> resultType) throws FilecoinRpcException {
+        JsonNode error = response.get("error");
+        if (error != null && !error.isNull()) {
+            throw new FilecoinRpcException(method + " failed: " + error.path("message").asText(),
+                    error.path("code").asInt());
+        }
+        try {
+            return objectMapper.treeToValue(response.get("result"), resultType);
+        } catch (IOException e) {
+            throw new FilecoinRpcException(method + " returned an unreadable result: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method to send a JSON-RPC payload over the shared client, at most the configured number of
+     * requests are in flight at a time
+     *
+     * @param payload
+     * @return JsonNode
+     * @throws FilecoinRpcException
+     */
+    JsonNode send(JsonNode payload) throws FilecoinRpcException {
+        if (log.isDebugEnabled()) {
+            log.debug("Request to filecoin network is: {}", payload.toPrettyString());
+        }
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                throw new FilecoinRpcException("Timed out waiting for a free connection to the filecoin node");
+            }
+            HttpRequest httpRequest = HttpRequest.newBuilder(endpoint)
+                    .timeout(Duration.ofMillis(requestTimeoutMillis))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+                    .build();
+            HttpResponse<byte[]> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            if (httpResponse.statusCode() != 200) {
+                throw new FilecoinRpcException("Filecoin node responded with http status " + httpResponse.statusCode());
+            }
+            return objectMapper.readTree(httpResponse.body());
+        } catch (IOException e) {
+            throw new FilecoinRpcException("Error while calling filecoin node: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FilecoinRpcException("Interrupted while calling filecoin node");
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+}
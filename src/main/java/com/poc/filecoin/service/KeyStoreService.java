@@ -0,0 +1,508 @@
+package com.poc.filecoin.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.poc.filecoin.dto.StoredKeyDTO;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinPrivateKeyException;
+import com.poc.filecoin.exceptions.InvalidFilecoinProtocolException;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.OffHeapKey;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.util.FilecoinAddressCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Service class for the local key store. Private keys are kept AES-GCM encrypted in fixed size slots of a
+ * memory-mapped file, with the AES key derived from the configured password through PBKDF2. Stored keys are
+ * looked up by key id, which is the slot number, or by address through an in-memory index. Decrypted keys are
+ * cached in direct memory and zeroed when they are evicted, so signing requests neither carry nor parse keys.
+ * The key store is disabled unless a file is configured
+ *
+ * @author Vijay Pratap Singh
+ */
+/*
+    |--------|---------|--------|------------|-------|-----------------|-----------------|-------|
+    | "FCKS" | version |  ...   | iterations | slots | salt (16 bytes) | password check  | slots |
+    |--------|---------|--------|------------|-------|-----------------|-----------------|-------|
+
+    Slot of 128 bytes
+
+    |--------|---------|----------------|---------|----------------------|-----------------|------------------------|
+    | status | network | address length |   ...   | address (64 bytes)   | nonce (12 bytes)| encrypted key and tag  |
+    |--------|---------|----------------|---------|----------------------|-----------------|------------------------|
+*/
+@Service
+@Slf4j
+public class KeyStoreService {
+
+    private static final byte[] MAGIC = "FCKS".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 128;
+    private static final int SALT_LENGTH = 16;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 16;
+    private static final int KEY_LENGTH = 32;
+    private static final int MAX_ADDRESS_LENGTH = 64;
+    private static final int KDF_ITERATIONS = 210_000;
+    private static final byte SLOT_USED = 1;
+    private static final byte[] PASSWORD_CHECK_AAD = "filecoin-keystore".getBytes(StandardCharsets.US_ASCII);
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Value("${filecoin.keystore.path}")
+    private String keyStorePath = "";
+
+    @Value("${filecoin.keystore.password}")
+    private String keyStorePassword = "";
+
+    @Value("${filecoin.keystore.slots}")
+    private int slotCount = 10_000;
+
+    @Value("${filecoin.keystore.cache.max-size}")
+    private long keyCacheMaxSize = 10_000;
+
+    @Value("${filecoin.keystore.cache.expire-after-access-ms}")
+    private long keyExpireAfterAccessMillis = 600_000;
+
+    @Autowired
+    NetworkService networkService;
+
+    @Autowired(required = false)
+    MeterRegistry meterRegistry;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    // address bytes, one char per byte, to slot
+    private final ConcurrentHashMap<String, Integer> addressIndex = new ConcurrentHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer mappedSlots;
+    private SecretKeySpec encryptionKey;
+    private Cache<Integer, OffHeapKey> keyCache;
+    private volatile int usedSlots;
+
+    /**
+     * Method to open or create the key store file, verify the password and index the stored addresses
+     *
+     * @throws IOException
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinPrivateKeyException
+     */
+    @PostConstruct
+    public void init() throws IOException, InvalidFilecoinException, InvalidFilecoinPrivateKeyException {
+        if (keyStorePath == null || keyStorePath.isBlank()) {
+            log.info("Key store is disabled");
+            return;
+        }
+        if (keyStorePassword == null || keyStorePassword.isEmpty()) {
+            throw new InvalidFilecoinException("Key store password is not configured");
+        }
+        this.channel = FileChannel.open(Path.of(keyStorePath), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            create();
+        } else {
+            open();
+        }
+        this.keyCache = CacheBuilder.newBuilder()
+                .maximumSize(keyCacheMaxSize)
+                .expireAfterAccess(Duration.ofMillis(keyExpireAfterAccessMillis))
+                .recordStats()
+                .removalListener((RemovalListener<Integer, OffHeapKey>) notification ->
+                        notification.getValue().destroy())
+                .build();
+        if (meterRegistry != null) {
+            GuavaCacheMetrics.monitor(meterRegistry, keyCache, "filecoin.keystore.keys");
+        }
+        log.info("Key store {} opened with {} of {} slots used", keyStorePath, usedSlots, slotCount);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (keyCache != null) {
+            keyCache.invalidateAll();
+        }
+        if (channel != null) {
+            mappedSlots.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * Method to check whether a key store file is configured
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    /**
+     * Method to store a private key, a key that is already stored keeps its slot
+     *
+     * @param privateKey
+     * @param filecoinProtocol
+     * @return StoredKeyDTO
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinProtocolException
+     */
+    @SneakyThrows
+    public StoredKeyDTO importKey(byte[] privateKey, FilecoinProtocol filecoinProtocol) {
+        checkEnabled();
+        FilecoinNetwork filecoinNetwork = networkService.getFilecoinNetwork();
+        Address address;
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+            address = new SECP256K1Address(privateKey, filecoinNetwork);
+        } else if (filecoinProtocol == FilecoinProtocol.BLS) {
+            address = new BLSAddress(privateKey, filecoinNetwork);
+        } else {
+            throw new InvalidFilecoinProtocolException("Invalid filecoin protocol");
+        }
+        try {
+            return new StoredKeyDTO(store(privateKey, address.getAddress(), filecoinNetwork),
+                    FilecoinAddressCodec.encode(filecoinNetwork, filecoinProtocol, address.getPayload()),
+                    filecoinProtocol.toString(),
+                    filecoinNetwork.toString());
+        } finally {
+            // the address keeps its own copy of the key
+            Arrays.fill(address.getPrivateKey(), (byte) 0);
+        }
+    }
+
+    /**
+     * Method to generate a new random key straight into the key store
+     *
+     * @param filecoinProtocol
+     * @return StoredKeyDTO
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinProtocolException
+     */
+    @SneakyThrows
+    public StoredKeyDTO createKey(FilecoinProtocol filecoinProtocol) {
+        checkEnabled();
+        FilecoinNetwork filecoinNetwork = networkService.getFilecoinNetwork();
+        Address address;
+        if (filecoinProtocol == FilecoinProtocol.SECP256K1) {
+            address = new SECP256K1Address(filecoinNetwork);
+        } else if (filecoinProtocol == FilecoinProtocol.BLS) {
+            address = new BLSAddress(filecoinNetwork, secureRandom);
+        } else {
+            throw new InvalidFilecoinProtocolException("Invalid filecoin protocol");
+        }
+        try {
+            return importKey(address.getPrivateKey(), filecoinProtocol);
+        } finally {
+            Arrays.fill(address.getPrivateKey(), (byte) 0);
+        }
+    }
+
+    /**
+     * Method to list the stored keys, without their private keys
+     *
+     * @return List of StoredKeyDTO in slot order
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    public List<StoredKeyDTO> listKeys() {
+        checkEnabled();
+        int used = usedSlots;
+        List<StoredKeyDTO> keys = new ArrayList<>(used);
+        for (int slot = 0; slot < used; slot++) {
+            byte[] address = slotAddress(slot);
+            FilecoinNetwork filecoinNetwork = FilecoinNetwork.getEnum(String.valueOf((char) slotBuffer(slot).get(1)));
+            FilecoinProtocol filecoinProtocol = FilecoinProtocol.getEnum(address[0]);
+            keys.add(new StoredKeyDTO(slot,
+                    FilecoinAddressCodec.encode(filecoinNetwork, filecoinProtocol,
+                            Arrays.copyOfRange(address, 1, address.length)),
+                    filecoinProtocol.toString(),
+                    filecoinNetwork.toString()));
+        }
+        return keys;
+    }
+
+    /**
+     * Method to get a copy of the private key of a sender, either by key id or by the sender address. The key
+     * must belong to the sender, the caller zeroes the copy once it is done with it
+     *
+     * @param from
+     * @param keyId key id, or null to look the key up by address
+     * @return byte[]
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinPrivateKeyException
+     */
+    @SneakyThrows
+    public byte[] getPrivateKey(Address from, Integer keyId) {
+        checkEnabled();
+        Integer slot = keyId != null ? keyId : addressIndex.get(new String(from.getAddress(), StandardCharsets.ISO_8859_1));
+        if (slot == null || slot < 0 || slot >= usedSlots) {
+            throw new InvalidFilecoinPrivateKeyException("No stored key for the sender");
+        }
+        if (!MessageDigest.isEqual(slotAddress(slot), from.getAddress())) {
+            throw new InvalidFilecoinPrivateKeyException("Key " + slot + " does not belong to the sender");
+        }
+        byte[] privateKey;
+        do {
+            // an evicted key is zeroed under its write lock, the copy is retried with a freshly loaded key
+            privateKey = cachedKey(slot).tryCopy();
+        } while (privateKey == null);
+        return privateKey;
+    }
+
+    /**
+     * Method to get the decrypted key of a slot from the off-heap cache, decrypting it on a miss
+     *
+     * @param slot
+     * @return OffHeapKey
+     */
+    @SneakyThrows
+    private OffHeapKey cachedKey(int slot) {
+        try {
+            return keyCache.get(slot, () -> {
+                byte[] privateKey = decrypt(slot);
+                try {
+                    return new OffHeapKey(privateKey);
+                } finally {
+                    Arrays.fill(privateKey, (byte) 0);
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Method to encrypt a private key into the next free slot
+     *
+     * @param privateKey
+     * @param address
+     * @param filecoinNetwork
+     * @return slot
+     * @throws InvalidFilecoinException
+     */
+    private synchronized int store(byte[] privateKey, byte[] address, FilecoinNetwork filecoinNetwork)
+            throws InvalidFilecoinException, GeneralSecurityException {
+        String indexKey = new String(address, StandardCharsets.ISO_8859_1);
+        Integer existing = addressIndex.get(indexKey);
+        if (existing != null) {
+            return existing;
+        }
+        if (usedSlots >= slotCount) {
+            throw new InvalidFilecoinException("Key store is full");
+        }
+        if (privateKey.length != KEY_LENGTH || address.length > MAX_ADDRESS_LENGTH) {
+            throw new InvalidFilecoinException("Invalid key length " + privateKey.length);
+        }
+        int slot = usedSlots;
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        cipher.updateAAD(slotAad(slot, address));
+        byte[] encrypted = cipher.doFinal(privateKey);
+
+        ByteBuffer buffer = slotBuffer(slot);
+        buffer.position(1);
+        buffer.put((byte) filecoinNetwork.getValue().charAt(0));
+        buffer.put((byte) address.length);
+        buffer.position(4);
+        buffer.put(address);
+        buffer.position(4 + MAX_ADDRESS_LENGTH);
+        buffer.put(nonce);
+        buffer.put(encrypted);
+        mappedSlots.force();
+        // the status byte goes last, a slot is only used once it is completely written
+        buffer.put(0, SLOT_USED);
+        mappedSlots.force();
+
+        addressIndex.put(indexKey, slot);
+        usedSlots = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Method to decrypt the private key of a slot
+     *
+     * @param slot
+     * @return byte[]
+     */
+    private byte[] decrypt(int slot) throws GeneralSecurityException {
+        ByteBuffer buffer = slotBuffer(slot);
+        byte[] nonce = new byte[NONCE_LENGTH];
+        byte[] encrypted = new byte[KEY_LENGTH + TAG_LENGTH];
+        buffer.position(4 + MAX_ADDRESS_LENGTH);
+        buffer.get(nonce);
+        buffer.get(encrypted);
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+        // the address is authenticated along with the key, a key can not be moved to another slot or address
+        cipher.updateAAD(slotAad(slot, slotAddress(slot)));
+        return cipher.doFinal(encrypted);
+    }
+
+    /**
+     * Method to write the header of a new key store file
+     */
+    private void create() throws IOException, InvalidFilecoinException {
+        byte[] salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+        this.encryptionKey = deriveKey(salt, KDF_ITERATIONS);
+        this.mappedSlots = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slotCount * SLOT_SIZE);
+
+        byte[] nonce = new byte[NONCE_LENGTH];
+        secureRandom.nextBytes(nonce);
+        byte[] passwordCheck;
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(PASSWORD_CHECK_AAD);
+            passwordCheck = cipher.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new InvalidFilecoinException("Error while creating key store: " + e.getMessage());
+        }
+
+        ByteBuffer header = mappedSlots.duplicate();
+        header.put(MAGIC);
+        header.put(VERSION);
+        header.position(8);
+        header.putInt(KDF_ITERATIONS);
+        header.putInt(slotCount);
+        header.put(salt);
+        header.put(nonce);
+        header.put(passwordCheck);
+        mappedSlots.force();
+    }
+
+    /**
+     * Method to read the header of an existing key store file, check the password and index its slots
+     */
+    private void open() throws IOException, InvalidFilecoinException, InvalidFilecoinPrivateKeyException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(MAGIC, magic) || header.get() != VERSION) {
+            throw new InvalidFilecoinException("Not a key store file: " + keyStorePath);
+        }
+        header.position(8);
+        int iterations = header.getInt();
+        this.slotCount = header.getInt();
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] nonce = new byte[NONCE_LENGTH];
+        byte[] passwordCheck = new byte[TAG_LENGTH];
+        header.get(salt);
+        header.get(nonce);
+        header.get(passwordCheck);
+
+        this.encryptionKey = deriveKey(salt, iterations);
+        try {
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(PASSWORD_CHECK_AAD);
+            cipher.doFinal(passwordCheck);
+        } catch (AEADBadTagException e) {
+            throw new InvalidFilecoinPrivateKeyException("Invalid key store password");
+        } catch (GeneralSecurityException e) {
+            throw new InvalidFilecoinException("Error while opening key store: " + e.getMessage());
+        }
+
+        this.mappedSlots = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slotCount * SLOT_SIZE);
+        // slots are filled in order, the first unused one ends the scan
+        int slot = 0;
+        while (slot < slotCount && slotBuffer(slot).get(0) == SLOT_USED) {
+            addressIndex.put(new String(slotAddress(slot), StandardCharsets.ISO_8859_1), slot);
+            slot++;
+        }
+        this.usedSlots = slot;
+    }
+
+    /**
+     * Method to derive the AES key from the configured password
+     *
+     * @param salt
+     * @param iterations
+     * @return SecretKeySpec
+     */
+    private SecretKeySpec deriveKey(byte[] salt, int iterations) throws InvalidFilecoinException {
+        PBEKeySpec keySpec = new PBEKeySpec(keyStorePassword.toCharArray(), salt, iterations, KEY_LENGTH * 8);
+        try {
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+            try {
+                return new SecretKeySpec(key, "AES");
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new InvalidFilecoinException("Error while deriving key store key: " + e.getMessage());
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private ByteBuffer slotBuffer(int slot) {
+        ByteBuffer buffer = mappedSlots.duplicate();
+        buffer.position(HEADER_SIZE + slot * SLOT_SIZE);
+        buffer.limit(HEADER_SIZE + (slot + 1) * SLOT_SIZE);
+        return buffer.slice();
+    }
+
+    private byte[] slotAddress(int slot) {
+        ByteBuffer buffer = slotBuffer(slot);
+        byte[] address = new byte[buffer.get(2)];
+        buffer.position(4);
+        buffer.get(address);
+        return address;
+    }
+
+    private byte[] slotAad(int slot, byte[] address) {
+        return ByteBuffer.allocate(4 + address.length).putInt(slot).put(address).array();
+    }
+
+    private void checkEnabled() throws InvalidFilecoinException {
+        if (!isEnabled()) {
+            throw new InvalidFilecoinException("Key store is not configured");
+        }
+    }
+
+}
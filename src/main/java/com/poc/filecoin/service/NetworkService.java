@@ -2,27 +2,30 @@ package com.poc.filecoin.service;
 
 import com.poc.filecoin.dto.TransactionDTO;
 import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
 import com.poc.filecoin.exceptions.InvalidFilecoinNetworkException;
 
 import com.poc.filecoin.model.Signature;
 import com.poc.filecoin.model.Transaction;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.googlecode.jsonrpc4j.JsonRpcClient;
-import com.googlecode.jsonrpc4j.JsonRpcHttpClient;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
-import java.net.URL;
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class for methods that invoke methods on Filecoin blockchain
@@ -33,22 +36,104 @@ import java.util.HashMap;
 @Slf4j
 public class NetworkService {
 
-    @Value("${filecoin.http.client-address}")
-    String clientHttpAddress;
-
     @Value("${filecoin.bearer.auth.token}")
     String bearerAuthToken;
 
+    @Value("${filecoin.network:}")
+    String configuredNetwork;
+
+    @Autowired
+    JsonRpcTransportService jsonRpcTransportService;
+
+    private volatile FilecoinNetwork filecoinNetwork;
+    private volatile String networkMismatch;
 
     /**
-     * Method to get filecoin network
+     * Method to resolve the filecoin network once at startup. When the network is configured explicitly it is
+     * used as is, and the application fails to start if the node reports a different one
+     */
+    @PostConstruct
+    @SneakyThrows
+    void initFilecoinNetwork() {
+        if (configuredNetwork != null && !configuredNetwork.isBlank()) {
+            this.filecoinNetwork = FilecoinNetwork.valueOf(configuredNetwork.trim().toUpperCase());
+        }
+        FilecoinNetwork reportedNetwork;
+        try {
+            reportedNetwork = fetchFilecoinNetwork();
+        } catch (FilecoinRpcException e) {
+            // node may be unreachable at startup, offline key operations still work with a configured network
+            log.warn("Could not resolve filecoin network at startup: {}", e.getMessage());
+            return;
+        }
+        if (this.filecoinNetwork != null && this.filecoinNetwork != reportedNetwork) {
+            throw new InvalidFilecoinNetworkException("Configured filecoin network " + this.filecoinNetwork
+                    + " does not match " + reportedNetwork + " reported by the filecoin node");
+        }
+        this.filecoinNetwork = reportedNetwork;
+        log.info("Filecoin network resolved as {}", reportedNetwork);
+    }
+
+    /**
+     * Method to refresh the cached filecoin network in the background. Once the node reports a different
+     * network than the cached one every further request for the network fails until they match again
+     */
+    @Scheduled(initialDelayString = "${filecoin.network.refresh-interval-ms}",
+            fixedDelayString = "${filecoin.network.refresh-interval-ms}")
+    void refreshFilecoinNetwork() {
+        try {
+            FilecoinNetwork reportedNetwork = fetchFilecoinNetwork();
+            synchronized (this) {
+                if (this.filecoinNetwork == null) {
+                    this.filecoinNetwork = reportedNetwork;
+                }
+            }
+            if (this.filecoinNetwork != reportedNetwork) {
+                networkMismatch = "Filecoin node reports network " + reportedNetwork
+                        + " but " + this.filecoinNetwork + " is in use";
+                log.error(networkMismatch);
+            } else {
+                networkMismatch = null;
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh filecoin network: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Method to get filecoin network, the network is resolved once and served from cache afterwards
      *
      * @return FilecoinNetwork
      */
     @SneakyThrows
     public FilecoinNetwork getFilecoinNetwork() {
 
-        String network = this.getJsonRpcHttpClient().invoke("Filecoin.StateNetworkName",
+        if (networkMismatch != null) {
+            throw new InvalidFilecoinNetworkException(networkMismatch);
+        }
+        FilecoinNetwork network = this.filecoinNetwork;
+        if (network == null) {
+            // not resolved at startup, resolving it on first use
+            synchronized (this) {
+                if (this.filecoinNetwork == null) {
+                    this.filecoinNetwork = fetchFilecoinNetwork();
+                }
+                network = this.filecoinNetwork;
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Method to fetch filecoin network from the filecoin node
+     *
+     * @return FilecoinNetwork
+     * @throws FilecoinRpcException
+     * @throws InvalidFilecoinNetworkException
+     */
+    private FilecoinNetwork fetchFilecoinNetwork() throws FilecoinRpcException, InvalidFilecoinNetworkException {
+
+        String network = jsonRpcTransportService.invoke("Filecoin.StateNetworkName",
                 new ArrayList<>(),
                 String.class);
         if (network.equals("calibrationnet")) {
@@ -69,7 +154,7 @@ public class NetworkService {
     @SneakyThrows
     public int getNonceForAddress(String address) {
 
-        int nonce = this.getJsonRpcHttpClient().invoke("Filecoin.MpoolGetNonce",
+        int nonce = jsonRpcTransportService.invoke("Filecoin.MpoolGetNonce",
                 new ArrayList<>() {{
                     add(address);
                 }},
@@ -86,7 +171,7 @@ public class NetworkService {
     @SneakyThrows
     public String getChainHead() {
 
-        var result = this.getJsonRpcHttpClient().invoke("Filecoin.ChainHead",
+        var result = jsonRpcTransportService.invoke("Filecoin.ChainHead",
                 new ArrayList<>(),
                 JsonNode.class);
 
@@ -94,6 +179,154 @@ public class NetworkService {
 
     }
 
+    /**
+     * Method to get the tipset at the head of the chain, with its cids and height
+     *
+     * @return JsonNode
+     */
+    @SneakyThrows
+    public JsonNode getChainHeadTipSet() {
+        return jsonRpcTransportService.invoke("Filecoin.ChainHead",
+                new ArrayList<>(),
+                JsonNode.class);
+    }
+
+    /**
+     * Method to get the tipset at a height, null epochs resolve to the tipset before them
+     *
+     * @param height
+     * @param tipSetKey tipset to look back from, the head when null
+     * @return JsonNode
+     */
+    @SneakyThrows
+    public JsonNode getTipSetByHeight(long height, JsonNode tipSetKey) {
+        return jsonRpcTransportService.invoke("Filecoin.ChainGetTipSetByHeight",
+                Arrays.asList(height, tipSetKey),
+                JsonNode.class);
+    }
+
+    /**
+     * Method to get the ID address of an address at a tipset
+     *
+     * @param address
+     * @param tipSetKey the head when null
+     * @return String, null when there is no actor behind the address at that tipset
+     * @throws FilecoinRpcException
+     */
+    public String lookupId(String address, JsonNode tipSetKey) throws FilecoinRpcException {
+        return invokeUnlessNotFound("Filecoin.StateLookupID", address, tipSetKey);
+    }
+
+    /**
+     * Method to get the key address of an account actor at a tipset
+     *
+     * @param address
+     * @param tipSetKey the head when null
+     * @return String, null when there is no actor behind the address at that tipset
+     * @throws FilecoinRpcException
+     */
+    public String getAccountKey(String address, JsonNode tipSetKey) throws FilecoinRpcException {
+        return invokeUnlessNotFound("Filecoin.StateAccountKey", address, tipSetKey);
+    }
+
+    /**
+     * Method to get the actor behind an address at a tipset, with its code, state head, nonce and balance
+     *
+     * @param address
+     * @param tipSetKey the head when null
+     * @return CompletableFuture of JsonNode, completed with null when there is no actor behind the address
+     */
+    public CompletableFuture<JsonNode> getActorAsync(String address, JsonNode tipSetKey) {
+        return jsonRpcTransportService.invokeAsync("Filecoin.StateGetActor",
+                        Arrays.asList(address, tipSetKey),
+                        JsonNode.class)
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (isNotFound(cause)) {
+                        return null;
+                    }
+                    throw throwable instanceof CompletionException
+                            ? (CompletionException) throwable : new CompletionException(throwable);
+                });
+    }
+
+    /**
+     * Method to get the network version at a tipset
+     *
+     * @param tipSetKey the head when null
+     * @return int
+     */
+    @SneakyThrows
+    public int getNetworkVersion(JsonNode tipSetKey) {
+        return jsonRpcTransportService.invoke("Filecoin.StateNetworkVersion",
+                Collections.singletonList(tipSetKey),
+                Integer.class);
+    }
+
+    /**
+     * Method to get the code CIDs of the builtin actors of a network version by actor name, they change with
+     * every actors version
+     *
+     * @param networkVersion
+     * @return JsonNode
+     */
+    @SneakyThrows
+    public JsonNode getActorCodes(int networkVersion) {
+        return jsonRpcTransportService.invoke("Filecoin.StateActorCodeCIDs",
+                Collections.singletonList(networkVersion),
+                JsonNode.class);
+    }
+
+    /**
+     * Method to search the chain for a message by its CID, a message replaced by one with the same nonce is
+     * found as well
+     *
+     * @param cid
+     * @return JsonNode, the message lookup with its receipt, null when the message is not on chain
+     */
+    @SneakyThrows
+    public JsonNode searchMessage(String cid) {
+        JsonNode result = jsonRpcTransportService.invoke("Filecoin.StateSearchMsg",
+                Collections.singletonList(Collections.singletonMap("/", cid)),
+                JsonNode.class);
+        return result == null || result.isNull() ? null : result;
+    }
+
+    /**
+     * Method to get the CIDs of the messages pending in the message pool of the node
+     *
+     * @return Set of String
+     */
+    @SneakyThrows
+    public Set<String> getPendingMessageCids() {
+        JsonNode result = jsonRpcTransportService.invoke("Filecoin.MpoolPending",
+                Collections.singletonList(null),
+                JsonNode.class);
+        Set<String> cids = new HashSet<>();
+        if (result != null) {
+            result.forEach(signedMessage -> cids.add(signedMessage.get("CID").get("/").asText()));
+        }
+        return cids;
+    }
+
+    private String invokeUnlessNotFound(String method, String address, JsonNode tipSetKey)
+            throws FilecoinRpcException {
+        try {
+            return jsonRpcTransportService.invoke(method, Arrays.asList(address, tipSetKey), String.class);
+        } catch (FilecoinRpcException e) {
+            if (isNotFound(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isNotFound(Throwable throwable) {
+        // lotus reports a missing actor as an error, there is no dedicated error code for it
+        return throwable instanceof FilecoinRpcException && throwable.getMessage() != null
+                && throwable.getMessage().contains("not found");
+    }
+
     /**
      * Method to send a signed transaction to the blockchain and retrieve the response in JSON
      *
@@ -103,9 +336,11 @@ public class NetworkService {
      * @param signature
      * @param cid
      * @return JsonNode
+     * @throws FilecoinRpcException
      */
     @SneakyThrows
-    public JsonNode sendTransaction(Transaction transaction, String from, String to, Signature signature, String cid) {
+    public JsonNode sendTransaction(Transaction transaction, String from, String to, Signature signature, String cid)
+            throws FilecoinRpcException {
 
         TransactionDTO transactionDTO = new TransactionDTO(transaction.getVersion(),
                 to,
@@ -124,7 +359,7 @@ public class NetworkService {
         log.info("Transaction getParams is {}", new String(transaction.getParams()));
 
 
-        var result = this.getJsonRpcHttpClient().invoke("Filecoin.MpoolPush",
+        var result = jsonRpcTransportService.invoke("Filecoin.MpoolPush",
                 new ArrayList<>() {{
                     add(
                             new HashMap() {{
@@ -144,37 +379,4 @@ public class NetworkService {
 
     }
 
-    /**
-     * Method to get json rpc http client
-     *
-     * @return JsonRpcHttpClient
-     */
-    @SneakyThrows
-    private JsonRpcHttpClient getJsonRpcHttpClient() {
-        JsonRpcHttpClient jsonRpcHttpClient = new JsonRpcHttpClient(new URL(clientHttpAddress));
-        jsonRpcHttpClient.setHeaders(new HashMap<>() {{
-            put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-        }});
-        jsonRpcHttpClient.setAdditionalJsonContent(new HashMap<>() {{
-            put("id", 1);
-        }});
-
-        // request and response listeners, you may add your custom logic
-        JsonRpcClient.RequestListener listener = new JsonRpcClient.RequestListener() {
-            @Override
-            public void onBeforeRequestSent(JsonRpcClient jsonRpcClient, ObjectNode objectNode) {
-                log.info("Request to filecoin network is: {}", objectNode.toPrettyString());
-            }
-
-            @Override
-            public void onBeforeResponseProcessed(JsonRpcClient jsonRpcClient, ObjectNode objectNode) {
-
-            }
-        };
-
-        jsonRpcHttpClient.setRequestListener(listener);
-
-        return jsonRpcHttpClient;
-    }
-
 }
@@ -0,0 +1,166 @@
+package com.poc.filecoin.service;
+
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service class handing out nonces per sender address from memory. The nonce of an address is seeded from
+ * Filecoin.MpoolGetNonce on first use, after that every send takes the next one under the monitor of the address,
+ * so concurrent sends from the same address never share a nonce and need no RPC. Nonces of failed sends are kept
+ * as gaps and handed out again before any new nonce, a sequence is never dropped since the message pool does not
+ * know about the nonces still in flight
+ *
+ * @author Vijay Pratap Singh
+ */
+@Service
+@Slf4j
+public class NonceSequencerService {
+
+    // errors of the lotus message pool that mean the nonce is already taken or out of sequence
+    private static final List<String> NONCE_ERRORS = Arrays.asList(
+            "message nonce too low",
+            "unfulfilled nonce gap",
+            "message with nonce already exists",
+            "replace by fee has too low GasPremium");
+
+    private NetworkService networkService;
+
+    private final ConcurrentHashMap<String, AddressNonce> nonces = new ConcurrentHashMap<>();
+
+    @Autowired
+    public void setNetworkService(NetworkService networkService) {
+        this.networkService = networkService;
+    }
+
+    /**
+     * Method to get the next nonce for an address
+     *
+     * @param address
+     * @return int
+     */
+    public int nextNonce(String address) {
+        return nonces.computeIfAbsent(address, key -> new AddressNonce()).next(address);
+    }
+
+    /**
+     * Method to give back a nonce that was not used because the send failed. The latest nonce is rolled back,
+     * any earlier one is kept as a gap and is the next nonce handed out
+     *
+     * @param address
+     * @param nonce
+     */
+    public void release(String address, int nonce) {
+        AddressNonce addressNonce = nonces.get(address);
+        if (addressNonce != null) {
+            addressNonce.release(nonce);
+        }
+    }
+
+    /**
+     * Method to handle a push rejected by the node, nonce errors mean the local sequence is out of sync with the
+     * message pool so the address is reseeded, any other error just gives the nonce back
+     *
+     * @param address
+     * @param nonce
+     * @param e
+     */
+    public void onPushRejected(String address, int nonce, Exception e) {
+        if (e instanceof FilecoinRpcException && isNonceError((FilecoinRpcException) e)) {
+            log.warn("Nonce {} of address {} rejected, resyncing: {}", nonce, address, e.getMessage());
+            AddressNonce addressNonce = nonces.get(address);
+            if (addressNonce != null) {
+                addressNonce.resync(address, nonce);
+            }
+        } else {
+            release(address, nonce);
+        }
+    }
+
+    /**
+     * Method to move the local sequence of an address forward to the message pool. Nonces handed out and not
+     * given back are kept, the sequence never moves back below them
+     *
+     * @param address
+     */
+    public void resync(String address) {
+        AddressNonce addressNonce = nonces.get(address);
+        if (addressNonce != null) {
+            addressNonce.resync(address, null);
+        }
+    }
+
+    private boolean isNonceError(FilecoinRpcException e) {
+        String message = e.getMessage();
+        return message != null && NONCE_ERRORS.stream().anyMatch(message::contains);
+    }
+
+    /**
+     * Nonce sequence of a single address, the nonces below next are either in flight, pushed or free gaps
+     */
+    private class AddressNonce {
+
+        private boolean seeded;
+        private int next;
+        private final TreeSet<Integer> gaps = new TreeSet<>();
+
+        synchronized int next(String address) {
+            if (!seeded) {
+                // only the first sender of the address pays for the RPC, the others wait for the seed
+                next = networkService.getNonceForAddress(address);
+                seeded = true;
+                log.info("Nonce for the address {} seeded with {}", address, next);
+            }
+            Integer gap = gaps.pollFirst();
+            return gap != null ? gap : next++;
+        }
+
+        synchronized void release(int nonce) {
+            if (!seeded || nonce >= next) {
+                return;
+            }
+            gaps.add(nonce);
+            // free nonces at the end of the sequence are rolled back instead of kept as gaps
+            while (!gaps.isEmpty() && gaps.last() == next - 1) {
+                next = gaps.pollLast();
+            }
+        }
+
+        /**
+         * Method to reseed from the message pool, nonces below the pool nonce are taken so their gaps are
+         * dropped. A rejected nonce the pool has not reached yet is given back. The pool nonce is fetched without
+         * holding the monitor, sends from the address go on during the round trip
+         *
+         * @param address
+         * @param rejectedNonce optional
+         */
+        void resync(String address, Integer rejectedNonce) {
+            synchronized (this) {
+                if (!seeded) {
+                    return;
+                }
+            }
+            int poolNonce = networkService.getNonceForAddress(address);
+            merge(address, poolNonce, rejectedNonce);
+        }
+
+        private synchronized void merge(String address, int poolNonce, Integer rejectedNonce) {
+            if (rejectedNonce != null && rejectedNonce >= poolNonce) {
+                release(rejectedNonce);
+            }
+            gaps.headSet(poolNonce).clear();
+            // nonces handed out during the round trip are kept, the sequence only moves forward
+            if (poolNonce > next) {
+                log.info("Nonce for the address {} moved from {} to {}", address, next, poolNonce);
+                next = poolNonce;
+            }
+        }
+    }
+
+}
@@ -1,18 +1,46 @@
 package com.poc.filecoin.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.poc.filecoin.config.PipelineMetrics;
 import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.enums.SignatureType;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinProtocolException;
+import com.poc.filecoin.model.BLSAggregateSignature;
 import com.poc.filecoin.model.BLSSignature;
 import com.poc.filecoin.model.ECDSASignature;
+import com.poc.filecoin.model.SECP256K1Signer;
 import com.poc.filecoin.model.Signature;
+import com.poc.filecoin.model.SignedMessage;
+import com.poc.filecoin.model.SignedTransaction;
 import com.poc.filecoin.model.Transaction;
+import com.poc.filecoin.model.UnsignedTransaction;
+import com.poc.filecoin.util.CborMessageEncoder;
 import com.poc.filecoin.util.UtilityService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service class for the signatures
@@ -23,6 +51,44 @@ import java.io.ByteArrayOutputStream;
 @Slf4j
 public class SignatureService {
 
+    @Value("${filecoin.signer.cache.max-size}")
+    private long signerCacheMaxSize = 10_000;
+
+    @Value("${filecoin.signer.cache.expire-after-access-ms}")
+    private long signerExpireAfterAccessMillis = 600_000;
+
+    // stages are timed on a private registry when no metrics are wired
+    @Autowired(required = false)
+    PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+    private Cache<String, SECP256K1Signer> secp256k1Signers;
+
+    /**
+     * Method to build the cache of secp256k1 signers keyed by sender, evicted signers have their keys zeroed
+     */
+    @PostConstruct
+    public void initSignerCache() {
+        if (signerCacheMaxSize <= 0) {
+            log.info("SECP256K1 signer cache is disabled");
+            return;
+        }
+        this.secp256k1Signers = CacheBuilder.newBuilder()
+                .maximumSize(signerCacheMaxSize)
+                .expireAfterAccess(Duration.ofMillis(signerExpireAfterAccessMillis))
+                .recordStats()
+                .removalListener((RemovalListener<String, SECP256K1Signer>) notification ->
+                        notification.getValue().destroy())
+                .build();
+        GuavaCacheMetrics.monitor(pipelineMetrics.getMeterRegistry(), secp256k1Signers, "filecoin.signer");
+    }
+
+    @PreDestroy
+    void destroySigners() {
+        if (secp256k1Signers != null) {
+            secp256k1Signers.invalidateAll();
+        }
+    }
+
     /**
      * Method to sign a transaction for filecoin network
      *
@@ -36,29 +102,349 @@ public class SignatureService {
 
         Signature signature;
 
-        ByteArrayOutputStream byteArrayOutputStream = UtilityService.marshalCBOR(transaction);
-        log.info("Byte array:");
-        byte[] byteArray = byteArrayOutputStream.toByteArray();
+        Timer.Sample sample = pipelineMetrics.start();
+        byte[] byteArray = CborMessageEncoder.encode(transaction);
+        sample.stop(pipelineMetrics.getCborTimer());
+        if (log.isDebugEnabled()) {
+            log.debug("Byte array: {}", UtilityService.toUnsignedString(byteArray));
+        }
 
-        System.out.print("[");
-        for (int i = 0; i < byteArrayOutputStream.size(); i++) {
-            System.out.print(Byte.toUnsignedInt(byteArray[i]) + " ");
+        signature = sign(byteArray, transaction.getFrom(), Hex.decodeHex(privateKey), filecoinProtocol);
+        if (log.isDebugEnabled()) {
+            log.debug("Transaction signature data  {}", Base64.encodeBase64String(signature.getSignatureBytes()));
         }
-        System.out.println("]");
+        return signature;
+    }
 
+    /**
+     * Method to sign a transaction into a message ready to be broadcast, together with its CBOR bytes and CIDs.
+     * The digest that gets signed is the message CID, so it is computed once for both
+     *
+     * @param privateKey
+     * @param transaction
+     * @param filecoinProtocol
+     * @return SignedMessage
+     */
+    @SneakyThrows
+    public SignedMessage signMessage(String privateKey, Transaction transaction, FilecoinProtocol filecoinProtocol) {
+        return signMessage(Hex.decodeHex(privateKey), transaction, filecoinProtocol);
+    }
 
-        var privateKeyBytes = privateKey.getBytes();
-        log.info("Private Key Byte Length: {}", privateKeyBytes.length);
+    /**
+     * Method to sign a transaction into a message ready to be broadcast with an already decoded private key
+     *
+     * @param privateKey
+     * @param transaction
+     * @param filecoinProtocol
+     * @return SignedMessage
+     */
+    public SignedMessage signMessage(byte[] privateKey, Transaction transaction, FilecoinProtocol filecoinProtocol) {
+        return signMessage(privateKey, transaction, filecoinProtocol, true);
+    }
 
+    /**
+     * Method to sign a transaction into a message ready to be broadcast with an already decoded private key.
+     * Without caching the secp256k1 signer is built for this message only and destroyed right after, for keys
+     * that must not stay on the heap such as the ones of the key store
+     *
+     * @param privateKey
+     * @param transaction
+     * @param filecoinProtocol
+     * @param cacheSigner
+     * @return SignedMessage
+     */
+    @SneakyThrows
+    public SignedMessage signMessage(byte[] privateKey, Transaction transaction, FilecoinProtocol filecoinProtocol,
+                                     boolean cacheSigner) {
+
+        Timer.Sample sample = pipelineMetrics.start();
+        byte[] messageCbor = CborMessageEncoder.encode(transaction);
+        sample.stop(pipelineMetrics.getCborTimer());
+
+        sample = pipelineMetrics.start();
+        byte[] messageCid = UtilityService.getDigest(messageCbor);
+        sample.stop(pipelineMetrics.getDigestTimer());
+
+        Signature signature = signDigest(messageCid, transaction.getFrom(), privateKey, filecoinProtocol,
+                cacheSigner);
+
+        byte[] signedMessageCbor = CborMessageEncoder.encodeSignedMessage(messageCbor,
+                signature.getSignatureType().getValue(), signature.getSignatureBytes());
+        // BLS messages are identified by the unsigned message, the signature is carried in the block aggregate
+        byte[] cid = signature.getSignatureType() == SignatureType.BLS
+                ? messageCid : UtilityService.getDigest(signedMessageCbor);
+        return new SignedMessage(transaction, signature, messageCbor, signedMessageCbor, messageCid, cid);
+    }
+
+    /**
+     * Method to sign a batch of transactions offline. Every distinct private key is decoded once for the batch,
+     * the CBOR, digest and sign steps run in parallel and the signatures are returned in the order of the batch
+     *
+     * @param unsignedTransactions
+     * @return List of Signature
+     */
+    @SneakyThrows
+    public List<Signature> signTransactions(List<UnsignedTransaction> unsignedTransactions) {
+
+        // decoding each private key once per batch
+        Map<String, byte[]> privateKeys = new HashMap<>();
+        for (UnsignedTransaction unsignedTransaction : unsignedTransactions) {
+            if (!privateKeys.containsKey(unsignedTransaction.getPrivateKey())) {
+                privateKeys.put(unsignedTransaction.getPrivateKey(), Hex.decodeHex(unsignedTransaction.getPrivateKey()));
+            }
+        }
+
+        // ordered parallel stream, so the signatures keep the order of the transactions
+        return unsignedTransactions.parallelStream()
+                .map(unsignedTransaction -> sign(unsignedTransaction.getTransaction(),
+                        privateKeys.get(unsignedTransaction.getPrivateKey()),
+                        unsignedTransaction.getFilecoinProtocol()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Method to sign a batch of transactions with one or more BLS keys and aggregate the signatures,
+     * verifiers can check the single aggregate instead of every signature
+     *
+     * @param unsignedTransactions
+     * @return BLSAggregateSignature
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinProtocolException
+     */
+    @SneakyThrows
+    public BLSAggregateSignature signAndAggregateBLS(List<UnsignedTransaction> unsignedTransactions) {
+
+        if (unsignedTransactions.isEmpty()) {
+            throw new InvalidFilecoinException("At least one transaction is required for aggregation");
+        }
+        for (UnsignedTransaction unsignedTransaction : unsignedTransactions) {
+            if (unsignedTransaction.getFilecoinProtocol() != FilecoinProtocol.BLS) {
+                throw new InvalidFilecoinProtocolException("Only BLS signatures can be aggregated");
+            }
+        }
+        List<BLSSignature> signatures = signTransactions(unsignedTransactions).stream()
+                .map(signature -> (BLSSignature) signature)
+                .collect(Collectors.toList());
+        return BLSSignature.aggregate(signatures);
+    }
+
+    /**
+     * Method to verify an aggregate BLS signature over a batch of transactions, the public key of every signer is
+     * the payload of the BLS from address of its transaction
+     *
+     * @param transactions
+     * @param aggregateSignature
+     * @return boolean
+     */
+    @SneakyThrows
+    public boolean verifyBLSAggregate(List<Transaction> transactions, byte[] aggregateSignature) {
+
+        List<byte[]> publicKeys = new ArrayList<>(transactions.size());
+        List<byte[]> cborTransactions = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            byte[] from = transaction.getFrom();
+            if (from.length == 0 || from[0] != (byte) FilecoinProtocol.BLS.getValue()) {
+                throw new InvalidFilecoinProtocolException("Only transactions from BLS addresses can be verified");
+            }
+            publicKeys.add(Arrays.copyOfRange(from, 1, from.length));
+            cborTransactions.add(CborMessageEncoder.encode(transaction));
+        }
+        return BLSSignature.aggregateVerify(publicKeys, cborTransactions, aggregateSignature);
+    }
+
+    /**
+     * Method to verify the signature of a transaction against its sender, SECP256K1 signatures are checked by
+     * recovering the public key of the signer and BLS signatures against the public key in the sender address
+     *
+     * @param transaction
+     * @param signature
+     * @return boolean
+     */
+    public boolean verifySignature(Transaction transaction, Signature signature) {
+        return verify(digest(transaction), transaction.getFrom(), signature);
+    }
+
+    /**
+     * Method to verify the signatures of many transactions at once, in parallel. All the BLS signatures are
+     * checked together with one batch verification, only when the batch fails every BLS signature is checked
+     * on its own to find the invalid ones
+     *
+     * @param signedTransactions
+     * @return List of Boolean in the order of the transactions
+     */
+    public List<Boolean> verifySignatures(List<SignedTransaction> signedTransactions) {
+
+        // digests of all the transactions, marshalled and hashed in parallel
+        List<byte[]> digests = signedTransactions.parallelStream()
+                .map(signedTransaction -> digest(signedTransaction.getTransaction()))
+                .collect(Collectors.toList());
+
+        Boolean[] results = new Boolean[signedTransactions.size()];
+        List<Integer> blsIndexes = new ArrayList<>();
+        for (int i = 0; i < signedTransactions.size(); i++) {
+            SignedTransaction signedTransaction = signedTransactions.get(i);
+            if (signedTransaction.getSignature().getSignatureType() == SignatureType.BLS
+                    && isFrom(signedTransaction.getTransaction(), FilecoinProtocol.BLS)) {
+                blsIndexes.add(i);
+            }
+        }
+
+        // one multi-pairing for all the BLS signatures
+        if (!blsIndexes.isEmpty()) {
+            List<byte[]> publicKeys = new ArrayList<>(blsIndexes.size());
+            List<byte[]> blsDigests = new ArrayList<>(blsIndexes.size());
+            List<byte[]> blsSignatures = new ArrayList<>(blsIndexes.size());
+            for (int i : blsIndexes) {
+                byte[] from = signedTransactions.get(i).getTransaction().getFrom();
+                publicKeys.add(Arrays.copyOfRange(from, 1, from.length));
+                blsDigests.add(digests.get(i));
+                blsSignatures.add(signedTransactions.get(i).getSignature().getSignatureBytes());
+            }
+            if (BLSSignature.batchVerify(publicKeys, blsDigests, blsSignatures)) {
+                blsIndexes.forEach(i -> results[i] = Boolean.TRUE);
+            }
+        }
+
+        // every signature not settled by the batch is checked on its own
+        IntStream.range(0, results.length)
+                .parallel()
+                .filter(i -> results[i] == null)
+                .forEach(i -> results[i] = verify(digests.get(i), signedTransactions.get(i).getTransaction().getFrom(),
+                        signedTransactions.get(i).getSignature()));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Method to verify a signature over a transaction digest against the sender address bytes
+     *
+     * @param digest
+     * @param from
+     * @param signature
+     * @return boolean
+     */
+    private boolean verify(byte[] digest, byte[] from, Signature signature) {
+        if (from.length < 2) {
+            return false;
+        }
+        byte[] payload = Arrays.copyOfRange(from, 1, from.length);
+        if (signature.getSignatureType() == SignatureType.ECDSA && from[0] == (byte) FilecoinProtocol.SECP256K1.getValue()) {
+            return ECDSASignature.verify(digest, signature.getSignatureBytes(), payload);
+        } else if (signature.getSignatureType() == SignatureType.BLS && from[0] == (byte) FilecoinProtocol.BLS.getValue()) {
+            return BLSSignature.verify(digest, signature.getSignatureBytes(), payload);
+        }
+        // signature type does not match the sender protocol
+        return false;
+    }
+
+    @SneakyThrows
+    private byte[] digest(Transaction transaction) {
+        return UtilityService.getDigest(CborMessageEncoder.encode(transaction));
+    }
+
+    private boolean isFrom(Transaction transaction, FilecoinProtocol filecoinProtocol) {
+        byte[] from = transaction.getFrom();
+        return from.length > 1 && from[0] == (byte) filecoinProtocol.getValue();
+    }
+
+    /**
+     * Method to marshal and sign a transaction with a decoded private key
+     *
+     * @param transaction
+     * @param privateKeyBytes
+     * @param filecoinProtocol
+     * @return Signature
+     */
+    @SneakyThrows
+    private Signature sign(Transaction transaction, byte[] privateKeyBytes, FilecoinProtocol filecoinProtocol) {
+        return sign(CborMessageEncoder.encode(transaction), transaction.getFrom(), privateKeyBytes, filecoinProtocol);
+    }
+
+    /**
+     * Method to sign marshalled CBOR bytes of a transaction with a decoded private key
+     *
+     * @param cborBytes
+     * @param from
+     * @param privateKeyBytes
+     * @param filecoinProtocol
+     * @return Signature
+     */
+    private Signature sign(byte[] cborBytes, byte[] from, byte[] privateKeyBytes, FilecoinProtocol filecoinProtocol) {
+        Timer.Sample sample = pipelineMetrics.start();
+        byte[] digest = UtilityService.getDigest(cborBytes);
+        sample.stop(pipelineMetrics.getDigestTimer());
+        return signDigest(digest, from, privateKeyBytes, filecoinProtocol, true);
+    }
+
+    /**
+     * Method to sign the digest of a transaction with a decoded private key
+     *
+     * @param digest
+     * @param from
+     * @param privateKeyBytes
+     * @param filecoinProtocol
+     * @param cacheSigner
+     * @return Signature
+     */
+    private Signature signDigest(byte[] digest, byte[] from, byte[] privateKeyBytes, FilecoinProtocol filecoinProtocol,
+                                 boolean cacheSigner) {
+        Timer.Sample sample = pipelineMetrics.start();
+        Signature signature;
         if (filecoinProtocol.equals(FilecoinProtocol.SECP256K1)) {
             //  SECP256K1 Address
-            signature = new ECDSASignature(byteArrayOutputStream.toByteArray(), Hex.decodeHex(privateKey));
+            signature = signECDSA(digest, from, privateKeyBytes, cacheSigner);
         } else {
             //  BLS Address
-            signature = new BLSSignature(byteArrayOutputStream.toByteArray(), Hex.decodeHex(privateKey));
+            signature = BLSSignature.signDigest(digest, privateKeyBytes);
+        }
+        sample.stop(pipelineMetrics.getSignTimer(signature.getSignatureType()));
+        return signature;
+    }
+
+    /**
+     * Method to sign a digest with the cached signer of the sender, or with a one-off signer when caching is
+     * disabled or not wanted
+     *
+     * @param digest
+     * @param from
+     * @param privateKeyBytes
+     * @param cacheSigner
+     * @return ECDSASignature
+     */
+    private ECDSASignature signECDSA(byte[] digest, byte[] from, byte[] privateKeyBytes, boolean cacheSigner) {
+        if (!cacheSigner || secp256k1Signers == null) {
+            SECP256K1Signer signer = new SECP256K1Signer(privateKeyBytes);
+            try {
+                return signer.trySignDigest(digest);
+            } finally {
+                signer.destroy();
+            }
         }
-        log.info("Transaction signature data  {}", Base64.encodeBase64String(signature.getSignatureBytes()));
+        // a signer evicted between lookup and signing is destroyed, so a fresh one is looked up again
+        ECDSASignature signature;
+        do {
+            signature = getSigner(from, privateKeyBytes).trySignDigest(digest);
+        } while (signature == null);
         return signature;
     }
 
+    /**
+     * Method to get the cached signer of a sender, a signer is built and cached when there is none yet or the
+     * cached one holds a different key than the one supplied
+     *
+     * @param from
+     * @param privateKeyBytes
+     * @return SECP256K1Signer
+     */
+    private SECP256K1Signer getSigner(byte[] from, byte[] privateKeyBytes) {
+        // one char per byte, a cheap key that is unique for every sender
+        String sender = new String(from, StandardCharsets.ISO_8859_1);
+        SECP256K1Signer signer = secp256k1Signers.getIfPresent(sender);
+        if (signer != null && signer.matches(privateKeyBytes)) {
+            return signer;
+        }
+        signer = new SECP256K1Signer(privateKeyBytes);
+        secp256k1Signers.put(sender, signer);
+        return signer;
+    }
+
 }
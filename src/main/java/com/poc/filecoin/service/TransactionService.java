@@ -1,15 +1,51 @@
 package com.poc.filecoin.service;
 
+import com.poc.filecoin.config.PipelineExecutors;
+import com.poc.filecoin.config.PipelineMetrics;
+import com.poc.filecoin.dto.BLSAggregateResponseDTO;
+import com.poc.filecoin.dto.OfflineSignRequestDTO;
+import com.poc.filecoin.dto.OfflineSignResponseDTO;
+import com.poc.filecoin.dto.SignRequestDTO;
+import com.poc.filecoin.dto.SignatureDTO;
+import com.poc.filecoin.dto.SignedMessageDTO;
+import com.poc.filecoin.dto.TransactionDTO;
+import com.poc.filecoin.dto.TransactionResponseDTO;
+import com.poc.filecoin.dto.TransactionSendResponseDTO;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.enums.SignatureType;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import com.poc.filecoin.exceptions.InvalidFilecoinAddressException;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinNetworkException;
 import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAggregateSignature;
+import com.poc.filecoin.model.BLSSignature;
+import com.poc.filecoin.model.ECDSASignature;
 import com.poc.filecoin.model.Signature;
+import com.poc.filecoin.model.SignedMessage;
+import com.poc.filecoin.model.SignedTransaction;
 import com.poc.filecoin.model.Transaction;
+import com.poc.filecoin.model.UnsignedTransaction;
+import com.poc.filecoin.util.UtilityService;
 import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Timer;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 
 /**
  * Service class for filecoin transaction
@@ -41,11 +77,46 @@ public class TransactionService {
 
     private NetworkService networkService;
 
+    private NonceSequencerService nonceSequencerService;
+
+    private PipelineExecutors pipelineExecutors;
+
+    private PipelineMetrics pipelineMetrics;
+
+    private KeyStoreService keyStoreService;
+
+    private AddressResolverService addressResolverService;
+
+    @Autowired
+    public void setAddressResolverService(AddressResolverService addressResolverService) {
+        this.addressResolverService = addressResolverService;
+    }
+
+    @Autowired
+    public void setKeyStoreService(KeyStoreService keyStoreService) {
+        this.keyStoreService = keyStoreService;
+    }
+
+    @Autowired
+    public void setPipelineMetrics(PipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
     @Autowired
     public void setNetworkService(NetworkService networkService) {
         this.networkService = networkService;
     }
 
+    @Autowired
+    public void setPipelineExecutors(PipelineExecutors pipelineExecutors) {
+        this.pipelineExecutors = pipelineExecutors;
+    }
+
+    @Autowired
+    public void setNonceSequencerService(NonceSequencerService nonceSequencerService) {
+        this.nonceSequencerService = nonceSequencerService;
+    }
+
     @Autowired
     public void setSignatureService(SignatureService signatureService) {
         this.signatureService = signatureService;
@@ -57,31 +128,234 @@ public class TransactionService {
     }
 
     /**
-     * Method to sign and send a transaction on filecoin network
+     * Method to sign and send a transaction on filecoin network. The message and signed message CIDs are
+     * computed locally from the CBOR bytes and returned with the push result. Without a private key the
+     * transaction is signed with the stored key of the sender, found by key id or by the from address. With
+     * compact-to-id enabled the message carries the ID addresses of sender and receiver when they are final
      *
-     * @param privateKey
+     * @param privateKey hex encoded private key, optional
+     * @param keyId key store id, optional
      * @param from
      * @param to
      * @param message
      * @param value
-     * @return JsonNode
+     * @return TransactionSendResponseDTO
+     * @throws FilecoinRpcException
      */
-    public JsonNode signAndSendTransaction(String privateKey, String from, String to, String message, String value) {
+    public TransactionSendResponseDTO signAndSendTransaction(String privateKey, Integer keyId, String from, String to,
+                                                             String message, String value)
+            throws FilecoinRpcException {
 
         log.info("Method signAndSendTransaction invoked from address {} to {}", from, to);
 
         // Decoding from address and toAddress
+        Timer.Sample sample = pipelineMetrics.start();
         Address fromAddress = addressService.decode(from);
         Address toAddress = addressService.decode(to);
-        // getting nonce for the address
-        int nonce = networkService.getNonceForAddress(from);
+        checkSender(fromAddress);
+        sample.stop(pipelineMetrics.getDecodeTimer());
+        // getting nonce for the address from the local sequence
+        sample = pipelineMetrics.start();
+        int nonce = nonceSequencerService.nextNonce(from);
+        sample.stop(pipelineMetrics.getNonceTimer());
         log.info("Nonce for the address {} is {}", from, nonce);
 
+        TransactionSendResponseDTO transactionResponse;
+        try {
+            // initializing transaction, the key address of the sender is still the one that signs
+            Address messageFrom = addressResolverService.compact(fromAddress);
+            Address messageTo = addressResolverService.compact(toAddress);
+            Transaction transaction = newTransaction(messageFrom, messageTo, nonce, message, value);
+
+            // sign transaction, the CIDs come out of the same CBOR bytes
+            SignedMessage signedMessage = signMessage(privateKey, keyId, fromAddress, transaction);
+            log.info("Transaction signed successfully");
+
+            // send the transaction
+            transactionResponse = push(signedMessage, addressService.encode(messageFrom),
+                    addressService.encode(messageTo));
+            log.info("Transaction sent successfully with CID {}", transactionResponse.getCid());
+        } catch (Exception e) {
+            // nonce was not used, giving it back or resyncing the address
+            nonceSequencerService.onPushRejected(from, nonce, e);
+            throw e;
+        }
+
+        return transactionResponse;
+
+    }
+
+    /**
+     * Method to sign and send a transaction asynchronously. The nonce lookup runs on the rpc executor while
+     * the addresses are decoded and the transaction is signed on the signing executor, the request thread is
+     * not blocked on any of the network round trips
+     *
+     * @param privateKey hex encoded private key, optional
+     * @param keyId key store id, optional
+     * @param from
+     * @param to
+     * @param message
+     * @param value
+     * @return CompletableFuture of TransactionSendResponseDTO
+     */
+    public CompletableFuture<TransactionSendResponseDTO> signAndSendTransactionAsync(String privateKey, Integer keyId,
+                                                                                     String from, String to,
+                                                                                     String message, String value) {
+        return signAndSendTransactionAsync(privateKey, keyId, from, to, message, value, signedMessage -> {
+        });
+    }
+
+    /**
+     * Method to sign and send a transaction asynchronously, handing the signed message to the caller right before
+     * it is pushed. The nonce and the CID of a message are only known once it is signed, so this is the last
+     * point at which a caller can record them before the message may reach the network
+     *
+     * @param privateKey hex encoded private key, optional
+     * @param keyId key store id, optional
+     * @param from
+     * @param to
+     * @param message
+     * @param value
+     * @param beforePush called on the rpc executor, the message is not pushed when it throws
+     * @return CompletableFuture of TransactionSendResponseDTO
+     */
+    public CompletableFuture<TransactionSendResponseDTO> signAndSendTransactionAsync(String privateKey, Integer keyId,
+                                                                                     String from, String to,
+                                                                                     String message, String value,
+                                                                                     Consumer<SignedMessage> beforePush) {
+
+        log.info("Method signAndSendTransactionAsync invoked from address {} to {}", from, to);
+
+        ExecutorService signingExecutor = pipelineExecutors.getSigningExecutor();
+        ExecutorService rpcExecutor = pipelineExecutors.getRpcExecutor();
+
+        // network lookup, started first so it overlaps with the CPU work
+        CompletableFuture<Integer> nonceFuture;
+        try {
+            nonceFuture = CompletableFuture.supplyAsync(() -> pipelineMetrics.getNonceTimer()
+                    .record(() -> nonceSequencerService.nextNonce(from)), rpcExecutor);
+        } catch (RejectedExecutionException e) {
+            // later stages handed to a full rpc executor fail their future the same way
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // decoding from address and to address
+        CompletableFuture<Address[]> addressesFuture = CompletableFuture.supplyAsync(
+                () -> pipelineMetrics.getDecodeTimer().record(() -> {
+                    Address fromAddress = addressService.decode(from);
+                    checkSender(fromAddress);
+                    return new Address[]{fromAddress, addressService.decode(to)};
+                }), signingExecutor);
+
+        // addresses put in the message, resolving them may need the node so it overlaps with the nonce lookup
+        CompletableFuture<Address[]> messageAddressesFuture = addressesFuture.thenApplyAsync(
+                addresses -> new Address[]{addressResolverService.compact(addresses[0]),
+                        addressResolverService.compact(addresses[1])}, rpcExecutor);
+
+        CompletableFuture<TransactionSendResponseDTO> responseFuture = messageAddressesFuture
+                .thenCombine(nonceFuture, (addresses, nonce) -> new UnsignedTransaction(privateKey,
+                        newTransaction(addresses[0], addresses[1], nonce, message, value),
+                        addressesFuture.join()[0].getFilecoinProtocol()))
+                // the key address of the sender signs, it is already decoded once the transaction is built
+                .thenApplyAsync(unsignedTransaction -> signMessage(unsignedTransaction.getPrivateKey(), keyId,
+                        addressesFuture.join()[0], unsignedTransaction.getTransaction()), signingExecutor)
+                .thenApplyAsync(signedMessage -> {
+                    beforePush.accept(signedMessage);
+                    return push(signedMessage,
+                            addressService.encode(messageAddressesFuture.join()[0]),
+                            addressService.encode(messageAddressesFuture.join()[1]));
+                }, rpcExecutor);
+
+        return responseFuture.whenComplete((transactionResponse, throwable) -> {
+            if (throwable == null) {
+                log.info("Transaction sent successfully with CID {}", transactionResponse.getCid());
+                return;
+            }
+            // nonce was not used, giving it back or resyncing the address once it is known
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            Exception exception = cause instanceof Exception ? (Exception) cause : new Exception(cause);
+            nonceFuture.thenAccept(nonce -> nonceSequencerService.onPushRejected(from, nonce, exception));
+        });
+    }
+
+    /**
+     * Method to check that the sender is a key address, ID and actor addresses have no key to sign with
+     *
+     * @param fromAddress
+     * @throws InvalidFilecoinAddressException
+     */
+    @SneakyThrows
+    private void checkSender(Address fromAddress) {
+        if (fromAddress.getFilecoinProtocol() != FilecoinProtocol.SECP256K1
+                && fromAddress.getFilecoinProtocol() != FilecoinProtocol.BLS) {
+            throw new InvalidFilecoinAddressException("Messages can only be sent from a SECP256K1 or BLS address");
+        }
+    }
+
+    /**
+     * Method to sign a transaction with the given private key, or with the stored key of the sender when no
+     * private key is given. The copy of a stored key and its signer are zeroed right after signing
+     *
+     * @param privateKey
+     * @param keyId
+     * @param fromAddress
+     * @param transaction
+     * @return SignedMessage
+     */
+    private SignedMessage signMessage(String privateKey, Integer keyId, Address fromAddress, Transaction transaction) {
+        if (privateKey != null && !privateKey.isEmpty()) {
+            return signatureService.signMessage(privateKey, transaction, fromAddress.getFilecoinProtocol());
+        }
+        byte[] storedKey = keyStoreService.getPrivateKey(fromAddress, keyId);
+        try {
+            // stored keys stay off the heap, so their signer is not cached either
+            return signatureService.signMessage(storedKey, transaction, fromAddress.getFilecoinProtocol(), false);
+        } finally {
+            Arrays.fill(storedKey, (byte) 0);
+        }
+    }
+
+    /**
+     * Method to push a signed message to the mempool with its locally computed CID, timed by outcome
+     *
+     * @param signedMessage
+     * @param from
+     * @param to
+     * @return TransactionSendResponseDTO
+     * @throws FilecoinRpcException
+     */
+    @SneakyThrows
+    private TransactionSendResponseDTO push(SignedMessage signedMessage, String from, String to) {
+        String cid = UtilityService.toCidString(signedMessage.getCid());
+        Timer.Sample sample = pipelineMetrics.start();
+        boolean success = false;
+        try {
+            JsonNode result = networkService.sendTransaction(signedMessage.getTransaction(), from, to,
+                    signedMessage.getSignature(), cid);
+            success = true;
+            return new TransactionSendResponseDTO(result, cid,
+                    UtilityService.toCidString(signedMessage.getMessageCid()));
+        } finally {
+            sample.stop(pipelineMetrics.getPushTimer(success));
+        }
+    }
+
+    /**
+     * Method to initialize a transaction of the given value and message with the configured gas and method
+     *
+     * @param fromAddress
+     * @param toAddress
+     * @param nonce
+     * @param message
+     * @param value
+     * @return Transaction
+     */
+    private Transaction newTransaction(Address fromAddress, Address toAddress, int nonce, String message,
+                                       String value) {
         byte[] params = Base64.encodeBase64(message.getBytes());
         log.info("Encoded message: {}", params);
 
-        // initializing transaction
-        Transaction transaction = new Transaction(MESSAGE_SIGN_VERSION,
+        return new Transaction(MESSAGE_SIGN_VERSION,
                 toAddress.getAddress(),
                 fromAddress.getAddress(),
                 nonce,
@@ -91,22 +365,214 @@ public class TransactionService {
                 GAS_PREMIUM,
                 SIGN_METHOD,
                 params);
+    }
+
+    /**
+     * Method to sign a batch of pre-built messages offline, no network access is needed
+     *
+     * @param signRequests
+     * @return List of TransactionResponseDTO in the order of the requests
+     */
+    public List<TransactionResponseDTO> signTransactions(List<SignRequestDTO> signRequests) {
 
-        // sign transaction
-        Signature signature = signatureService.signTransaction(privateKey, transaction, fromAddress.getFilecoinProtocol());
-        log.info("Transaction signed successfully");
+        log.info("Method signTransactions invoked for {} messages", signRequests.size());
 
-        // get cid for sending the transaction
-        String cid = networkService.getChainHead();
-        log.info("Obtained CID is : {}", cid);
+        // decoding the addresses of every message and mapping it to a transaction
+        List<UnsignedTransaction> unsignedTransactions = toUnsignedTransactions(signRequests);
 
+        // signing all the transactions and mapping the signatures to DTO
+        return signatureService.signTransactions(unsignedTransactions).stream()
+                .map(this::toTransactionResponseDTO)
+                .collect(Collectors.toList());
+    }
 
-        // send the transaction
-        JsonNode transactionResponse = networkService.sendTransaction(transaction, from, to, signature, cid);
-        log.info("Transaction sent successfully");
+    /**
+     * Method to sign a batch of pre-built messages with BLS keys and aggregate their signatures
+     *
+     * @param signRequests
+     * @return BLSAggregateResponseDTO
+     */
+    public BLSAggregateResponseDTO signAndAggregateBLS(List<SignRequestDTO> signRequests) {
 
-        return transactionResponse;
+        log.info("Method signAndAggregateBLS invoked for {} messages", signRequests.size());
+
+        BLSAggregateSignature aggregateSignature =
+                signatureService.signAndAggregateBLS(toUnsignedTransactions(signRequests));
+        List<TransactionResponseDTO> signatures = aggregateSignature.getSignatures().stream()
+                .map(this::toTransactionResponseDTO)
+                .collect(Collectors.toList());
+        return new BLSAggregateResponseDTO(signatures, toTransactionResponseDTO(aggregateSignature));
+    }
+
+    /**
+     * Method to verify an aggregate BLS signature over a batch of messages
+     *
+     * @param messages
+     * @param aggregateSignature base64 encoded aggregate signature
+     * @return boolean
+     */
+    public boolean verifyBLSAggregate(List<TransactionDTO> messages, String aggregateSignature) {
+        List<Transaction> transactions = messages.parallelStream()
+                .map(message -> toTransaction(message, addressService.decode(message.getFrom()),
+                        addressService.decode(message.getTo())))
+                .collect(Collectors.toList());
+        return signatureService.verifyBLSAggregate(transactions, Base64.decodeBase64(aggregateSignature));
+    }
+
+    /**
+     * Method to sign a fully specified message without any network access. The caller supplies the network,
+     * nonce and gas, the result can be broadcast later by any node
+     *
+     * @param signRequest
+     * @return OfflineSignResponseDTO
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinNetworkException
+     */
+    @SneakyThrows
+    public OfflineSignResponseDTO signOffline(OfflineSignRequestDTO signRequest) {
+        TransactionDTO message = signRequest.getMessage();
+        if (message == null || signRequest.getNetwork() == null) {
+            throw new InvalidFilecoinException("Offline signing requires a network and a message");
+        }
+        Address fromAddress = addressService.decode(message.getFrom());
+        Address toAddress = addressService.decode(message.getTo());
+        // addresses carry their network, so they must agree with the one the message is meant for
+        if (fromAddress.getFilecoinNetwork() != signRequest.getNetwork()
+                || toAddress.getFilecoinNetwork() != signRequest.getNetwork()) {
+            throw new InvalidFilecoinNetworkException("Message addresses do not belong to network "
+                    + signRequest.getNetwork());
+        }
+        SignedMessage signedMessage = signatureService.signMessage(signRequest.getPrivateKey(),
+                toTransaction(message, fromAddress, toAddress), fromAddress.getFilecoinProtocol());
+
+        Signature signature = signedMessage.getSignature();
+        return new OfflineSignResponseDTO(new SignedMessageDTO(message,
+                new SignatureDTO(signature.getSignatureType().getValue(),
+                        Base64.encodeBase64String(signature.getSignatureBytes()))),
+                UtilityService.toCidString(signedMessage.getCid()),
+                UtilityService.toCidString(signedMessage.getMessageCid()),
+                Hex.encodeHexString(signedMessage.getSignedMessageCbor()));
+    }
+
+    /**
+     * Method to sign a batch of fully specified messages without any network access, in parallel
+     *
+     * @param signRequests
+     * @return List of OfflineSignResponseDTO in the order of the requests
+     */
+    public List<OfflineSignResponseDTO> signOfflineBatch(List<OfflineSignRequestDTO> signRequests) {
+
+        log.info("Method signOfflineBatch invoked for {} messages", signRequests.size());
 
+        return signRequests.parallelStream()
+                .map(this::signOffline)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Method to verify the signature of a signed message against its sender
+     *
+     * @param signedMessage
+     * @return boolean
+     */
+    public boolean verifySignedMessage(SignedMessageDTO signedMessage) {
+        SignedTransaction signedTransaction = toSignedTransaction(signedMessage);
+        return signatureService.verifySignature(signedTransaction.getTransaction(), signedTransaction.getSignature());
+    }
+
+    /**
+     * Method to verify the signatures of a batch of signed messages
+     *
+     * @param signedMessages
+     * @return List of Boolean in the order of the messages
+     */
+    public List<Boolean> verifySignedMessages(List<SignedMessageDTO> signedMessages) {
+
+        log.info("Method verifySignedMessages invoked for {} messages", signedMessages.size());
+
+        List<SignedTransaction> signedTransactions = signedMessages.parallelStream()
+                .map(this::toSignedTransaction)
+                .collect(Collectors.toList());
+        return signatureService.verifySignatures(signedTransactions);
+    }
+
+    /**
+     * Method to map a signed message DTO to a transaction with its signature
+     *
+     * @param signedMessage
+     * @return SignedTransaction
+     * @throws InvalidFilecoinException
+     */
+    @SneakyThrows
+    private SignedTransaction toSignedTransaction(SignedMessageDTO signedMessage) {
+        TransactionDTO message = signedMessage.getMessage();
+        SignatureDTO signatureDTO = signedMessage.getSignature();
+        if (message == null || signatureDTO == null || signatureDTO.getData() == null) {
+            throw new InvalidFilecoinException("Signed message requires a message and a signature");
+        }
+        Transaction transaction = toTransaction(message, addressService.decode(message.getFrom()),
+                addressService.decode(message.getTo()));
+        byte[] signatureBytes = Base64.decodeBase64(signatureDTO.getData());
+        Signature signature;
+        if (signatureDTO.getType() == SignatureType.ECDSA.getValue()) {
+            signature = new ECDSASignature(signatureBytes);
+        } else if (signatureDTO.getType() == SignatureType.BLS.getValue()) {
+            signature = new BLSSignature(signatureBytes);
+        } else {
+            throw new InvalidFilecoinException("Invalid signature type " + signatureDTO.getType());
+        }
+        return new SignedTransaction(transaction, signature);
+    }
+
+    /**
+     * Method to decode the addresses of signing requests and map them to unsigned transactions, in order
+     *
+     * @param signRequests
+     * @return List of UnsignedTransaction
+     */
+    private List<UnsignedTransaction> toUnsignedTransactions(List<SignRequestDTO> signRequests) {
+        return signRequests.parallelStream()
+                .map(signRequest -> {
+                    TransactionDTO message = signRequest.getMessage();
+                    Address fromAddress = addressService.decode(message.getFrom());
+                    Address toAddress = addressService.decode(message.getTo());
+                    return new UnsignedTransaction(signRequest.getPrivateKey(),
+                            toTransaction(message, fromAddress, toAddress),
+                            fromAddress.getFilecoinProtocol());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Method to map a message DTO to a transaction with decoded addresses
+     *
+     * @param message
+     * @param fromAddress
+     * @param toAddress
+     * @return Transaction
+     */
+    private Transaction toTransaction(TransactionDTO message, Address fromAddress, Address toAddress) {
+        return new Transaction(message.getVersion(),
+                toAddress.getAddress(),
+                fromAddress.getAddress(),
+                message.getNonce(),
+                message.getValue(),
+                message.getGasLimit(),
+                message.getGasFeeCap(),
+                message.getGasPremium(),
+                message.getMethod(),
+                message.getParams() == null ? new byte[0] : message.getParams().getBytes());
+    }
+
+    /**
+     * Method to map a signature to DTO
+     *
+     * @param signature
+     * @return TransactionResponseDTO
+     */
+    private TransactionResponseDTO toTransactionResponseDTO(Signature signature) {
+        return new TransactionResponseDTO(signature.getSignatureType().getValue(),
+                Base64.encodeBase64String(signature.getSignatureBytes()));
     }
 
 
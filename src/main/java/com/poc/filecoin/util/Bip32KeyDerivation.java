@@ -0,0 +1,194 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinPrivateKeyException;
+import com.poc.filecoin.model.ExtendedKey;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * BIP32 derivation of secp256k1 keys. Filecoin wallets follow BIP44 with coin type 461, so the address at
+ * index i of an account lives at m/44'/461'/account'/0/i
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class Bip32KeyDerivation {
+
+    public static final int HARDENED_OFFSET = 0x80000000;
+    public static final int FILECOIN_COIN_TYPE = 461;
+    private static final int KEY_LENGTH = 32;
+    private static final byte[] MASTER_KEY = "Bitcoin seed".getBytes(StandardCharsets.US_ASCII);
+    private static final X9ECParameters CURVE = CustomNamedCurves.getByName("secp256k1");
+    private static final ThreadLocal<Mac> HMAC_SHA512 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA512");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private Bip32KeyDerivation() {
+    }
+
+    /**
+     * Method to get the BIP44 path of a filecoin address
+     *
+     * @param account
+     * @param index
+     * @return String
+     */
+    public static String filecoinPath(int account, int index) {
+        return accountPath(account) + "/" + index;
+    }
+
+    /**
+     * Method to get the BIP44 path of the external chain of a filecoin account, the parent of its addresses
+     *
+     * @param account
+     * @return String
+     */
+    public static String accountPath(int account) {
+        return "m/44'/" + FILECOIN_COIN_TYPE + "'/" + account + "'/0";
+    }
+
+    /**
+     * Method to derive the master node from a seed
+     *
+     * @param seed
+     * @return ExtendedKey
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinPrivateKeyException
+     */
+    public static ExtendedKey master(byte[] seed)
+            throws InvalidFilecoinException, InvalidFilecoinPrivateKeyException {
+        if (seed.length < 16 || seed.length > 64) {
+            throw new InvalidFilecoinException("Seed should be between 16 and 64 bytes");
+        }
+        byte[] i = hmacSha512(MASTER_KEY, seed);
+        BigInteger k = new BigInteger(1, Arrays.copyOfRange(i, 0, KEY_LENGTH));
+        if (k.signum() == 0 || k.compareTo(CURVE.getN()) >= 0) {
+            throw new InvalidFilecoinPrivateKeyException("Seed does not produce a valid master key");
+        }
+        return new ExtendedKey(Arrays.copyOfRange(i, 0, KEY_LENGTH), Arrays.copyOfRange(i, KEY_LENGTH, 64));
+    }
+
+    /**
+     * Method to derive the child of a node, indexes at or above the hardened offset give hardened children
+     *
+     * @param parent
+     * @param index
+     * @return ExtendedKey
+     * @throws InvalidFilecoinPrivateKeyException when the index leads to an invalid key, the next index should be used
+     */
+    public static ExtendedKey deriveChild(ExtendedKey parent, int index) throws InvalidFilecoinPrivateKeyException {
+        byte[] data = new byte[37];
+        if ((index & HARDENED_OFFSET) != 0) {
+            // hardened children are derived from 0x00 followed by the private key
+            System.arraycopy(parent.getPrivateKey(), 0, data, 1, KEY_LENGTH);
+        } else {
+            // the public key of a parent is computed once for all of its children
+            byte[] publicKey = parent.getPublicKey();
+            if (publicKey == null) {
+                publicKey = compressedPublicKey(parent.getPrivateKey());
+                parent.setPublicKey(publicKey);
+            }
+            System.arraycopy(publicKey, 0, data, 0, 33);
+        }
+        data[33] = (byte) (index >>> 24);
+        data[34] = (byte) (index >>> 16);
+        data[35] = (byte) (index >>> 8);
+        data[36] = (byte) index;
+
+        byte[] i = hmacSha512(parent.getChainCode(), data);
+        BigInteger il = new BigInteger(1, Arrays.copyOfRange(i, 0, KEY_LENGTH));
+        BigInteger n = CURVE.getN();
+        BigInteger k = il.add(new BigInteger(1, parent.getPrivateKey())).mod(n);
+        if (il.compareTo(n) >= 0 || k.signum() == 0) {
+            throw new InvalidFilecoinPrivateKeyException("Invalid child key at index " + Integer.toUnsignedString(index));
+        }
+        return new ExtendedKey(toBytes32(k), Arrays.copyOfRange(i, KEY_LENGTH, 64));
+    }
+
+    /**
+     * Method to derive the node at a path such as m/44'/461'/0'/0/1 from a parent node, the path is relative
+     * to the given node and the leading m is optional
+     *
+     * @param node
+     * @param path
+     * @return ExtendedKey
+     * @throws InvalidFilecoinException
+     * @throws InvalidFilecoinPrivateKeyException
+     */
+    public static ExtendedKey derivePath(ExtendedKey node, String path)
+            throws InvalidFilecoinException, InvalidFilecoinPrivateKeyException {
+        for (int index : parsePath(path)) {
+            node = deriveChild(node, index);
+        }
+        return node;
+    }
+
+    /**
+     * Method to parse a derivation path into its indexes, hardened levels are marked with ' or h
+     *
+     * @param path
+     * @return int[]
+     * @throws InvalidFilecoinException
+     */
+    public static int[] parsePath(String path) throws InvalidFilecoinException {
+        String[] levels = path.split("/");
+        int start = levels.length > 0 && levels[0].equals("m") ? 1 : 0;
+        int[] indexes = new int[levels.length - start];
+        for (int i = start; i < levels.length; i++) {
+            String level = levels[i];
+            boolean hardened = level.endsWith("'") || level.endsWith("h") || level.endsWith("H");
+            try {
+                int index = Integer.parseInt(hardened ? level.substring(0, level.length() - 1) : level);
+                if (index < 0) {
+                    throw new NumberFormatException();
+                }
+                indexes[i - start] = hardened ? index | HARDENED_OFFSET : index;
+            } catch (NumberFormatException e) {
+                throw new InvalidFilecoinException("Invalid derivation path level " + level);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Method to get the 33 byte compressed public key of a private key
+     *
+     * @param privateKey
+     * @return byte[]
+     */
+    public static byte[] compressedPublicKey(byte[] privateKey) {
+        return new FixedPointCombMultiplier().multiply(CURVE.getG(), new BigInteger(1, privateKey))
+                .normalize().getEncoded(true);
+    }
+
+    private static byte[] hmacSha512(byte[] key, byte[] data) {
+        Mac mac = HMAC_SHA512.get();
+        try {
+            mac.init(new SecretKeySpec(key, "HmacSHA512"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac.doFinal(data);
+    }
+
+    private static byte[] toBytes32(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] key = new byte[KEY_LENGTH];
+        int length = Math.min(bytes.length, KEY_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, key, KEY_LENGTH - length, length);
+        return key;
+    }
+
+}
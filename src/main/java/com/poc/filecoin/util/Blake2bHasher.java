@@ -0,0 +1,122 @@
+package com.poc.filecoin.util;
+
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+
+/**
+ * Blake2b hashing used across filecoin addresses and messages. Every thread keeps its own 4, 20 and 32 byte
+ * digesters which are reused for each hash, inputs are read from an offset with an optional leading byte so
+ * prefixes need no copy, and digests can be written straight into a caller supplied buffer
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class Blake2bHasher {
+
+    public static final int CHECKSUM_LENGTH = 4;
+    public static final int BLAKE2B_160_LENGTH = 20;
+    public static final int BLAKE2B_256_LENGTH = 32;
+    private static final int NO_PREFIX = -1;
+    private static final ThreadLocal<Digesters> DIGESTERS = ThreadLocal.withInitial(Digesters::new);
+
+    private Blake2bHasher() {
+    }
+
+    /**
+     * Method to write the 4 byte blake2b checksum of a prefix byte followed by the input
+     *
+     * @param prefix
+     * @param input
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void checksum(byte prefix, byte[] input, int offset, int length, byte[] target, int targetOffset) {
+        digest(DIGESTERS.get().checksum, prefix & 0xff, input, offset, length, target, targetOffset);
+    }
+
+    /**
+     * Method to write the blake2b-160 hash of the input
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void blake2b160(byte[] input, int offset, int length, byte[] target, int targetOffset) {
+        digest(DIGESTERS.get().blake2b160, NO_PREFIX, input, offset, length, target, targetOffset);
+    }
+
+    /**
+     * Method to write the blake2b-160 hash of a prefix byte followed by the input
+     *
+     * @param prefix
+     * @param input
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void blake2b160(byte prefix, byte[] input, int offset, int length, byte[] target, int targetOffset) {
+        digest(DIGESTERS.get().blake2b160, prefix & 0xff, input, offset, length, target, targetOffset);
+    }
+
+    /**
+     * Method to get the blake2b-160 hash of the input
+     *
+     * @param input
+     * @return byte[]
+     */
+    public static byte[] blake2b160(byte[] input) {
+        byte[] hash = new byte[BLAKE2B_160_LENGTH];
+        blake2b160(input, 0, input.length, hash, 0);
+        return hash;
+    }
+
+    /**
+     * Method to write the blake2b-256 hash of the input
+     *
+     * @param input
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void blake2b256(byte[] input, int offset, int length, byte[] target, int targetOffset) {
+        digest(DIGESTERS.get().blake2b256, NO_PREFIX, input, offset, length, target, targetOffset);
+    }
+
+    /**
+     * Method to get the blake2b-256 hash of the input
+     *
+     * @param input
+     * @return byte[]
+     */
+    public static byte[] blake2b256(byte[] input) {
+        byte[] hash = new byte[BLAKE2B_256_LENGTH];
+        blake2b256(input, 0, input.length, hash, 0);
+        return hash;
+    }
+
+    private static void digest(Blake2bDigest digest, int prefix, byte[] input, int offset, int length,
+                               byte[] target, int targetOffset) {
+        // a digest left half way by an earlier failure must not leak into this hash
+        digest.reset();
+        if (prefix != NO_PREFIX) {
+            digest.update((byte) prefix);
+        }
+        digest.update(input, offset, length);
+        digest.doFinal(target, targetOffset);
+    }
+
+    /**
+     * Digesters owned by a single thread
+     */
+    private static final class Digesters {
+
+        private final Blake2bDigest checksum = new Blake2bDigest(null, CHECKSUM_LENGTH, null, null);
+        private final Blake2bDigest blake2b160 = new Blake2bDigest(BLAKE2B_160_LENGTH * 8);
+        private final Blake2bDigest blake2b256 = new Blake2bDigest(BLAKE2B_256_LENGTH * 8);
+    }
+
+}
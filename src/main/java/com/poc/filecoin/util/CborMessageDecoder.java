@@ -0,0 +1,566 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.enums.SignatureType;
+import com.poc.filecoin.exceptions.InvalidFilecoinAddressException;
+import com.poc.filecoin.exceptions.InvalidFilecoinPayloadException;
+import com.poc.filecoin.model.ActorAddress;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.BLSSignature;
+import com.poc.filecoin.model.ECDSASignature;
+import com.poc.filecoin.model.IDAddress;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.model.Signature;
+import com.poc.filecoin.model.SignedTransaction;
+import com.poc.filecoin.model.Transaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Streaming CBOR decoder for filecoin messages and signed messages, the inverse of {@link CborMessageEncoder}.
+ * Items are read one after the other from a {@link ByteBuffer} or an {@link InputStream}, so archives of
+ * concatenated messages can be scanned without loading them. Only the canonical encoding is accepted, which
+ * makes every decoded message encode back to exactly the bytes it was read from. A decoder keeps its read
+ * position and buffers and must not be shared between threads
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class CborMessageDecoder {
+
+    private static final int MAJ_UNSIGNED_INT = 0;
+    private static final int MAJ_NEGATIVE_INT = 1;
+    private static final int MAJ_BYTE_STRING = 2;
+    private static final int MAJ_ARRAY = 4;
+    private static final int MESSAGE_FIELDS = 10;
+    private static final int SIGNED_MESSAGE_FIELDS = 2;
+    private static final int MAX_ADDRESS_LENGTH = 128;
+    private static final int MAX_BIG_INT_LENGTH = 128;
+    private static final int MAX_PARAMS_LENGTH = 2 << 20;
+    private static final int ECDSA_SIGNATURE_LENGTH = 65;
+    private static final int BLS_SIGNATURE_LENGTH = 96;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final Base64.Encoder BASE64 = Base64.getEncoder();
+
+    private final Source source;
+
+    /**
+     * Decoder reading from the current position of a buffer, the position is advanced past every decoded item
+     *
+     * @param buffer
+     */
+    public CborMessageDecoder(ByteBuffer buffer) {
+        this.source = new BufferSource(buffer);
+    }
+
+    /**
+     * Decoder reading from a stream, the stream is read in large chunks and need not be buffered
+     *
+     * @param inputStream
+     */
+    public CborMessageDecoder(InputStream inputStream) {
+        this.source = new StreamSource(inputStream);
+    }
+
+    /**
+     * Method to decode a single CBOR encoded message, the array must hold nothing else
+     *
+     * @param cbor
+     * @return Transaction
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static Transaction decodeMessage(byte[] cbor) throws InvalidFilecoinPayloadException {
+        ByteBuffer buffer = ByteBuffer.wrap(cbor);
+        Transaction transaction = decodeMessage(buffer);
+        checkFullyRead(buffer);
+        return transaction;
+    }
+
+    /**
+     * Method to decode the CBOR encoded message at the current position of the buffer
+     *
+     * @param buffer
+     * @return Transaction
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static Transaction decodeMessage(ByteBuffer buffer) throws InvalidFilecoinPayloadException {
+        Transaction transaction = new CborMessageDecoder(buffer).nextMessage();
+        if (transaction == null) {
+            throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+        }
+        return transaction;
+    }
+
+    /**
+     * Method to decode a single CBOR encoded signed message, the array must hold nothing else
+     *
+     * @param cbor
+     * @return SignedTransaction
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static SignedTransaction decodeSignedMessage(byte[] cbor) throws InvalidFilecoinPayloadException {
+        ByteBuffer buffer = ByteBuffer.wrap(cbor);
+        SignedTransaction signedTransaction = decodeSignedMessage(buffer);
+        checkFullyRead(buffer);
+        return signedTransaction;
+    }
+
+    /**
+     * Method to decode the CBOR encoded signed message at the current position of the buffer
+     *
+     * @param buffer
+     * @return SignedTransaction
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static SignedTransaction decodeSignedMessage(ByteBuffer buffer) throws InvalidFilecoinPayloadException {
+        SignedTransaction signedTransaction = new CborMessageDecoder(buffer).nextSignedMessage();
+        if (signedTransaction == null) {
+            throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+        }
+        return signedTransaction;
+    }
+
+    /**
+     * Method to turn the address bytes of a message, the protocol byte followed by the payload, into an address
+     * of the given network
+     *
+     * @param address
+     * @param filecoinNetwork
+     * @return Address, frozen
+     * @throws InvalidFilecoinAddressException
+     */
+    public static Address toAddress(byte[] address, FilecoinNetwork filecoinNetwork)
+            throws InvalidFilecoinAddressException {
+        if (address.length == 0) {
+            throw new InvalidFilecoinAddressException("Empty address bytes");
+        }
+        FilecoinProtocol filecoinProtocol = FilecoinProtocol.getEnum(address[0]);
+        Address decoded;
+        if (filecoinProtocol == FilecoinProtocol.ID) {
+            // the payload has to be a single minimal varint
+            FilecoinAddressCodec.readUvarint(address, 1, address.length - 1);
+            decoded = new IDAddress();
+        } else if (filecoinProtocol == FilecoinProtocol.SECP256K1 && address.length == 21) {
+            decoded = new SECP256K1Address();
+        } else if (filecoinProtocol == FilecoinProtocol.ACTOR && address.length == 21) {
+            decoded = new ActorAddress();
+        } else if (filecoinProtocol == FilecoinProtocol.BLS && address.length == 49) {
+            decoded = new BLSAddress();
+        } else {
+            throw new InvalidFilecoinAddressException("Unsupported address bytes of protocol " + address[0]
+                    + " and length " + address.length);
+        }
+        decoded.setFilecoinNetwork(filecoinNetwork);
+        decoded.setFilecoinProtocol(filecoinProtocol);
+        decoded.setPayload(Arrays.copyOfRange(address, 1, address.length));
+        decoded.setAddress(address.clone());
+        return decoded.freeze();
+    }
+
+    /**
+     * Method to check whether there is input left to decode
+     *
+     * @return boolean
+     * @throws IOException
+     */
+    public boolean hasNext() throws IOException {
+        return source.hasRemaining();
+    }
+
+    /**
+     * Method to decode the next message
+     *
+     * @return Transaction, null when the input ended before the message
+     * @throws InvalidFilecoinPayloadException
+     */
+    public Transaction nextMessage() throws InvalidFilecoinPayloadException {
+        try {
+            if (!source.hasRemaining()) {
+                return null;
+            }
+            return readMessage();
+        } catch (IOException e) {
+            throw new InvalidFilecoinPayloadException("Error while reading CBOR input: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method to decode the next signed message
+     *
+     * @return SignedTransaction, null when the input ended before the message
+     * @throws InvalidFilecoinPayloadException
+     */
+    public SignedTransaction nextSignedMessage() throws InvalidFilecoinPayloadException {
+        try {
+            if (!source.hasRemaining()) {
+                return null;
+            }
+            if (readHeader(MAJ_ARRAY, "signed message") != SIGNED_MESSAGE_FIELDS) {
+                throw new InvalidFilecoinPayloadException("Signed message should be an array of 2 fields");
+            }
+            Transaction transaction = readMessage();
+
+            // signature type byte followed by the signature
+            int length = readLength("signature", 1 + BLS_SIGNATURE_LENGTH);
+            if (length == 0) {
+                throw new InvalidFilecoinPayloadException("Signature is empty");
+            }
+            SignatureType signatureType = SignatureType.getEnum(source.read());
+            byte[] signatureBytes = new byte[length - 1];
+            source.readFully(signatureBytes, 0, signatureBytes.length);
+            return new SignedTransaction(transaction, toSignature(signatureType, signatureBytes));
+        } catch (IOException e) {
+            throw new InvalidFilecoinPayloadException("Error while reading CBOR input: " + e.getMessage());
+        }
+    }
+
+    private Transaction readMessage() throws IOException, InvalidFilecoinPayloadException {
+        if (readHeader(MAJ_ARRAY, "message") != MESSAGE_FIELDS) {
+            throw new InvalidFilecoinPayloadException("Message should be an array of 10 fields");
+        }
+
+        // t.Version
+        int version = readInt("version");
+
+        // t.To
+        byte[] to = readBytes("to", MAX_ADDRESS_LENGTH);
+
+        // t.From
+        byte[] from = readBytes("from", MAX_ADDRESS_LENGTH);
+
+        // t.Nonce
+        int nonce = readInt("nonce");
+
+        // t.Value
+        String value = readBigInt("value");
+
+        // t.GasLimit
+        int gasLimit = readGasLimit();
+
+        // t.GasFeeCap
+        String gasFeeCap = readBigInt("gas fee cap");
+
+        // t.GasPremium
+        String gasPremium = readBigInt("gas premium");
+
+        // t.Method
+        int method = readInt("method");
+
+        // t.Params, base64 encoded straight from the input like the transaction model holds them
+        int paramsLength = readLength("params", MAX_PARAMS_LENGTH);
+        byte[] params = source.readBase64(paramsLength);
+
+        return new Transaction(version, to, from, nonce, value, gasLimit, gasFeeCap, gasPremium, method, params);
+    }
+
+    private Signature toSignature(SignatureType signatureType, byte[] signatureBytes)
+            throws InvalidFilecoinPayloadException {
+        if (signatureType == SignatureType.ECDSA && signatureBytes.length == ECDSA_SIGNATURE_LENGTH) {
+            return new ECDSASignature(signatureBytes);
+        } else if (signatureType == SignatureType.BLS && signatureBytes.length == BLS_SIGNATURE_LENGTH) {
+            return new BLSSignature(signatureBytes);
+        }
+        throw new InvalidFilecoinPayloadException("Invalid signature of type " + signatureType
+                + " and length " + signatureBytes.length);
+    }
+
+    /**
+     * Method to read a major type header and return its argument
+     *
+     * @param major
+     * @param field
+     * @return long
+     * @throws InvalidFilecoinPayloadException
+     */
+    private long readHeader(int major, String field) throws IOException, InvalidFilecoinPayloadException {
+        int initial = readByte();
+        if (initial >>> 5 != major) {
+            throw new InvalidFilecoinPayloadException("Invalid CBOR major type " + (initial >>> 5) + " for field "
+                    + field);
+        }
+        return readArgument(initial & 31, field);
+    }
+
+    /**
+     * Method to read the argument of a header, only the shortest encoding of a value is accepted
+     *
+     * @param additionalInfo
+     * @param field
+     * @return long
+     * @throws InvalidFilecoinPayloadException
+     */
+    private long readArgument(int additionalInfo, String field) throws IOException, InvalidFilecoinPayloadException {
+        long value;
+        long minimum;
+        if (additionalInfo < 24) {
+            return additionalInfo;
+        } else if (additionalInfo == 24) {
+            value = readByte();
+            minimum = 24;
+        } else if (additionalInfo == 25) {
+            value = readBigEndian(2);
+            minimum = 1L << 8;
+        } else if (additionalInfo == 26) {
+            value = readBigEndian(4);
+            minimum = 1L << 16;
+        } else if (additionalInfo == 27) {
+            value = readBigEndian(8);
+            minimum = 1L << 32;
+            if (value < 0) {
+                throw new InvalidFilecoinPayloadException("CBOR value out of range for field " + field);
+            }
+        } else {
+            throw new InvalidFilecoinPayloadException("Unsupported CBOR additional info " + additionalInfo
+                    + " for field " + field);
+        }
+        if (value < minimum) {
+            throw new InvalidFilecoinPayloadException("Non canonical CBOR encoding for field " + field);
+        }
+        return value;
+    }
+
+    private long readBigEndian(int length) throws IOException, InvalidFilecoinPayloadException {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    private int readByte() throws IOException, InvalidFilecoinPayloadException {
+        int b = source.read();
+        if (b < 0) {
+            throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+        }
+        return b;
+    }
+
+    private int readInt(String field) throws IOException, InvalidFilecoinPayloadException {
+        long value = readHeader(MAJ_UNSIGNED_INT, field);
+        // the transaction model holds these fields as int
+        if (value > Integer.MAX_VALUE) {
+            throw new InvalidFilecoinPayloadException("Value of field " + field + " is out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Method to read the gas limit, a negative limit is written by the encoder with the int argument 1 - limit, so
+     * only arguments from 2 to the int maximum are ever produced
+     *
+     * @return int
+     * @throws InvalidFilecoinPayloadException
+     */
+    private int readGasLimit() throws IOException, InvalidFilecoinPayloadException {
+        int initial = readByte();
+        long value = readArgument(initial & 31, "gas limit");
+        if (initial >>> 5 == MAJ_UNSIGNED_INT && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        } else if (initial >>> 5 == MAJ_NEGATIVE_INT && value >= 2 && value <= Integer.MAX_VALUE) {
+            return (int) (1 - value);
+        }
+        throw new InvalidFilecoinPayloadException("Invalid gas limit");
+    }
+
+    private int readLength(String field, int maxLength) throws IOException, InvalidFilecoinPayloadException {
+        long length = readHeader(MAJ_BYTE_STRING, field);
+        if (length > maxLength) {
+            throw new InvalidFilecoinPayloadException("Byte array in field " + field + " was too long");
+        }
+        return (int) length;
+    }
+
+    private byte[] readBytes(String field, int maxLength) throws IOException, InvalidFilecoinPayloadException {
+        byte[] bytes = new byte[readLength(field, maxLength)];
+        source.readFully(bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Method to read an encoded big integer, a sign byte followed by the big endian magnitude, as a decimal
+     * string. Magnitudes of up to seven bytes are converted without going through BigInteger
+     *
+     * @param field
+     * @return String
+     * @throws InvalidFilecoinPayloadException
+     */
+    private String readBigInt(String field) throws IOException, InvalidFilecoinPayloadException {
+        int length = readLength(field, MAX_BIG_INT_LENGTH);
+        if (length == 0) {
+            return "0";
+        }
+        int sign = readByte();
+        int magnitudeLength = length - 1;
+        if (sign > 1 || magnitudeLength == 0) {
+            throw new InvalidFilecoinPayloadException("Invalid big integer in field " + field);
+        }
+        int first = readByte();
+        if (first == 0) {
+            throw new InvalidFilecoinPayloadException("Non canonical big integer in field " + field);
+        }
+        if (magnitudeLength <= 7) {
+            long magnitude = first;
+            for (int i = 1; i < magnitudeLength; i++) {
+                magnitude = (magnitude << 8) | readByte();
+            }
+            return sign == 0 ? Long.toString(magnitude) : Long.toString(-magnitude);
+        }
+        byte[] magnitude = new byte[magnitudeLength];
+        magnitude[0] = (byte) first;
+        source.readFully(magnitude, 1, magnitudeLength - 1);
+        return new BigInteger(sign == 0 ? 1 : -1, magnitude).toString();
+    }
+
+    private static void checkFullyRead(ByteBuffer buffer) throws InvalidFilecoinPayloadException {
+        if (buffer.hasRemaining()) {
+            throw new InvalidFilecoinPayloadException(buffer.remaining() + " bytes left after the CBOR item");
+        }
+    }
+
+    /**
+     * Input of the decoder
+     */
+    private interface Source {
+
+        boolean hasRemaining() throws IOException;
+
+        /**
+         * @return the next unsigned byte, -1 at the end of the input
+         */
+        int read() throws IOException;
+
+        void readFully(byte[] target, int offset, int length) throws IOException, InvalidFilecoinPayloadException;
+
+        /**
+         * @return the next bytes of the input, base64 encoded
+         */
+        byte[] readBase64(int length) throws IOException, InvalidFilecoinPayloadException;
+    }
+
+    private static final class BufferSource implements Source {
+
+        private final ByteBuffer buffer;
+
+        private BufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean hasRemaining() {
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public void readFully(byte[] target, int offset, int length) throws InvalidFilecoinPayloadException {
+            checkRemaining(length);
+            buffer.get(target, offset, length);
+        }
+
+        @Override
+        public byte[] readBase64(int length) throws InvalidFilecoinPayloadException {
+            checkRemaining(length);
+            // encoding a view of the buffer, heap or direct, without copying the bytes out first
+            ByteBuffer view = buffer.duplicate();
+            view.limit(view.position() + length);
+            buffer.position(buffer.position() + length);
+            return BASE64.encode(view).array();
+        }
+
+        private void checkRemaining(int length) throws InvalidFilecoinPayloadException {
+            if (buffer.remaining() < length) {
+                throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+            }
+        }
+    }
+
+    private static final class StreamSource implements Source {
+
+        private final InputStream inputStream;
+        private final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private StreamSource(InputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public boolean hasRemaining() throws IOException {
+            return position < limit || fill(1);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill(1)) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public void readFully(byte[] target, int offset, int length) throws IOException, InvalidFilecoinPayloadException {
+            int buffered = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, target, offset, buffered);
+            position += buffered;
+            // anything beyond the buffered bytes goes straight from the stream into the target
+            int read = buffered;
+            while (read < length) {
+                int count = inputStream.read(target, offset + read, length - read);
+                if (count < 0) {
+                    throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+                }
+                read += count;
+            }
+        }
+
+        @Override
+        public byte[] readBase64(int length) throws IOException, InvalidFilecoinPayloadException {
+            if (length <= buffer.length) {
+                if (!fill(length)) {
+                    throw new InvalidFilecoinPayloadException("Unexpected end of CBOR input");
+                }
+                byte[] encoded = BASE64.encode(ByteBuffer.wrap(buffer, position, length)).array();
+                position += length;
+                return encoded;
+            }
+            byte[] bytes = new byte[length];
+            readFully(bytes, 0, length);
+            return BASE64.encode(bytes);
+        }
+
+        /**
+         * Method to make sure the given number of bytes is buffered, compacting the buffer first when needed
+         *
+         * @param length
+         * @return false when the stream ends before that
+         */
+        private boolean fill(int length) throws IOException {
+            if (limit - position >= length) {
+                return true;
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < length) {
+                int count = inputStream.read(buffer, limit, buffer.length - limit);
+                if (count < 0) {
+                    return false;
+                }
+                limit += count;
+            }
+            return true;
+        }
+    }
+
+}
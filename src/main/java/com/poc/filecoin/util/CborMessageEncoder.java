@@ -0,0 +1,359 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.exceptions.InvalidFilecoinPayloadException;
+import com.poc.filecoin.model.Transaction;
+
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming CBOR encoder for filecoin messages. It writes straight into a caller supplied buffer after computing
+ * the exact encoded size, and produces the same bytes as {@link UtilityService#marshalCBOR(Transaction)}.
+ * Token amounts that fit in a long and the base64 params are converted in place, so encoding a message
+ * allocates nothing beyond the optional result array
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class CborMessageEncoder {
+
+    private static final byte MAJ_UNSIGNED_INT = 0;
+    private static final byte MAJ_NEGATIVE_INT = 1;
+    private static final byte MAJ_BYTE_STRING = 2;
+    private static final int MESSAGE_ARRAY_HEADER = 138;
+    private static final int SIGNED_MESSAGE_ARRAY_HEADER = 130;
+    private static final long BYTE_ARRAY_MAX_LENGTH = 2 << 20;
+    // 18 decimal digits always fit in a long
+    private static final int FAST_PATH_MAX_DIGITS = 18;
+    private static final byte[] BASE64_DECODE_TABLE = new byte[128];
+
+    static {
+        java.util.Arrays.fill(BASE64_DECODE_TABLE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_DECODE_TABLE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private CborMessageEncoder() {
+    }
+
+    /**
+     * Method to compute the exact number of bytes the CBOR encoding of a transaction takes
+     *
+     * @param transaction
+     * @return int
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static int encodedSize(Transaction transaction) throws InvalidFilecoinPayloadException {
+        int size = 1;
+        size += headerSize(transaction.getVersion());
+        size += byteStringSize(transaction.getTo().length);
+        size += byteStringSize(transaction.getFrom().length);
+        size += headerSize(transaction.getNonce());
+        size += bigIntSize(transaction.getValue());
+        size += headerSize(transaction.getGasLimit() >= 0 ? transaction.getGasLimit() : -(transaction.getGasLimit() - 1));
+        size += bigIntSize(transaction.getGasFeeCap());
+        size += bigIntSize(transaction.getGasPremium());
+        size += headerSize(transaction.getMethod());
+        size += byteStringSize(paramsLength(transaction.getParams()));
+        return size;
+    }
+
+    /**
+     * Method to encode a transaction into a newly allocated array of the exact encoded size
+     *
+     * @param transaction
+     * @return byte[]
+     * @throws InvalidFilecoinPayloadException
+     */
+    public static byte[] encode(Transaction transaction) throws InvalidFilecoinPayloadException {
+        byte[] encoded = new byte[encodedSize(transaction)];
+        encode(transaction, ByteBuffer.wrap(encoded));
+        return encoded;
+    }
+
+    /**
+     * Method to encode a transaction at the current position of the given buffer, the position is advanced
+     * past the encoded message
+     *
+     * @param transaction
+     * @param target
+     * @return number of bytes written
+     * @throws InvalidFilecoinPayloadException
+     * @throws BufferOverflowException when the buffer can not hold the encoded message
+     */
+    public static int encode(Transaction transaction, ByteBuffer target) throws InvalidFilecoinPayloadException {
+        int size = encodedSize(transaction);
+        if (target.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        target.put((byte) MESSAGE_ARRAY_HEADER);
+
+        // t.Version
+        writeHeader(target, MAJ_UNSIGNED_INT, transaction.getVersion());
+
+        // t.To
+        writeByteString(target, transaction.getTo());
+
+        // t.From
+        writeByteString(target, transaction.getFrom());
+
+        // t.Nonce
+        writeHeader(target, MAJ_UNSIGNED_INT, transaction.getNonce());
+
+        // t.Value
+        writeBigInt(target, transaction.getValue());
+
+        // t.GasLimit
+        if (transaction.getGasLimit() >= 0) {
+            writeHeader(target, MAJ_UNSIGNED_INT, transaction.getGasLimit());
+        } else {
+            writeHeader(target, MAJ_NEGATIVE_INT, -(transaction.getGasLimit() - 1));
+        }
+
+        // t.GasFeeCap
+        writeBigInt(target, transaction.getGasFeeCap());
+
+        // t.GasPremium
+        writeBigInt(target, transaction.getGasPremium());
+
+        // t.Method
+        writeHeader(target, MAJ_UNSIGNED_INT, transaction.getMethod());
+
+        // t.Params, base64 decoded straight into the target
+        byte[] params = transaction.getParams();
+        writeHeader(target, MAJ_BYTE_STRING, paramsLength(params));
+        writeBase64Decoded(target, params);
+        return size;
+    }
+
+    /**
+     * Method to encode a signed message, a two element array of the encoded message and the signature bytes
+     * prefixed with the signature type
+     *
+     * @param messageCbor
+     * @param signatureType
+     * @param signatureBytes
+     * @return byte[]
+     */
+    public static byte[] encodeSignedMessage(byte[] messageCbor, int signatureType, byte[] signatureBytes) {
+        int signatureLength = signatureBytes.length + 1;
+        byte[] encoded = new byte[1 + messageCbor.length + byteStringSize(signatureLength)];
+        ByteBuffer target = ByteBuffer.wrap(encoded);
+        target.put((byte) SIGNED_MESSAGE_ARRAY_HEADER);
+        target.put(messageCbor);
+        writeHeader(target, MAJ_BYTE_STRING, signatureLength);
+        target.put((byte) signatureType);
+        target.put(signatureBytes);
+        return encoded;
+    }
+
+    /**
+     * Method to get the size of a major type header for the given value
+     *
+     * @param l
+     * @return int
+     */
+    static int headerSize(long l) {
+        if (l < 24) {
+            return 1;
+        } else if (l < 256) {
+            return 2;
+        } else if (l < 65536) {
+            return 3;
+        } else if (l < 4294967296L) {
+            return 5;
+        }
+        return 9;
+    }
+
+    /**
+     * Method to write a major type header, byte for byte the same as UtilityService.writeMajorTypeHeaderBuf
+     *
+     * @param target
+     * @param t
+     * @param l
+     */
+    static void writeHeader(ByteBuffer target, byte t, long l) {
+        if (l < 24) {
+            target.put((byte) ((t << 5) | l));
+        } else if (l < 256) {
+            target.put((byte) ((t << 5) | 24));
+            target.put((byte) l);
+        } else if (l < 65536) {
+            target.put((byte) ((t << 5) | 25));
+            target.put((byte) (l >> 8));
+            target.put((byte) l);
+        } else if (l < 4294967296L) {
+            target.put((byte) ((t << 5) | 26));
+            putBigEndian(target, l, 4);
+        } else {
+            target.put((byte) ((t << 5) | 27));
+            putBigEndian(target, l, 8);
+        }
+    }
+
+    /**
+     * Method to write the given number of low order bytes of a value in big endian order, independent of
+     * the byte order the buffer is set to
+     *
+     * @param target
+     * @param v
+     * @param length
+     */
+    private static void putBigEndian(ByteBuffer target, long v, int length) {
+        for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+            target.put((byte) (v >> shift));
+        }
+    }
+
+    private static int byteStringSize(long length) {
+        return headerSize(length) + (int) length;
+    }
+
+    private static void writeByteString(ByteBuffer target, byte[] bytes) {
+        writeHeader(target, MAJ_BYTE_STRING, bytes.length);
+        target.put(bytes);
+    }
+
+    /**
+     * Method to get the size of an encoded big integer
+     *
+     * @param value
+     * @return int
+     */
+    private static int bigIntSize(String value) {
+        long v = parseSmallUnsigned(value);
+        if (v < 0) {
+            return byteStringSize(bigIntBytes(new BigInteger(value)).length);
+        }
+        return byteStringSize(v == 0 ? 0 : 1 + magnitudeLength(v));
+    }
+
+    /**
+     * Method to write an encoded big integer, a sign byte followed by the big endian magnitude
+     *
+     * @param target
+     * @param value
+     */
+    private static void writeBigInt(ByteBuffer target, String value) {
+        long v = parseSmallUnsigned(value);
+        if (v < 0) {
+            // amounts beyond the fast path go through BigInteger
+            writeByteString(target, bigIntBytes(new BigInteger(value)));
+        } else if (v == 0) {
+            writeHeader(target, MAJ_BYTE_STRING, 0);
+        } else {
+            int magnitudeLength = magnitudeLength(v);
+            writeHeader(target, MAJ_BYTE_STRING, magnitudeLength + 1);
+            target.put((byte) 0);
+            putBigEndian(target, v, magnitudeLength);
+        }
+    }
+
+    private static int magnitudeLength(long v) {
+        return (64 - Long.numberOfLeadingZeros(v) + 7) / 8;
+    }
+
+    /**
+     * Method to parse a short unsigned decimal string without allocating
+     *
+     * @param value
+     * @return parsed value, or -1 when the value has to be parsed as BigInteger
+     */
+    private static long parseSmallUnsigned(String value) {
+        int length = value.length();
+        if (length == 0 || length > FAST_PATH_MAX_DIGITS) {
+            return -1;
+        }
+        long v = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    /**
+     * Method to get the encoded bytes of a big integer the same way UtilityService.marshalCBORBigInt does
+     *
+     * @param value
+     * @return byte[]
+     */
+    private static byte[] bigIntBytes(BigInteger value) {
+        if (value.signum() == 0) {
+            return new byte[]{};
+        }
+        byte[] bytes = value.toByteArray();
+        int counter = 0;
+        if (bytes.length > 1) {
+            while (bytes[counter] == 0) {
+                counter++;
+            }
+        }
+        byte[] encoded = new byte[bytes.length - counter + 1];
+        encoded[0] = (byte) (value.signum() > 0 ? 0 : 1);
+        System.arraycopy(bytes, counter, encoded, 1, bytes.length - counter);
+        return encoded;
+    }
+
+    /**
+     * Method to get the decoded length of base64 encoded params
+     *
+     * @param params
+     * @return int
+     * @throws InvalidFilecoinPayloadException
+     */
+    private static int paramsLength(byte[] params) throws InvalidFilecoinPayloadException {
+        if (params.length > BYTE_ARRAY_MAX_LENGTH) {
+            throw new InvalidFilecoinPayloadException("Byte array in field transaction params was too long");
+        }
+        int length = unpaddedLength(params);
+        if (length % 4 == 1 || (length != params.length && params.length % 4 != 0)) {
+            throw new IllegalArgumentException("Invalid base64 encoded transaction params");
+        }
+        return length * 3 / 4;
+    }
+
+    private static int unpaddedLength(byte[] base64) {
+        int length = base64.length;
+        if (length > 0 && base64[length - 1] == '=') {
+            length--;
+            if (length > 0 && base64[length - 1] == '=') {
+                length--;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Method to decode base64 bytes straight into the target buffer
+     *
+     * @param target
+     * @param base64
+     */
+    private static void writeBase64Decoded(ByteBuffer target, byte[] base64) {
+        int length = unpaddedLength(base64);
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < length; i++) {
+            int c = base64[i];
+            int sextet = c >= 0 && c < 128 ? BASE64_DECODE_TABLE[c] : -1;
+            if (sextet < 0) {
+                throw new IllegalArgumentException("Illegal base64 character in transaction params " + c);
+            }
+            bits = (bits << 6) | sextet;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                target.put((byte) (bits >> bitCount));
+                bits &= (1 << bitCount) - 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * EIP-2333 derivation of BLS12-381 keys. Every child is derived from its parent private key through a lamport
+ * public key, there are no hardened levels and the indexes are 32 bit unsigned. Filecoin keys follow the
+ * EIP-2334 layout with coin type 461, so the address at index i of an account lives at m/12381/461/account/i
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class Eip2333KeyDerivation {
+
+    public static final int BLS_PURPOSE = 12381;
+    private static final int KEY_LENGTH = 32;
+    private static final int HASH_LENGTH = 32;
+    private static final int LAMPORT_CHUNKS = 255;
+    // ceil((3 * ceil(log2(r))) / 16)
+    private static final int OKM_LENGTH = 48;
+    private static final byte[] KEYGEN_SALT = "BLS-SIG-KEYGEN-SALT-".getBytes(StandardCharsets.US_ASCII);
+    private static final BigInteger CURVE_ORDER =
+            new BigInteger("73eda753299d7d483339d80809a1d80553bda402fffe5bfeffffffff00000001", 16);
+    private static final ThreadLocal<Mac> HMAC_SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private Eip2333KeyDerivation() {
+    }
+
+    /**
+     * Method to get the EIP-2334 path of a filecoin address
+     *
+     * @param account
+     * @param index
+     * @return String
+     */
+    public static String filecoinPath(int account, int index) {
+        return accountPath(account) + "/" + index;
+    }
+
+    /**
+     * Method to get the EIP-2334 path of a filecoin account, the parent of its addresses
+     *
+     * @param account
+     * @return String
+     */
+    public static String accountPath(int account) {
+        return "m/" + BLS_PURPOSE + "/" + Bip32KeyDerivation.FILECOIN_COIN_TYPE + "/" + account;
+    }
+
+    /**
+     * Method to derive the master private key from a seed of at least 32 bytes
+     *
+     * @param seed
+     * @return 32 byte big endian private key
+     * @throws InvalidFilecoinException
+     */
+    public static byte[] master(byte[] seed) throws InvalidFilecoinException {
+        if (seed.length < 32) {
+            throw new InvalidFilecoinException("Seed should be at least 32 bytes");
+        }
+        return hkdfModR(seed);
+    }
+
+    /**
+     * Method to derive the private key of a child from the private key of its parent
+     *
+     * @param parentPrivateKey
+     * @param index
+     * @return 32 byte big endian private key
+     */
+    public static byte[] deriveChild(byte[] parentPrivateKey, int index) {
+        return hkdfModR(parentToLamportPublicKey(parentPrivateKey, index));
+    }
+
+    /**
+     * Method to derive the private key at a path such as m/12381/461/0/1 from a parent key, the path is relative
+     * to the given key and the leading m is optional
+     *
+     * @param privateKey
+     * @param path
+     * @return 32 byte big endian private key
+     * @throws InvalidFilecoinException
+     */
+    public static byte[] derivePath(byte[] privateKey, String path) throws InvalidFilecoinException {
+        for (int index : parsePath(path)) {
+            privateKey = deriveChild(privateKey, index);
+        }
+        return privateKey;
+    }
+
+    /**
+     * Method to parse a derivation path into its 32 bit unsigned indexes
+     *
+     * @param path
+     * @return int[]
+     * @throws InvalidFilecoinException
+     */
+    public static int[] parsePath(String path) throws InvalidFilecoinException {
+        String[] levels = path.split("/");
+        int start = levels.length > 0 && levels[0].equals("m") ? 1 : 0;
+        int[] indexes = new int[levels.length - start];
+        for (int i = start; i < levels.length; i++) {
+            try {
+                indexes[i - start] = Integer.parseUnsignedInt(levels[i]);
+            } catch (NumberFormatException e) {
+                throw new InvalidFilecoinException("Invalid derivation path level " + levels[i]);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Method to derive the compressed lamport public key of a parent key for the given index
+     *
+     * @param parentPrivateKey
+     * @param index
+     * @return byte[]
+     */
+    private static byte[] parentToLamportPublicKey(byte[] parentPrivateKey, int index) {
+        byte[] salt = {(byte) (index >>> 24), (byte) (index >>> 16), (byte) (index >>> 8), (byte) index};
+        byte[] notIkm = new byte[KEY_LENGTH];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            notIkm[i] = (byte) ~parentPrivateKey[i];
+        }
+
+        // both lamport secret keys are hashed chunk by chunk straight into the compressed public key
+        MessageDigest sha256 = SHA256.get();
+        byte[] lamportPublicKey = new byte[2 * LAMPORT_CHUNKS * HASH_LENGTH];
+        hashChunks(sha256, ikmToLamportSecretKey(parentPrivateKey, salt), lamportPublicKey, 0);
+        hashChunks(sha256, ikmToLamportSecretKey(notIkm, salt), lamportPublicKey, LAMPORT_CHUNKS * HASH_LENGTH);
+        return sha256.digest(lamportPublicKey);
+    }
+
+    private static byte[] ikmToLamportSecretKey(byte[] ikm, byte[] salt) {
+        return hkdfExpand(hkdfExtract(salt, ikm), new byte[0], LAMPORT_CHUNKS * HASH_LENGTH);
+    }
+
+    private static void hashChunks(MessageDigest sha256, byte[] chunks, byte[] target, int targetOffset) {
+        for (int i = 0; i < LAMPORT_CHUNKS; i++) {
+            sha256.update(chunks, i * HASH_LENGTH, HASH_LENGTH);
+            try {
+                sha256.digest(target, targetOffset + i * HASH_LENGTH, HASH_LENGTH);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Method to map input key material to a private key below the curve order
+     *
+     * @param ikm
+     * @return 32 byte big endian private key
+     */
+    private static byte[] hkdfModR(byte[] ikm) {
+        byte[] ikmWithZero = new byte[ikm.length + 1];
+        System.arraycopy(ikm, 0, ikmWithZero, 0, ikm.length);
+        // key info is empty, followed by the two byte output length
+        byte[] info = {0, (byte) OKM_LENGTH};
+        byte[] salt = KEYGEN_SALT;
+        BigInteger privateKey = BigInteger.ZERO;
+        while (privateKey.signum() == 0) {
+            salt = SHA256.get().digest(salt);
+            byte[] okm = hkdfExpand(hkdfExtract(salt, ikmWithZero), info, OKM_LENGTH);
+            privateKey = new BigInteger(1, okm).mod(CURVE_ORDER);
+        }
+        return toBytes32(privateKey);
+    }
+
+    private static byte[] hkdfExtract(byte[] salt, byte[] ikm) {
+        return hmacSha256(salt).doFinal(ikm);
+    }
+
+    private static byte[] hkdfExpand(byte[] prk, byte[] info, int length) {
+        Mac mac = hmacSha256(prk);
+        byte[] okm = new byte[length];
+        byte[] block = new byte[0];
+        for (int i = 0, offset = 0; offset < length; i++) {
+            mac.update(block);
+            mac.update(info);
+            mac.update((byte) (i + 1));
+            block = mac.doFinal();
+            System.arraycopy(block, 0, okm, offset, Math.min(block.length, length - offset));
+            offset += block.length;
+        }
+        return okm;
+    }
+
+    private static Mac hmacSha256(byte[] key) {
+        Mac mac = HMAC_SHA256.get();
+        try {
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac;
+    }
+
+    private static byte[] toBytes32(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] key = new byte[KEY_LENGTH];
+        int length = Math.min(bytes.length, KEY_LENGTH);
+        System.arraycopy(bytes, bytes.length - length, key, KEY_LENGTH - length, length);
+        return key;
+    }
+
+}
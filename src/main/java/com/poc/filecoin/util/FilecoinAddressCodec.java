@@ -0,0 +1,531 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.enums.AddressValidationResult;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinAddressException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Codec for the string form of filecoin addresses, network character, protocol digit and the lower case,
+ * unpadded base32 encoding of payload and checksum. Base32 is done with lookup tables and the 4 byte checksum
+ * is computed and verified while encoding and decoding, working on caller supplied buffers so that the hot path
+ * allocates nothing apart from the resulting string. Output is the same as the guava based encoding used before.
+ * ID addresses are the exception, their string form is the decimal id without a checksum and their payload the
+ * unsigned LEB128 varint of the id
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class FilecoinAddressCodec {
+
+    public static final int CHECKSUM_LENGTH = 4;
+    private static final int MIN_ADDRESS_LENGTH = 3;
+    private static final int MAX_ADDRESS_LENGTH = 86;
+    private static final int SECP256K1_PAYLOAD_LENGTH = 20;
+    private static final int BLS_PAYLOAD_LENGTH = 48;
+    private static final int ACTOR_PAYLOAD_LENGTH = 20;
+    // same limit as lotus, ids are int64 so the decimal form never has more digits than the largest one
+    private static final String MAX_ID = Long.toString(Long.MAX_VALUE);
+    private static final int MAX_ID_DIGITS = MAX_ID.length();
+    // 63 bits of an int64 id in groups of 7
+    private static final int MAX_UVARINT_LENGTH = 9;
+    private static final int DELEGATED_PROTOCOL = 4;
+    private static final char[] BASE32_ALPHABET = "abcdefghijklmnopqrstuvwxyz234567".toCharArray();
+    private static final byte[] BASE32_DECODE_TABLE = new byte[128];
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    static {
+        Arrays.fill(BASE32_DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < BASE32_ALPHABET.length; i++) {
+            BASE32_DECODE_TABLE[BASE32_ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private FilecoinAddressCodec() {
+    }
+
+    /**
+     * Method to get the length of the encoded address for a payload of the given length
+     *
+     * @param payloadLength
+     * @return int
+     */
+    public static int encodedLength(int payloadLength) {
+        return 2 + ((payloadLength + CHECKSUM_LENGTH) * 8 + 4) / 5;
+    }
+
+    /**
+     * Method to encode an address into a string
+     *
+     * @param filecoinNetwork
+     * @param filecoinProtocol
+     * @param payload
+     * @return String
+     */
+    public static String encode(FilecoinNetwork filecoinNetwork, FilecoinProtocol filecoinProtocol, byte[] payload) {
+        char[] chars = SCRATCH.get().chars(encodedLength(payload.length));
+        int length = encode(filecoinNetwork, filecoinProtocol, payload, 0, payload.length, chars, 0);
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Method to encode an address into the given char array
+     *
+     * @param filecoinNetwork
+     * @param filecoinProtocol
+     * @param payload
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     * @return number of chars written
+     */
+    public static int encode(FilecoinNetwork filecoinNetwork, FilecoinProtocol filecoinProtocol,
+                             byte[] payload, int offset, int length, char[] target, int targetOffset) {
+        if (target.length - targetOffset < encodedLength(length)) {
+            throw new IllegalArgumentException("Target buffer is too small for the encoded address");
+        }
+        int checksum = checksum(filecoinProtocol.getValue(), payload, offset, length);
+        int position = targetOffset;
+        target[position++] = filecoinNetwork.getValue().charAt(0);
+        target[position++] = (char) ('0' + filecoinProtocol.getValue());
+
+        // payload followed by the checksum, five bits per char
+        int buffer = 0;
+        int bitCount = 0;
+        for (int i = 0; i < length + CHECKSUM_LENGTH; i++) {
+            int b = i < length ? payload[offset + i] & 0xff : (checksum >>> ((length + CHECKSUM_LENGTH - 1 - i) * 8)) & 0xff;
+            buffer = (buffer << 8) | b;
+            bitCount += 8;
+            while (bitCount >= 5) {
+                bitCount -= 5;
+                target[position++] = BASE32_ALPHABET[(buffer >> bitCount) & 31];
+            }
+            buffer &= (1 << bitCount) - 1;
+        }
+        if (bitCount > 0) {
+            target[position++] = BASE32_ALPHABET[(buffer << (5 - bitCount)) & 31];
+        }
+        return position - targetOffset;
+    }
+
+    /**
+     * Method to encode an address into the given char array, the remaining bytes of the payload buffer are
+     * encoded and its position is left unchanged
+     *
+     * @param filecoinNetwork
+     * @param filecoinProtocol
+     * @param payload
+     * @param target
+     * @param targetOffset
+     * @return number of chars written
+     */
+    public static int encode(FilecoinNetwork filecoinNetwork, FilecoinProtocol filecoinProtocol,
+                             ByteBuffer payload, char[] target, int targetOffset) {
+        if (payload.hasArray()) {
+            return encode(filecoinNetwork, filecoinProtocol, payload.array(),
+                    payload.arrayOffset() + payload.position(), payload.remaining(), target, targetOffset);
+        }
+        byte[] bytes = SCRATCH.get().bytes(payload.remaining());
+        payload.duplicate().get(bytes, 0, payload.remaining());
+        return encode(filecoinNetwork, filecoinProtocol, bytes, 0, payload.remaining(), target, targetOffset);
+    }
+
+    /**
+     * Method to read the network of an encoded address
+     *
+     * @param encodedAddress
+     * @return FilecoinNetwork
+     * @throws InvalidFilecoinAddressException
+     */
+    public static FilecoinNetwork network(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        validateLength(encodedAddress);
+        char network = encodedAddress.charAt(0);
+        if (network == 'f') {
+            return FilecoinNetwork.MAIN_NET;
+        } else if (network == 't') {
+            return FilecoinNetwork.DEV_NET;
+        }
+        throw new InvalidFilecoinAddressException("Filecoin address should either start with t or f");
+    }
+
+    /**
+     * Method to read the protocol of an encoded address
+     *
+     * @param encodedAddress
+     * @return FilecoinProtocol
+     * @throws InvalidFilecoinAddressException
+     */
+    public static FilecoinProtocol protocol(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        validateLength(encodedAddress);
+        FilecoinProtocol filecoinProtocol = FilecoinProtocol.getEnum(encodedAddress.charAt(1) - '0');
+        if (filecoinProtocol == null) {
+            throw new InvalidFilecoinAddressException("Invalid filecoin address protocol: " + encodedAddress.charAt(1));
+        }
+        return filecoinProtocol;
+    }
+
+    /**
+     * Method to get the payload length of an encoded address without decoding it
+     *
+     * @param encodedAddress
+     * @return int
+     * @throws InvalidFilecoinAddressException
+     */
+    public static int payloadLength(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        validateLength(encodedAddress);
+        if (encodedAddress.charAt(1) - '0' == FilecoinProtocol.ID.getValue()) {
+            throw new InvalidFilecoinAddressException("ID address has no base32 payload, it is decoded with decodeId");
+        }
+        int chars = unpaddedEnd(encodedAddress) - 2;
+        int remainder = chars % 8;
+        // same lengths guava accepts, any other remainder leaves a partial byte
+        if (remainder == 1 || remainder == 3 || remainder == 6) {
+            throw new InvalidFilecoinAddressException("Invalid base32 length for filecoin address");
+        }
+        int decodedLength = chars * 5 / 8;
+        if (decodedLength < CHECKSUM_LENGTH) {
+            throw new InvalidFilecoinAddressException("Filecoin address is too short to hold a checksum");
+        }
+        return decodedLength - CHECKSUM_LENGTH;
+    }
+
+    /**
+     * Method to decode the payload of an address into the given array and verify its checksum
+     *
+     * @param encodedAddress
+     * @param target
+     * @param targetOffset
+     * @return payload length
+     * @throws InvalidFilecoinAddressException
+     */
+    public static int decode(CharSequence encodedAddress, byte[] target, int targetOffset)
+            throws InvalidFilecoinAddressException {
+        network(encodedAddress);
+        int protocol = protocol(encodedAddress).getValue();
+        int payloadLength = payloadLength(encodedAddress);
+        if (target.length - targetOffset < payloadLength) {
+            throw new IllegalArgumentException("Target buffer is too small for the address payload");
+        }
+
+        long checksum = decodeBase32(encodedAddress, target, targetOffset, payloadLength);
+        if (checksum < 0) {
+            throw new InvalidFilecoinAddressException("Invalid character in filecoin address: "
+                    + encodedAddress.charAt((int) -checksum));
+        }
+        if (checksum(protocol, target, targetOffset, payloadLength) != (int) checksum) {
+            throw new InvalidFilecoinAddressException("Invalid Checksum");
+        }
+        return payloadLength;
+    }
+
+    /**
+     * Method to validate an encoded address without throwing, the cheap checks come first and the payload is
+     * decoded into a per thread buffer to verify the checksum. SECP256K1, actor and BLS addresses must have their
+     * exact payload lengths and ID addresses a decimal int64 id without leading zeros
+     *
+     * @param encodedAddress
+     * @return AddressValidationResult
+     */
+    public static AddressValidationResult validate(CharSequence encodedAddress) {
+        if (encodedAddress == null || encodedAddress.length() == 0) {
+            return AddressValidationResult.EMPTY;
+        }
+        if (encodedAddress.length() < MIN_ADDRESS_LENGTH || encodedAddress.length() > MAX_ADDRESS_LENGTH) {
+            return AddressValidationResult.INVALID_LENGTH;
+        }
+        char network = encodedAddress.charAt(0);
+        if (network != 'f' && network != 't') {
+            return AddressValidationResult.INVALID_NETWORK;
+        }
+        int protocol = encodedAddress.charAt(1) - '0';
+        int expectedPayloadLength;
+        if (protocol == FilecoinProtocol.ID.getValue()) {
+            if (encodedAddress.length() - 2 > MAX_ID_DIGITS) {
+                return AddressValidationResult.INVALID_LENGTH;
+            }
+            if (!isDigits(encodedAddress)) {
+                return AddressValidationResult.INVALID_CHARACTER;
+            }
+            // leading zeros and ids above the largest int64 are not the canonical form of any id
+            return isId(encodedAddress) ? AddressValidationResult.VALID : AddressValidationResult.INVALID_ENCODING;
+        } else if (protocol == FilecoinProtocol.SECP256K1.getValue()) {
+            expectedPayloadLength = SECP256K1_PAYLOAD_LENGTH;
+        } else if (protocol == FilecoinProtocol.ACTOR.getValue()) {
+            expectedPayloadLength = ACTOR_PAYLOAD_LENGTH;
+        } else if (protocol == FilecoinProtocol.BLS.getValue()) {
+            expectedPayloadLength = BLS_PAYLOAD_LENGTH;
+        } else if (protocol == DELEGATED_PROTOCOL) {
+            return AddressValidationResult.UNSUPPORTED_PROTOCOL;
+        } else {
+            return AddressValidationResult.INVALID_PROTOCOL;
+        }
+
+        int chars = unpaddedEnd(encodedAddress) - 2;
+        int remainder = chars % 8;
+        if (remainder == 1 || remainder == 3 || remainder == 6) {
+            return AddressValidationResult.INVALID_ENCODING;
+        }
+        int payloadLength = chars * 5 / 8 - CHECKSUM_LENGTH;
+        if (payloadLength != expectedPayloadLength) {
+            return AddressValidationResult.INVALID_PAYLOAD_LENGTH;
+        }
+
+        byte[] payload = SCRATCH.get().bytes(payloadLength);
+        long checksum = decodeBase32(encodedAddress, payload, 0, payloadLength);
+        if (checksum < 0) {
+            return AddressValidationResult.INVALID_CHARACTER;
+        }
+        if (checksum(protocol, payload, 0, payloadLength) != (int) checksum) {
+            return AddressValidationResult.INVALID_CHECKSUM;
+        }
+        return AddressValidationResult.VALID;
+    }
+
+    /**
+     * Method to decode the base32 part of an address, the payload goes to the target and the trailing bytes
+     * are returned as the checksum
+     *
+     * @param encodedAddress
+     * @param target
+     * @param targetOffset
+     * @param payloadLength
+     * @return checksum as an unsigned int, or minus the index of the first invalid character
+     */
+    private static long decodeBase32(CharSequence encodedAddress, byte[] target, int targetOffset,
+                                     int payloadLength) {
+        int end = unpaddedEnd(encodedAddress);
+        int buffer = 0;
+        int bitCount = 0;
+        int written = 0;
+        int checksum = 0;
+        for (int i = 2; i < end; i++) {
+            char c = encodedAddress.charAt(i);
+            int value = c < 128 ? BASE32_DECODE_TABLE[c] : -1;
+            if (value < 0) {
+                return -i;
+            }
+            buffer = (buffer << 5) | value;
+            bitCount += 5;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                int b = (buffer >> bitCount) & 0xff;
+                buffer &= (1 << bitCount) - 1;
+                // payload goes to the target, the trailing bytes are the checksum
+                if (written < payloadLength) {
+                    target[targetOffset + written] = (byte) b;
+                } else {
+                    checksum = (checksum << 8) | b;
+                }
+                written++;
+            }
+        }
+        return checksum & 0xffffffffL;
+    }
+
+    /**
+     * Method to decode the payload of an address at the current position of the given buffer and verify its
+     * checksum, the position is advanced past the payload
+     *
+     * @param encodedAddress
+     * @param target
+     * @return payload length
+     * @throws InvalidFilecoinAddressException
+     */
+    public static int decode(CharSequence encodedAddress, ByteBuffer target) throws InvalidFilecoinAddressException {
+        if (target.hasArray()) {
+            int payloadLength = decode(encodedAddress, target.array(), target.arrayOffset() + target.position());
+            target.position(target.position() + payloadLength);
+            return payloadLength;
+        }
+        byte[] bytes = SCRATCH.get().bytes(payloadLength(encodedAddress));
+        int payloadLength = decode(encodedAddress, bytes, 0);
+        target.put(bytes, 0, payloadLength);
+        return payloadLength;
+    }
+
+    /**
+     * Method to decode the payload of an address into a new array
+     *
+     * @param encodedAddress
+     * @return byte[]
+     * @throws InvalidFilecoinAddressException
+     */
+    public static byte[] decode(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        byte[] payload = new byte[payloadLength(encodedAddress)];
+        decode(encodedAddress, payload, 0);
+        return payload;
+    }
+
+    /**
+     * Method to encode an ID address into a string
+     *
+     * @param filecoinNetwork
+     * @param id not negative
+     * @return String
+     */
+    public static String encodeId(FilecoinNetwork filecoinNetwork, long id) {
+        return filecoinNetwork.getValue() + FilecoinProtocol.ID.getValue() + Long.toString(id);
+    }
+
+    /**
+     * Method to decode the id of an ID address
+     *
+     * @param encodedAddress
+     * @return long, not negative
+     * @throws InvalidFilecoinAddressException
+     */
+    public static long decodeId(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        network(encodedAddress);
+        if (protocol(encodedAddress) != FilecoinProtocol.ID) {
+            throw new InvalidFilecoinAddressException("Filecoin address is not an ID address");
+        }
+        if (!isId(encodedAddress)) {
+            throw new InvalidFilecoinAddressException("Invalid id in filecoin address");
+        }
+        return Long.parseLong(encodedAddress.subSequence(2, encodedAddress.length()).toString());
+    }
+
+    /**
+     * Method to write an id as an unsigned LEB128 varint, the payload of ID addresses
+     *
+     * @param id not negative
+     * @return byte[]
+     */
+    public static byte[] uvarint(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id of an ID address must not be negative");
+        }
+        byte[] buffer = new byte[MAX_UVARINT_LENGTH];
+        int length = 0;
+        while ((id & ~0x7fL) != 0) {
+            buffer[length++] = (byte) ((id & 0x7f) | 0x80);
+            id >>>= 7;
+        }
+        buffer[length++] = (byte) id;
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Method to read an unsigned LEB128 varint that takes up exactly the given bytes, only the minimal
+     * encoding is accepted so every id has a single payload. Ids above the largest int64 are rejected
+     *
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return long, not negative
+     * @throws InvalidFilecoinAddressException
+     */
+    public static long readUvarint(byte[] bytes, int offset, int length) throws InvalidFilecoinAddressException {
+        if (length < 1 || length > MAX_UVARINT_LENGTH) {
+            throw new InvalidFilecoinAddressException("Invalid varint length " + length);
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xff;
+            boolean last = i == length - 1;
+            // only the last byte ends the varint, and it must carry bits unless it is the only byte
+            if (last == ((b & 0x80) != 0) || (last && b == 0 && length > 1)) {
+                throw new InvalidFilecoinAddressException("Invalid varint in filecoin address");
+            }
+            value |= (long) (b & 0x7f) << (7 * i);
+        }
+        return value;
+    }
+
+    private static boolean isId(CharSequence encodedAddress) {
+        int digits = encodedAddress.length() - 2;
+        if (digits < 1 || digits > MAX_ID_DIGITS || !isDigits(encodedAddress)) {
+            return false;
+        }
+        if (digits > 1 && encodedAddress.charAt(2) == '0') {
+            return false;
+        }
+        // same number of digits as the largest id, so the strings compare like the numbers
+        return digits < MAX_ID_DIGITS || CharSequence.compare(encodedAddress.subSequence(2, encodedAddress.length()),
+                MAX_ID) <= 0;
+    }
+
+    private static boolean isDigits(CharSequence encodedAddress) {
+        for (int i = 2; i < encodedAddress.length(); i++) {
+            char c = encodedAddress.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to write the 4 byte checksum of a payload, blake2b over the protocol byte followed by the payload
+     *
+     * @param protocol
+     * @param payload
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void checksum(int protocol, byte[] payload, int offset, int length, byte[] target, int targetOffset) {
+        int checksum = checksum(protocol, payload, offset, length);
+        for (int i = 0; i < CHECKSUM_LENGTH; i++) {
+            target[targetOffset + i] = (byte) (checksum >>> ((CHECKSUM_LENGTH - 1 - i) * 8));
+        }
+    }
+
+    /**
+     * Method to compute the checksum of a payload as a big endian int
+     *
+     * @param protocol
+     * @param payload
+     * @param offset
+     * @param length
+     * @return int
+     */
+    private static int checksum(int protocol, byte[] payload, int offset, int length) {
+        byte[] checksum = SCRATCH.get().checksum;
+        Blake2bHasher.checksum((byte) protocol, payload, offset, length, checksum, 0);
+        return (checksum[0] & 0xff) << 24 | (checksum[1] & 0xff) << 16 | (checksum[2] & 0xff) << 8 | (checksum[3] & 0xff);
+    }
+
+    private static void validateLength(CharSequence encodedAddress) throws InvalidFilecoinAddressException {
+        if (encodedAddress.length() < MIN_ADDRESS_LENGTH || encodedAddress.length() > MAX_ADDRESS_LENGTH) {
+            throw new InvalidFilecoinAddressException("Invalid address length for filecoin address");
+        }
+    }
+
+    private static int unpaddedEnd(CharSequence encodedAddress) {
+        int end = encodedAddress.length();
+        while (end > 2 && encodedAddress.charAt(end - 1) == '=') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Per thread buffers reused across calls
+     */
+    private static final class Scratch {
+
+        private final byte[] checksum = new byte[CHECKSUM_LENGTH];
+        private char[] chars = new char[MAX_ADDRESS_LENGTH];
+        private byte[] bytes = new byte[64];
+
+        private char[] chars(int length) {
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            return chars;
+        }
+
+        private byte[] bytes(int length) {
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            return bytes;
+        }
+    }
+
+}
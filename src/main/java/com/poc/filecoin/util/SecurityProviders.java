@@ -0,0 +1,26 @@
+package com.poc.filecoin.util;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.Security;
+
+/**
+ * Class for registering the security providers needed by the secp256k1 operations
+ *
+ * @author Vijay Pratap Singh
+ */
+public final class SecurityProviders {
+
+    private SecurityProviders() {
+    }
+
+    /**
+     * Method to register the bouncy castle provider, the provider is built and added only the first time
+     */
+    public static synchronized void registerBouncyCastle() {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+}
@@ -2,14 +2,11 @@ package com.poc.filecoin.util;
 
 
 import com.poc.filecoin.model.Transaction;
-import io.ipfs.cid.Cid;
 import io.ipfs.multibase.Multibase;
-import io.ipfs.multihash.Multihash;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.stereotype.Service;
-import org.web3j.crypto.Hash;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
@@ -29,6 +26,9 @@ public class UtilityService {
     private static byte MAJ_BYTE_STRING = 2;
     private static byte MAJ_NEGATIVE_INT = 1;
     private static long BYTE_ARRAY_MAX_LENGTH = 2 << 20;
+    // cid version 1, dag-cbor codec, blake2b-256 multihash code and 32 byte digest length
+    private static final byte[] CID_PREFIX = {0x01, 0x71, (byte) 0xa0, (byte) 0xe4, 0x02, 0x20};
+    public static final int CID_LENGTH = CID_PREFIX.length + Blake2bHasher.BLAKE2B_256_LENGTH;
 
     /**
      * Method to get digest for a given message's byte array
@@ -37,17 +37,53 @@ public class UtilityService {
      * @return byte[]
      */
     public static byte[] getDigest(byte[] message) {
+        byte[] digest = new byte[CID_LENGTH];
+        getDigest(message, 0, message.length, digest, 0);
+        return digest;
+    }
 
-        // getting 256 byte blake 2b hash of given message
-        var blake2b256HashMessage = Hash.blake2b256(message);
-        // generating a cid with the above generated blake 2b hash
-        Cid generatedCid = Cid.buildCidV1(Cid.Codec.DagCbor, Multihash.Type.blake2b_256, blake2b256HashMessage);
-        // getting cid string by encoding generated cid with base32 for logging purpose only
-        String cidString = Multibase.encode(Multibase.Base.Base32, generatedCid.toBytes());
-        log.info("Encoded Base32 CID is: {}", cidString);
-        // returning generated cid byte array
-        return generatedCid.toBytes();
+    /**
+     * Method to write the digest of a message into the given buffer. The digest is the CID v1 of the message,
+     * dag-cbor codec over a blake2b-256 multihash, so its bytes are the fixed prefix followed by the hash
+     *
+     * @param message
+     * @param offset
+     * @param length
+     * @param target
+     * @param targetOffset
+     */
+    public static void getDigest(byte[] message, int offset, int length, byte[] target, int targetOffset) {
+        System.arraycopy(CID_PREFIX, 0, target, targetOffset, CID_PREFIX.length);
+        Blake2bHasher.blake2b256(message, offset, length, target, targetOffset + CID_PREFIX.length);
+        if (log.isDebugEnabled()) {
+            // getting cid string by encoding generated cid with base32 for logging purpose only
+            byte[] cid = Arrays.copyOfRange(target, targetOffset, targetOffset + CID_LENGTH);
+            log.debug("Encoded Base32 CID is: {}", toCidString(cid));
+        }
+    }
 
+    /**
+     * Method to get the string form of a CID, base32 multibase encoding of its bytes
+     *
+     * @param cid
+     * @return String
+     */
+    public static String toCidString(byte[] cid) {
+        return Multibase.encode(Multibase.Base.Base32, cid);
+    }
+
+    /**
+     * Method to format bytes as unsigned values for debug logging, e.g. [130 1 ]
+     *
+     * @param bytes
+     * @return String
+     */
+    public static String toUnsignedString(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 4 + 2).append('[');
+        for (byte b : bytes) {
+            builder.append(Byte.toUnsignedInt(b)).append(' ');
+        }
+        return builder.append(']').toString();
     }
 
     /**
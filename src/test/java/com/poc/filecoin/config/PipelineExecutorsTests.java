@@ -0,0 +1,85 @@
+package com.poc.filecoin.config;
+
+import com.poc.filecoin.service.TransactionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineExecutorsTests {
+
+	@Test
+	void fullRpcQueueFailsTheStage() throws Exception {
+		PipelineExecutors pipelineExecutors = newExecutors();
+		CountDownLatch release = saturateRpcExecutor(pipelineExecutors);
+		try {
+			// a stage handed over from a signing thread is rejected instead of doing the I/O on that thread
+			AtomicBoolean ran = new AtomicBoolean();
+			CompletableFuture<Boolean> future = CompletableFuture
+					.supplyAsync(() -> true, pipelineExecutors.getSigningExecutor())
+					.thenApplyAsync(value -> ran.getAndSet(true), pipelineExecutors.getRpcExecutor());
+
+			ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+			assertFalse(ran.get());
+		} finally {
+			release.countDown();
+			pipelineExecutors.shutdown();
+		}
+	}
+
+	@Test
+	void fullRpcQueueFailsTheSend() throws Exception {
+		PipelineExecutors pipelineExecutors = newExecutors();
+		CountDownLatch release = saturateRpcExecutor(pipelineExecutors);
+		try {
+			TransactionService transactionService = new TransactionService();
+			transactionService.setPipelineExecutors(pipelineExecutors);
+
+			CompletableFuture<?> future = transactionService.signAndSendTransactionAsync(null, 0,
+					"t1from", "t1to", "message", "1");
+			ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		} finally {
+			release.countDown();
+			pipelineExecutors.shutdown();
+		}
+	}
+
+	private PipelineExecutors newExecutors() {
+		PipelineExecutors pipelineExecutors = new PipelineExecutors();
+		pipelineExecutors.signingThreads = 1;
+		pipelineExecutors.signingQueueCapacity = 1;
+		pipelineExecutors.rpcThreads = 1;
+		pipelineExecutors.rpcQueueCapacity = 1;
+		pipelineExecutors.init();
+		return pipelineExecutors;
+	}
+
+	// blocks the only rpc thread and fills the queue behind it until the returned latch is counted down
+	private CountDownLatch saturateRpcExecutor(PipelineExecutors pipelineExecutors) throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		pipelineExecutors.getRpcExecutor().execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		pipelineExecutors.getRpcExecutor().execute(() -> {
+		});
+		return release;
+	}
+
+}
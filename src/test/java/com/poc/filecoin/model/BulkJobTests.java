@@ -0,0 +1,45 @@
+package com.poc.filecoin.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BulkJobTests {
+
+	@Test
+	void checkpointWaitsForEarlierLines() {
+		BulkJob job = new BulkJob("job", Paths.get("in.csv"), Paths.get("out.ndjson"));
+
+		assertEquals(0, job.complete(3));
+		assertEquals(0, job.complete(2));
+		assertEquals(3, job.complete(1));
+		assertEquals(3, job.complete(5));
+		assertEquals(5, job.complete(4));
+		assertEquals(6, job.complete(6));
+		assertEquals(6, job.getCheckpoint());
+	}
+
+	@Test
+	void resumeFromCheckpoint() {
+		BulkJob job = new BulkJob("job", Paths.get("in.csv"), Paths.get("out.ndjson"));
+		job.complete(2);
+
+		// lines completed ahead in an earlier run are forgotten
+		job.resumeFrom(10);
+		assertEquals(10, job.complete(12));
+		assertEquals(12, job.complete(11));
+	}
+
+	@Test
+	void retriedLinesLeaveCheckpoint() {
+		BulkJob job = new BulkJob("job", Paths.get("in.csv"), Paths.get("out.ndjson"));
+		job.resumeFrom(10);
+
+		assertEquals(10, job.complete(4));
+		assertEquals(11, job.complete(11));
+		assertEquals(12, job.complete(12));
+	}
+
+}
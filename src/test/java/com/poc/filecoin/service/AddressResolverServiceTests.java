@@ -0,0 +1,115 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AddressResolverServiceTests {
+
+	private static final String ACCOUNT_CODE = "bafk2bzaceaccount";
+	private static final String MINER_CODE = "bafk2bzaceminer";
+	private static final String KEY_ADDRESS = "t1d2xrzcslx7xlbbylc5c3d5lvandqw4iwl6epxba";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void keyAddressOnlyForAccountActors() {
+		StubNetworkService networkService = new StubNetworkService();
+		AddressResolverService resolver = newResolver(networkService);
+
+		assertEquals(KEY_ADDRESS, resolver.lookupKeyAddress("t01000"));
+		// a miner has no key, lotus would fail on it
+		assertNull(resolver.lookupKeyAddress("t01001"));
+		assertNull(resolver.lookupKeyAddress("t01002"));
+		assertEquals(1, networkService.accountKeyCalls.get());
+
+		// resolved and unresolved ids are served from the caches
+		assertEquals(KEY_ADDRESS, resolver.lookupKeyAddress("t01000"));
+		assertNull(resolver.lookupKeyAddress("t01001"));
+		assertEquals(3, networkService.actorCalls.get());
+		// one network version for all the lookups at the same finalized tipset
+		assertEquals(1, networkService.networkVersionCalls.get());
+	}
+
+	private AddressResolverService newResolver(NetworkService networkService) {
+		AddressService addressService = new AddressService();
+		addressService.networkService = networkService;
+		addressService.initAddressCache();
+
+		AddressResolverService resolver = new AddressResolverService();
+		resolver.networkService = networkService;
+		resolver.addressService = addressService;
+		resolver.initResolverCaches();
+		return resolver;
+	}
+
+	private class StubNetworkService extends NetworkService {
+
+		private final AtomicInteger actorCalls = new AtomicInteger();
+		private final AtomicInteger accountKeyCalls = new AtomicInteger();
+		private final AtomicInteger networkVersionCalls = new AtomicInteger();
+
+		@Override
+		public FilecoinNetwork getFilecoinNetwork() {
+			return FilecoinNetwork.DEV_NET;
+		}
+
+		@Override
+		public JsonNode getChainHeadTipSet() {
+			ObjectNode head = objectMapper.createObjectNode().put("Height", 5000);
+			head.putArray("Cids").addObject().put("/", "bafyhead");
+			return head;
+		}
+
+		@Override
+		public JsonNode getTipSetByHeight(long height, JsonNode tipSetKey) {
+			ObjectNode tipSet = objectMapper.createObjectNode().put("Height", height);
+			tipSet.putArray("Cids").addObject().put("/", "bafyfinalized");
+			return tipSet;
+		}
+
+		@Override
+		public CompletableFuture<JsonNode> getActorAsync(String address, JsonNode tipSetKey) {
+			actorCalls.incrementAndGet();
+			if (address.equals("t01002")) {
+				return CompletableFuture.completedFuture(null);
+			}
+			ObjectNode actor = objectMapper.createObjectNode();
+			actor.putObject("Code").put("/", address.equals("t01000") ? ACCOUNT_CODE : MINER_CODE);
+			return CompletableFuture.completedFuture(actor);
+		}
+
+		@Override
+		public int getNetworkVersion(JsonNode tipSetKey) {
+			networkVersionCalls.incrementAndGet();
+			return 21;
+		}
+
+		@Override
+		public JsonNode getActorCodes(int networkVersion) {
+			ObjectNode codes = objectMapper.createObjectNode();
+			codes.putObject("account").put("/", ACCOUNT_CODE);
+			codes.putObject("storageminer").put("/", MINER_CODE);
+			return codes;
+		}
+
+		@Override
+		public String getAccountKey(String address, JsonNode tipSetKey) throws FilecoinRpcException {
+			accountKeyCalls.incrementAndGet();
+			if (!address.equals("t01000")) {
+				throw new FilecoinRpcException("failed to get account actor state for " + address);
+			}
+			return KEY_ADDRESS;
+		}
+	}
+
+}
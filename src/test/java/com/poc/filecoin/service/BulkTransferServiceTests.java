@@ -0,0 +1,218 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.poc.filecoin.dto.BulkJobDTO;
+import com.poc.filecoin.dto.BulkTransferIntentDTO;
+import com.poc.filecoin.dto.BulkTransferRequestDTO;
+import com.poc.filecoin.dto.BulkTransferResultDTO;
+import com.poc.filecoin.dto.TransactionSendResponseDTO;
+import com.poc.filecoin.model.SignedMessage;
+import com.poc.filecoin.model.Transaction;
+import com.poc.filecoin.util.UtilityService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkTransferServiceTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void splitCsvFields() {
+		assertEquals(Arrays.asList("t1a", "t1b", "1000"), BulkTransferService.splitCsv("t1a,t1b,1000"));
+		assertEquals(Arrays.asList("a,b", "say \"hi\"", ""), BulkTransferService.splitCsv("\"a,b\",\"say \"\"hi\"\"\","));
+		assertEquals(Arrays.asList("", "", ""), BulkTransferService.splitCsv(",,"));
+		assertEquals(Collections.singletonList(""), BulkTransferService.splitCsv(""));
+	}
+
+	@Test
+	void resumeSkipsLinesWithResult() {
+		BulkTransferService.ResumeState resumeState = new BulkTransferService.ResumeState(3, false);
+		resumeState.addResult(2, false);
+		resumeState.addResult(5, true);
+		resumeState.addResult(6, false);
+
+		assertTrue(resumeState.skip(2));
+		assertTrue(resumeState.skip(3));
+		assertFalse(resumeState.skip(4));
+		assertTrue(resumeState.skip(5));
+		assertTrue(resumeState.skip(6));
+		assertFalse(resumeState.skip(7));
+	}
+
+	@Test
+	void resumeRetriesLastFailures() {
+		BulkTransferService.ResumeState resumeState = new BulkTransferService.ResumeState(3, true);
+		resumeState.addResult(1, false);
+		resumeState.addResult(1, true);
+		resumeState.addResult(2, false);
+		resumeState.addResult(5, true);
+		resumeState.addResult(6, false);
+
+		assertTrue(resumeState.skip(1));
+		assertFalse(resumeState.skip(2));
+		assertTrue(resumeState.skip(3));
+		assertFalse(resumeState.skip(4));
+		assertTrue(resumeState.skip(5));
+		assertFalse(resumeState.skip(6));
+	}
+
+	@Test
+	void readResumeState() throws Exception {
+		Path output = directory.resolve("out.ndjson");
+		Path intents = directory.resolve("out.ndjson.intents.ndjson");
+		Files.writeString(output, result(4, true) + "\n" + result(6, false) + "\n" + "{\"line\":7,\"succ",
+				StandardCharsets.UTF_8);
+		Files.writeString(intents, intent(2, "c2") + "\n" + intent(4, "c4") + "\n" + intent(6, "c6") + "\n"
+				+ intent(7, "c7") + "\n" + intent(7, "c7b") + "\n", StandardCharsets.UTF_8);
+
+		BulkTransferService service = new BulkTransferService();
+		service.objectMapper = objectMapper;
+
+		BulkTransferService.ResumeState resumeState = service.readResumeState(output, intents, 3, false);
+		// only lines without a kept result keep their intents, a result cut short is not one
+		assertEquals(Collections.singleton(7L), resumeState.getIntents().keySet());
+		assertEquals(2, resumeState.getIntents().get(7L).size());
+		assertTrue(resumeState.skip(4));
+		assertTrue(resumeState.skip(6));
+		assertFalse(resumeState.skip(7));
+
+		resumeState = service.readResumeState(output, intents, 3, true);
+		assertEquals(Set.of(6L, 7L), resumeState.getIntents().keySet());
+	}
+
+	@Test
+	void resumeRecordsLandedTransfers() throws Exception {
+		Files.writeString(directory.resolve("payouts.ndjson"), transfer(1) + "\n" + transfer(2) + "\n"
+				+ transfer(3) + "\n" + transfer(4) + "\n" + transfer(5) + "\n", StandardCharsets.UTF_8);
+		// the earlier run stopped with lines 2 and 3 pushed but without a result
+		Path output = directory.resolve("payouts.ndjson.results.ndjson");
+		Files.writeString(output, result(1, true) + "\n" + result(4, false) + "\n", StandardCharsets.UTF_8);
+		Files.writeString(directory.resolve("payouts.ndjson.results.ndjson.checkpoint"), "1", StandardCharsets.UTF_8);
+		Files.writeString(directory.resolve("payouts.ndjson.results.ndjson.intents.ndjson"),
+				intent(2, "landed") + "\n" + intent(3, "lost") + "\n", StandardCharsets.UTF_8);
+
+		StubTransactionService transactionService = new StubTransactionService();
+		BulkTransferService service = newService(transactionService);
+		BulkJobDTO job = runJob(service, false);
+
+		assertEquals("COMPLETED", job.getStatus());
+		assertEquals(5, job.getCheckpoint());
+		assertEquals(Arrays.asList("3", "5"), transactionService.sent);
+
+		Map<Long, BulkTransferResultDTO> results = readResults(output);
+		assertEquals("landed", results.get(2L).getCid());
+		assertTrue(results.get(3L).isSuccess());
+		assertFalse(results.get(4L).isSuccess());
+		assertTrue(results.get(5L).isSuccess());
+		assertEquals("5", Files.readString(directory.resolve("payouts.ndjson.results.ndjson.checkpoint")).trim());
+		// intents are written for the transfers sent again
+		assertEquals(4, Files.readAllLines(
+				directory.resolve("payouts.ndjson.results.ndjson.intents.ndjson")).size());
+
+		// failed lines are only sent again when asked to
+		transactionService.sent.clear();
+		assertEquals("COMPLETED", runJob(service, false).getStatus());
+		assertTrue(transactionService.sent.isEmpty());
+		assertEquals("COMPLETED", runJob(service, true).getStatus());
+		assertEquals(Collections.singletonList("4"), transactionService.sent);
+		assertTrue(readResults(output).get(4L).isSuccess());
+	}
+
+	private BulkTransferService newService(StubTransactionService transactionService) {
+		BulkTransferService service = new BulkTransferService();
+		ReflectionTestUtils.setField(service, "directory", directory.toString());
+		service.objectMapper = objectMapper;
+		service.transactionService = transactionService;
+		service.networkService = new StubNetworkService();
+		return service;
+	}
+
+	private BulkJobDTO runJob(BulkTransferService service, boolean retryFailed) throws Exception {
+		BulkJobDTO job = service.start(new BulkTransferRequestDTO("payouts.ndjson", null, 2, retryFailed));
+		long deadline = System.currentTimeMillis() + 10_000;
+		while ("RUNNING".equals(job.getStatus()) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+			job = service.getJob(job.getJobId());
+		}
+		return job;
+	}
+
+	private Map<Long, BulkTransferResultDTO> readResults(Path output) throws Exception {
+		// the last result of a line wins
+		Map<Long, BulkTransferResultDTO> results = new HashMap<>();
+		for (String text : Files.readAllLines(output)) {
+			if (!text.isBlank()) {
+				BulkTransferResultDTO result = objectMapper.readValue(text, BulkTransferResultDTO.class);
+				results.put(result.getLine(), result);
+			}
+		}
+		return results;
+	}
+
+	private String transfer(int line) {
+		return "{\"fromAddress\":\"t1from\",\"toAddress\":\"t1to\",\"value\":\"1\",\"message\":\"" + line + "\"}";
+	}
+
+	private String result(long line, boolean success) throws Exception {
+		return objectMapper.writeValueAsString(new BulkTransferResultDTO(line, success,
+				success ? "c" + line : null, null, success ? null : "failed"));
+	}
+
+	private String intent(long line, String cid) throws Exception {
+		return objectMapper.writeValueAsString(new BulkTransferIntentDTO(line, (int) line, cid, cid));
+	}
+
+	private static class StubTransactionService extends TransactionService {
+
+		private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public CompletableFuture<TransactionSendResponseDTO> signAndSendTransactionAsync(String privateKey,
+				Integer keyId, String from, String to, String message, String value,
+				Consumer<SignedMessage> beforePush) {
+			byte[] cid = ("cid-" + message).getBytes(StandardCharsets.UTF_8);
+			Transaction transaction = new Transaction(0, new byte[0], new byte[0], Integer.parseInt(message), value,
+					0, "0", "0", 0, new byte[0]);
+			beforePush.accept(new SignedMessage(transaction, null, new byte[0], new byte[0], cid, cid));
+			sent.add(message);
+			String cidString = UtilityService.toCidString(cid);
+			return CompletableFuture.completedFuture(new TransactionSendResponseDTO(null, cidString, cidString));
+		}
+	}
+
+	private static class StubNetworkService extends NetworkService {
+
+		@Override
+		public Set<String> getPendingMessageCids() {
+			return Collections.singleton("landed");
+		}
+
+		@Override
+		public JsonNode searchMessage(String cid) {
+			return null;
+		}
+	}
+
+}
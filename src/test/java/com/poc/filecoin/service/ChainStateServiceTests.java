@@ -0,0 +1,192 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.poc.filecoin.dto.BalanceDTO;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChainStateServiceTests {
+
+	private static final String ADDRESS = "t01000";
+	private static final String OTHER_ADDRESS = "t01001";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void concurrentQueriesShareOneCall() throws Exception {
+		StubNetworkService networkService = new StubNetworkService();
+		CompletableFuture<JsonNode> response = new CompletableFuture<>();
+		networkService.responder = address -> response;
+		ChainStateService chainStateService = newChainStateService(networkService);
+
+		int callers = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		List<Future<CompletableFuture<BalanceDTO>>> futures = new ArrayList<>();
+		for (int i = 0; i < callers; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return chainStateService.getBalance(ADDRESS);
+			}));
+		}
+		start.countDown();
+		List<CompletableFuture<BalanceDTO>> balances = new ArrayList<>();
+		for (Future<CompletableFuture<BalanceDTO>> future : futures) {
+			balances.add(future.get(10, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+
+		// every caller is waiting on the one call in flight
+		assertEquals(1, networkService.actorCalls.get());
+		response.complete(actor("42"));
+		for (CompletableFuture<BalanceDTO> balance : balances) {
+			assertEquals("42", balance.get(10, TimeUnit.SECONDS).getBalance());
+		}
+		assertEquals(1, networkService.actorCalls.get());
+	}
+
+	@Test
+	void headChangeDropsCachedState() throws Exception {
+		StubNetworkService networkService = new StubNetworkService();
+		ChainStateService chainStateService = newChainStateService(networkService);
+
+		assertEquals(100, chainStateService.getBalance(ADDRESS).get().getHeight());
+		assertEquals(100, chainStateService.getBalance(ADDRESS).get().getHeight());
+		assertEquals(1, networkService.actorCalls.get());
+
+		// polling the same head keeps the cache
+		chainStateService.refreshHead();
+		chainStateService.getBalance(ADDRESS).get();
+		assertEquals(1, networkService.actorCalls.get());
+
+		networkService.height = 101;
+		chainStateService.refreshHead();
+		assertEquals(101, chainStateService.getBalance(ADDRESS).get().getHeight());
+		assertEquals(2, networkService.actorCalls.get());
+		// the fresh call is made at the tipset of the new head
+		assertEquals(tipSetKey(101), networkService.tipSetKeys.get(1));
+	}
+
+	@Test
+	void failedCallIsRetried() throws Exception {
+		StubNetworkService networkService = new StubNetworkService();
+		networkService.responder = address -> CompletableFuture.failedFuture(
+				new FilecoinRpcException("Timed out waiting for the filecoin node to respond"));
+		ChainStateService chainStateService = newChainStateService(networkService);
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> chainStateService.getBalance(ADDRESS).get());
+		assertTrue(e.getCause() instanceof FilecoinRpcException);
+
+		networkService.responder = address -> CompletableFuture.completedFuture(actor("7"));
+		assertEquals("7", chainStateService.getBalance(ADDRESS).get().getBalance());
+		assertEquals("7", chainStateService.getBalance(ADDRESS).get().getBalance());
+		// only the failed call is evicted, the successful one is cached
+		assertEquals(2, networkService.actorCalls.get());
+	}
+
+	@Test
+	void watchlistRefreshedOnHeadChange() throws Exception {
+		StubNetworkService networkService = new StubNetworkService();
+		ChainStateService chainStateService = newChainStateService(networkService);
+
+		assertEquals(2, chainStateService.watch(Arrays.asList(ADDRESS, OTHER_ADDRESS)));
+		assertEquals(2, networkService.actorCalls.get());
+
+		networkService.height = 101;
+		chainStateService.refreshHead();
+		assertEquals(4, networkService.actorCalls.get());
+		assertEquals(Arrays.asList(tipSetKey(101), tipSetKey(101)), networkService.tipSetKeys.subList(2, 4));
+
+		// the balances of watched addresses are already cached at the new head
+		List<BalanceDTO> balances = chainStateService.getWatchlistBalances().get();
+		assertEquals(2, balances.size());
+		balances.forEach(balance -> assertEquals(101, balance.getHeight()));
+		assertEquals(4, networkService.actorCalls.get());
+
+		chainStateService.refreshHead();
+		assertEquals(4, networkService.actorCalls.get());
+
+		assertEquals(1, chainStateService.unwatch(Collections.singletonList(OTHER_ADDRESS)));
+		networkService.height = 102;
+		chainStateService.refreshHead();
+		assertEquals(5, networkService.actorCalls.get());
+	}
+
+	private ChainStateService newChainStateService(NetworkService networkService) {
+		AddressService addressService = new AddressService();
+		addressService.networkService = networkService;
+		addressService.initAddressCache();
+
+		ChainStateService chainStateService = new ChainStateService();
+		chainStateService.networkService = networkService;
+		chainStateService.addressService = addressService;
+		chainStateService.initChainStateMetrics();
+		return chainStateService;
+	}
+
+	private JsonNode actor(String balance) {
+		ObjectNode actor = objectMapper.createObjectNode();
+		actor.putObject("Code").put("/", "bafk2bzaceaccount");
+		actor.putObject("Head").put("/", "bafy2bzacehead");
+		actor.put("Nonce", 0);
+		actor.put("Balance", balance);
+		return actor;
+	}
+
+	private JsonNode tipSetKey(long height) {
+		ObjectNode head = objectMapper.createObjectNode();
+		head.putArray("Cids").addObject().put("/", "bafyhead" + height);
+		return head.get("Cids");
+	}
+
+	private class StubNetworkService extends NetworkService {
+
+		private final AtomicInteger actorCalls = new AtomicInteger();
+		private final List<JsonNode> tipSetKeys = Collections.synchronizedList(new ArrayList<>());
+		private volatile long height = 100;
+		private volatile Function<String, CompletableFuture<JsonNode>> responder =
+				address -> CompletableFuture.completedFuture(actor("1000"));
+
+		@Override
+		public FilecoinNetwork getFilecoinNetwork() {
+			return FilecoinNetwork.DEV_NET;
+		}
+
+		@Override
+		public JsonNode getChainHeadTipSet() {
+			ObjectNode head = objectMapper.createObjectNode().put("Height", height);
+			head.set("Cids", tipSetKey(height));
+			return head;
+		}
+
+		@Override
+		public CompletableFuture<JsonNode> getActorAsync(String address, JsonNode tipSetKey) {
+			actorCalls.incrementAndGet();
+			tipSetKeys.add(tipSetKey);
+			return responder.apply(address);
+		}
+	}
+
+}
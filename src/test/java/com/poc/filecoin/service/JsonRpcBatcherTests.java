@@ -0,0 +1,203 @@
+package com.poc.filecoin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonRpcBatcherTests {
+
+	private final ExecutorService senderExecutor = Executors.newCachedThreadPool();
+	private final StubTransport transport = new StubTransport();
+
+	@AfterEach
+	void shutdown() {
+		transport.release.countDown();
+		senderExecutor.shutdownNow();
+	}
+
+	@Test
+	void responsesMatchedById() throws Exception {
+		// the node answers in reverse order
+		transport.responder = payload -> {
+			ArrayNode responses = JsonNodeFactory.instance.arrayNode();
+			for (int i = payload.size() - 1; i >= 0; i--) {
+				responses.add(response(payload.get(i).get("id").asLong()));
+			}
+			return responses;
+		};
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 10, 200);
+
+		List<ObjectNode> requests = requests(3);
+		List<CompletableFuture<JsonNode>> futures = submit(batcher, requests);
+		for (int i = 0; i < requests.size(); i++) {
+			long id = requests.get(i).get("id").asLong();
+			assertEquals(id * 10, futures.get(i).get(5, TimeUnit.SECONDS).get("result").asLong());
+		}
+		assertEquals(1, transport.payloads.size());
+		assertEquals(3, transport.payloads.get(0).size());
+		batcher.stop();
+	}
+
+	@Test
+	void missingResponseFailsOnlyItsCaller() throws Exception {
+		List<ObjectNode> requests = requests(3);
+		long missingId = requests.get(1).get("id").asLong();
+		transport.responder = payload -> {
+			ArrayNode responses = JsonNodeFactory.instance.arrayNode();
+			payload.forEach(request -> {
+				if (request.get("id").asLong() != missingId) {
+					responses.add(response(request.get("id").asLong()));
+				}
+			});
+			return responses;
+		};
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 10, 200);
+
+		List<CompletableFuture<JsonNode>> futures = submit(batcher, requests);
+		assertEquals(requests.get(0).get("id").asLong() * 10,
+				futures.get(0).get(5, TimeUnit.SECONDS).get("result").asLong());
+		assertEquals(requests.get(2).get("id").asLong() * 10,
+				futures.get(2).get(5, TimeUnit.SECONDS).get("result").asLong());
+		ExecutionException e = assertThrows(ExecutionException.class, () -> futures.get(1).get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof FilecoinRpcException);
+		assertTrue(e.getCause().getMessage().contains(String.valueOf(missingId)));
+		batcher.stop();
+	}
+
+	@Test
+	void errorObjectFailsWholeBatch() throws Exception {
+		transport.responder = payload -> {
+			ObjectNode response = JsonNodeFactory.instance.objectNode();
+			response.putObject("error").put("code", -32600).put("message", "batch too large");
+			return response;
+		};
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 10, 200);
+
+		for (CompletableFuture<JsonNode> future : submit(batcher, requests(3))) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause() instanceof FilecoinRpcException);
+			assertEquals(-32600, ((FilecoinRpcException) e.getCause()).getCode());
+			assertTrue(e.getCause().getMessage().contains("batch too large"));
+		}
+		batcher.stop();
+	}
+
+	@Test
+	void fullBatchSentBeforeWindowEnds() throws Exception {
+		transport.responder = JsonRpcBatcherTests::responses;
+		// the window would hold the batch for a minute
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 3, 60_000);
+
+		long start = System.nanoTime();
+		for (CompletableFuture<JsonNode> future : submit(batcher, requests(3))) {
+			future.get(5, TimeUnit.SECONDS);
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertEquals(1, transport.payloads.size());
+		assertEquals(3, transport.payloads.get(0).size());
+		batcher.stop();
+	}
+
+	@Test
+	void stopFailsPendingRequests() throws Exception {
+		transport.responder = JsonRpcBatcherTests::responses;
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 10, 60_000);
+
+		List<CompletableFuture<JsonNode>> futures = submit(batcher, requests(3));
+		// the collector holds the requests while it waits for the window to end
+		Thread.sleep(100);
+		batcher.stop();
+		for (CompletableFuture<JsonNode> future : futures) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+			assertTrue(e.getCause().getMessage().contains("stopped"));
+		}
+		assertTrue(transport.payloads.isEmpty());
+		assertTrue(batcher.submit(requests(1).get(0)).isCompletedExceptionally());
+	}
+
+	@Test
+	void asyncCallTimesOutWhenBatchIsNeverAnswered() {
+		transport.responder = payload -> {
+			try {
+				transport.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return responses(payload);
+		};
+		transport.batchWindowMillis = 1;
+		transport.requestTimeoutMillis = 50;
+		transport.meterRegistry = new SimpleMeterRegistry();
+		JsonRpcBatcher batcher = new JsonRpcBatcher(transport, senderExecutor, 10, 1);
+		ReflectionTestUtils.setField(transport, "batcher", batcher);
+
+		CompletableFuture<JsonNode> future = transport.invokeAsync("Filecoin.ChainHead", Collections.emptyList(),
+				JsonNode.class);
+		ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof FilecoinRpcException);
+		assertTrue(e.getCause().getMessage().contains("Timed out"));
+		batcher.stop();
+	}
+
+	private List<ObjectNode> requests(int count) {
+		List<ObjectNode> requests = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			requests.add(transport.createRequest("Filecoin.ChainHead", Collections.emptyList()));
+		}
+		return requests;
+	}
+
+	private List<CompletableFuture<JsonNode>> submit(JsonRpcBatcher batcher, List<ObjectNode> requests) {
+		List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+		requests.forEach(request -> futures.add(batcher.submit(request)));
+		return futures;
+	}
+
+	private static JsonNode responses(JsonNode payload) {
+		if (!payload.isArray()) {
+			return response(payload.get("id").asLong());
+		}
+		ArrayNode responses = JsonNodeFactory.instance.arrayNode();
+		payload.forEach(request -> responses.add(response(request.get("id").asLong())));
+		return responses;
+	}
+
+	private static ObjectNode response(long id) {
+		return JsonNodeFactory.instance.objectNode().put("jsonrpc", "2.0").put("id", id).put("result", id * 10);
+	}
+
+	private static class StubTransport extends JsonRpcTransportService {
+
+		private final List<JsonNode> payloads = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch release = new CountDownLatch(1);
+		private volatile Function<JsonNode, JsonNode> responder;
+
+		@Override
+		JsonNode send(JsonNode payload) throws FilecoinRpcException {
+			payloads.add(payload);
+			return responder.apply(payload);
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.poc.filecoin.service;
+
+import com.poc.filecoin.dto.StoredKeyDTO;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinException;
+import com.poc.filecoin.exceptions.InvalidFilecoinPrivateKeyException;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.util.FilecoinAddressCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.AEADBadTagException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyStoreServiceTests {
+
+	private static final String PASSWORD = "correct horse battery staple";
+	// header, then status, network, address length, padding, address and nonce ahead of the encrypted key
+	private static final int FIRST_SLOT_CIPHERTEXT = 64 + 4 + 64 + 12;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void storedKeysSurviveReopen() throws Exception {
+		Path file = directory.resolve("keys.fcks");
+		byte[] privateKey = privateKey(1);
+		Address address = new SECP256K1Address(privateKey, FilecoinNetwork.DEV_NET);
+
+		KeyStoreService keyStore = open(file, PASSWORD, 10);
+		StoredKeyDTO created = keyStore.createKey(FilecoinProtocol.SECP256K1);
+		StoredKeyDTO imported = keyStore.importKey(privateKey, FilecoinProtocol.SECP256K1);
+		assertEquals(0, created.getKeyId());
+		assertEquals(1, imported.getKeyId());
+		// a key that is already stored keeps its slot
+		assertEquals(1, keyStore.importKey(privateKey, FilecoinProtocol.SECP256K1).getKeyId());
+		assertArrayEquals(privateKey, keyStore.getPrivateKey(address, null));
+		keyStore.close();
+
+		KeyStoreService reopened = open(file, PASSWORD, 10);
+		List<StoredKeyDTO> keys = reopened.listKeys();
+		assertEquals(2, keys.size());
+		assertEquals(created.getAddress(), keys.get(0).getAddress());
+		assertEquals(imported.getAddress(), keys.get(1).getAddress());
+		assertArrayEquals(privateKey, reopened.getPrivateKey(address, 1));
+		assertArrayEquals(privateKey, reopened.getPrivateKey(address, null));
+		assertEquals(32, reopened.getPrivateKey(toAddress(created.getAddress()), 0).length);
+		// a key id only unlocks the key of its own address
+		assertThrows(InvalidFilecoinPrivateKeyException.class, () -> reopened.getPrivateKey(address, 0));
+		reopened.close();
+	}
+
+	@Test
+	void rejectWrongPassword() throws Exception {
+		Path file = directory.resolve("keys.fcks");
+		KeyStoreService keyStore = open(file, PASSWORD, 10);
+		keyStore.importKey(privateKey(2), FilecoinProtocol.SECP256K1);
+		keyStore.close();
+
+		assertThrows(InvalidFilecoinPrivateKeyException.class, () -> open(file, "wrong password", 10));
+	}
+
+	@Test
+	void rejectTamperedSlot() throws Exception {
+		Path file = directory.resolve("keys.fcks");
+		byte[] privateKey = privateKey(3);
+		KeyStoreService keyStore = open(file, PASSWORD, 10);
+		keyStore.importKey(privateKey, FilecoinProtocol.SECP256K1);
+		keyStore.close();
+
+		byte[] content = Files.readAllBytes(file);
+		content[FIRST_SLOT_CIPHERTEXT] ^= 1;
+		Files.write(file, content);
+
+		KeyStoreService tampered = open(file, PASSWORD, 10);
+		assertThrows(AEADBadTagException.class, () -> tampered.getPrivateKey(
+				new SECP256K1Address(privateKey, FilecoinNetwork.DEV_NET), 0));
+		tampered.close();
+	}
+
+	@Test
+	void rejectKeysOnceFull() throws Exception {
+		KeyStoreService keyStore = open(directory.resolve("keys.fcks"), PASSWORD, 2);
+		keyStore.importKey(privateKey(4), FilecoinProtocol.SECP256K1);
+		keyStore.importKey(privateKey(5), FilecoinProtocol.SECP256K1);
+
+		assertThrows(InvalidFilecoinException.class, () -> keyStore.importKey(privateKey(6), FilecoinProtocol.SECP256K1));
+		assertEquals(2, keyStore.listKeys().size());
+		keyStore.close();
+	}
+
+	private static KeyStoreService open(Path file, String password, int slots) throws Exception {
+		KeyStoreService keyStore = new KeyStoreService();
+		keyStore.networkService = new NetworkService() {
+			@Override
+			public FilecoinNetwork getFilecoinNetwork() {
+				return FilecoinNetwork.DEV_NET;
+			}
+		};
+		ReflectionTestUtils.setField(keyStore, "keyStorePath", file.toString());
+		ReflectionTestUtils.setField(keyStore, "keyStorePassword", password);
+		ReflectionTestUtils.setField(keyStore, "slotCount", slots);
+		keyStore.init();
+		return keyStore;
+	}
+
+	private static byte[] privateKey(long seed) {
+		byte[] privateKey = new byte[32];
+		new Random(seed).nextBytes(privateKey);
+		// keeps the key below the curve order
+		privateKey[0] &= 0x7f;
+		return privateKey;
+	}
+
+	private static Address toAddress(String encodedAddress) throws Exception {
+		byte[] payload = FilecoinAddressCodec.decode(encodedAddress);
+		byte[] bytes = new byte[payload.length + 1];
+		bytes[0] = (byte) FilecoinProtocol.SECP256K1.getValue();
+		System.arraycopy(payload, 0, bytes, 1, payload.length);
+		Address address = new SECP256K1Address();
+		address.setAddress(bytes);
+		return address;
+	}
+
+}
@@ -0,0 +1,160 @@
+package com.poc.filecoin.service;
+
+import com.poc.filecoin.exceptions.FilecoinRpcException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NonceSequencerServiceTests {
+
+	private static final String ADDRESS = "t1address";
+	private static final int SEED = 5;
+
+	@Test
+	void concurrentSendsNeverShareNonces() throws Exception {
+		// the pool only ever reports the seed, it never sees the nonces in flight
+		StubNetworkService networkService = new StubNetworkService(SEED);
+		NonceSequencerService sequencer = new NonceSequencerService();
+		sequencer.setNetworkService(networkService);
+
+		Set<Integer> used = ConcurrentHashMap.newKeySet();
+		AtomicInteger duplicates = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < 16; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 2000; i++) {
+					int nonce = sequencer.nextNonce(ADDRESS);
+					int outcome = ThreadLocalRandom.current().nextInt(10);
+					if (outcome == 0) {
+						sequencer.release(ADDRESS, nonce);
+					} else if (outcome == 1) {
+						sequencer.onPushRejected(ADDRESS, nonce,
+								new FilecoinRpcException("MpoolPush failed: unfulfilled nonce gap", 1));
+					} else if (outcome == 2) {
+						sequencer.onPushRejected(ADDRESS, nonce,
+								new FilecoinRpcException("Timed out waiting for the filecoin node to respond"));
+					} else if (!used.add(nonce)) {
+						duplicates.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertEquals(0, duplicates.get());
+		// every nonce given back is handed out again before the sequence moves on
+		int max = used.stream().mapToInt(Integer::intValue).max().getAsInt();
+		int nonce;
+		while ((nonce = sequencer.nextNonce(ADDRESS)) < max) {
+			assertTrue(used.add(nonce), "nonce " + nonce + " handed out twice");
+		}
+		assertEquals(max + 1, nonce);
+		assertEquals(max + 1 - SEED, used.size());
+	}
+
+	@Test
+	void resyncMovesForwardOnly() {
+		StubNetworkService networkService = new StubNetworkService(SEED);
+		NonceSequencerService sequencer = new NonceSequencerService();
+		sequencer.setNetworkService(networkService);
+
+		assertEquals(5, sequencer.nextNonce(ADDRESS));
+		assertEquals(6, sequencer.nextNonce(ADDRESS));
+		assertEquals(7, sequencer.nextNonce(ADDRESS));
+		// 5 failed while 6 and 7 are in flight, it is the next nonce handed out
+		sequencer.release(ADDRESS, 5);
+		// the stale pool nonce does not move the sequence back onto 6 and 7
+		sequencer.resync(ADDRESS);
+		assertEquals(5, sequencer.nextNonce(ADDRESS));
+		assertEquals(8, sequencer.nextNonce(ADDRESS));
+
+		// the pool moved past the sequence, gaps below it are taken
+		sequencer.release(ADDRESS, 6);
+		networkService.poolNonce = 20;
+		sequencer.onPushRejected(ADDRESS, 8, new FilecoinRpcException("MpoolPush failed: message nonce too low", 1));
+		assertEquals(20, sequencer.nextNonce(ADDRESS));
+		assertEquals(3, networkService.calls.get());
+	}
+
+	@Test
+	void otherErrorsContainingNonceDoNotResync() {
+		StubNetworkService networkService = new StubNetworkService(SEED);
+		NonceSequencerService sequencer = new NonceSequencerService();
+		sequencer.setNetworkService(networkService);
+
+		int nonce = sequencer.nextNonce(ADDRESS);
+		sequencer.onPushRejected(ADDRESS, nonce, new FilecoinRpcException("failed to get nonce: timeout"));
+		assertEquals(1, networkService.calls.get());
+		assertEquals(nonce, sequencer.nextNonce(ADDRESS));
+	}
+
+	@Test
+	void resyncDoesNotBlockSends() throws Exception {
+		StubNetworkService networkService = new StubNetworkService(SEED);
+		NonceSequencerService sequencer = new NonceSequencerService();
+		sequencer.setNetworkService(networkService);
+		assertEquals(5, sequencer.nextNonce(ADDRESS));
+
+		// the pool lookup of the resync hangs until the other sends are done
+		networkService.lookupStarted = new CountDownLatch(1);
+		networkService.lookupReleased = new CountDownLatch(1);
+		networkService.poolNonce = 7;
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<?> resync = executor.submit(() -> sequencer.resync(ADDRESS));
+		assertTrue(networkService.lookupStarted.await(5, TimeUnit.SECONDS));
+
+		assertEquals(6, sequencer.nextNonce(ADDRESS));
+		assertEquals(7, sequencer.nextNonce(ADDRESS));
+		assertEquals(8, sequencer.nextNonce(ADDRESS));
+		networkService.lookupReleased.countDown();
+		resync.get(5, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		// the pool nonce is behind the nonces handed out meanwhile, the sequence keeps them
+		assertEquals(9, sequencer.nextNonce(ADDRESS));
+	}
+
+	private static class StubNetworkService extends NetworkService {
+
+		private volatile int poolNonce;
+		private final AtomicInteger calls = new AtomicInteger();
+		private volatile CountDownLatch lookupStarted;
+		private volatile CountDownLatch lookupReleased;
+
+		StubNetworkService(int poolNonce) {
+			this.poolNonce = poolNonce;
+		}
+
+		@Override
+		public int getNonceForAddress(String address) {
+			calls.incrementAndGet();
+			if (lookupReleased != null) {
+				lookupStarted.countDown();
+				try {
+					lookupReleased.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return poolNonce;
+		}
+	}
+
+}
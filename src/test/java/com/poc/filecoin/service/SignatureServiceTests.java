@@ -0,0 +1,167 @@
+package com.poc.filecoin.service;
+
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.model.Address;
+import com.poc.filecoin.model.BLSAddress;
+import com.poc.filecoin.model.BLSSignature;
+import com.poc.filecoin.model.ECDSASignature;
+import com.poc.filecoin.model.SECP256K1Address;
+import com.poc.filecoin.model.Signature;
+import com.poc.filecoin.model.SignedTransaction;
+import com.poc.filecoin.model.Transaction;
+import com.poc.filecoin.util.CborMessageEncoder;
+import com.poc.filecoin.util.UtilityService;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignatureServiceTests {
+
+	private SignatureService signatureService;
+
+	@BeforeEach
+	void setUp() {
+		signatureService = new SignatureService();
+		signatureService.initSignerCache();
+	}
+
+	@Test
+	void signedSecp256k1TransactionVerifies() throws Exception {
+		Address sender = new SECP256K1Address(privateKey(1), FilecoinNetwork.DEV_NET);
+		Transaction transaction = transaction(sender, 0);
+
+		Signature signature = sign(sender, transaction, FilecoinProtocol.SECP256K1);
+
+		assertTrue(signatureService.verifySignature(transaction, signature));
+		assertTrue(ECDSASignature.verify(digest(transaction), signature.getSignatureBytes(), sender.getPayload()));
+	}
+
+	@Test
+	void signedBLSTransactionVerifies() throws Exception {
+		Address sender = new BLSAddress(privateKey(2), FilecoinNetwork.DEV_NET);
+		Transaction transaction = transaction(sender, 0);
+
+		Signature signature = sign(sender, transaction, FilecoinProtocol.BLS);
+
+		assertTrue(signatureService.verifySignature(transaction, signature));
+		assertTrue(BLSSignature.verify(digest(transaction), signature.getSignatureBytes(), sender.getPayload()));
+	}
+
+	@Test
+	void rejectTamperedDigest() throws Exception {
+		Address secp256k1Sender = new SECP256K1Address(privateKey(3), FilecoinNetwork.DEV_NET);
+		Transaction secp256k1Transaction = transaction(secp256k1Sender, 0);
+		Signature secp256k1Signature = sign(secp256k1Sender, secp256k1Transaction, FilecoinProtocol.SECP256K1);
+		Address blsSender = new BLSAddress(privateKey(4), FilecoinNetwork.DEV_NET);
+		Transaction blsTransaction = transaction(blsSender, 0);
+		Signature blsSignature = sign(blsSender, blsTransaction, FilecoinProtocol.BLS);
+
+		byte[] secp256k1Digest = digest(secp256k1Transaction);
+		secp256k1Digest[secp256k1Digest.length - 1] ^= 1;
+		byte[] blsDigest = digest(blsTransaction);
+		blsDigest[blsDigest.length - 1] ^= 1;
+
+		assertFalse(ECDSASignature.verify(secp256k1Digest, secp256k1Signature.getSignatureBytes(),
+				secp256k1Sender.getPayload()));
+		assertFalse(BLSSignature.verify(blsDigest, blsSignature.getSignatureBytes(), blsSender.getPayload()));
+
+		// a changed nonce is a different message, the signature of the original does not cover it
+		secp256k1Transaction.setNonce(1);
+		blsTransaction.setNonce(1);
+		assertFalse(signatureService.verifySignature(secp256k1Transaction, secp256k1Signature));
+		assertFalse(signatureService.verifySignature(blsTransaction, blsSignature));
+	}
+
+	@Test
+	void rejectSignatureTypeNotMatchingSender() throws Exception {
+		Address secp256k1Sender = new SECP256K1Address(privateKey(5), FilecoinNetwork.DEV_NET);
+		Address blsSender = new BLSAddress(privateKey(6), FilecoinNetwork.DEV_NET);
+		Transaction secp256k1Transaction = transaction(secp256k1Sender, 0);
+		Transaction blsTransaction = transaction(blsSender, 0);
+		Signature secp256k1Signature = sign(secp256k1Sender, secp256k1Transaction, FilecoinProtocol.SECP256K1);
+		Signature blsSignature = sign(blsSender, blsTransaction, FilecoinProtocol.BLS);
+
+		// valid signature bytes labelled with the type of the other protocol
+		assertFalse(signatureService.verifySignature(secp256k1Transaction,
+				new BLSSignature(secp256k1Signature.getSignatureBytes())));
+		assertFalse(signatureService.verifySignature(blsTransaction,
+				new ECDSASignature(blsSignature.getSignatureBytes())));
+		assertEquals(Arrays.asList(false, false), signatureService.verifySignatures(Arrays.asList(
+				new SignedTransaction(secp256k1Transaction, new BLSSignature(secp256k1Signature.getSignatureBytes())),
+				new SignedTransaction(blsTransaction, new ECDSASignature(blsSignature.getSignatureBytes())))));
+	}
+
+	@Test
+	void batchFallbackFlagsOnlyTheBadBLSSignature() throws Exception {
+		List<SignedTransaction> signedTransactions = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Address sender = new BLSAddress(privateKey(10 + i), FilecoinNetwork.DEV_NET);
+			Transaction transaction = transaction(sender, i);
+			signedTransactions.add(new SignedTransaction(transaction, sign(sender, transaction, FilecoinProtocol.BLS)));
+		}
+		Address secp256k1Sender = new SECP256K1Address(privateKey(20), FilecoinNetwork.DEV_NET);
+		Transaction secp256k1Transaction = transaction(secp256k1Sender, 0);
+		signedTransactions.add(new SignedTransaction(secp256k1Transaction,
+				sign(secp256k1Sender, secp256k1Transaction, FilecoinProtocol.SECP256K1)));
+		assertEquals(Arrays.asList(true, true, true, true, true, true),
+				signatureService.verifySignatures(signedTransactions));
+
+		// a well formed signature of the same sender over another message
+		Address badSender = new BLSAddress(privateKey(12), FilecoinNetwork.DEV_NET);
+		Signature otherMessageSignature = sign(badSender, transaction(badSender, 99), FilecoinProtocol.BLS);
+		signedTransactions.set(2, new SignedTransaction(signedTransactions.get(2).getTransaction(),
+				otherMessageSignature));
+
+		List<byte[]> publicKeys = new ArrayList<>();
+		List<byte[]> digests = new ArrayList<>();
+		List<byte[]> signatures = new ArrayList<>();
+		for (SignedTransaction signedTransaction : signedTransactions.subList(0, 5)) {
+			byte[] from = signedTransaction.getTransaction().getFrom();
+			publicKeys.add(Arrays.copyOfRange(from, 1, from.length));
+			digests.add(digest(signedTransaction.getTransaction()));
+			signatures.add(signedTransaction.getSignature().getSignatureBytes());
+		}
+		assertFalse(BLSSignature.batchVerify(publicKeys, digests, signatures));
+		assertTrue(BLSSignature.batchVerify(publicKeys.subList(3, 5), digests.subList(3, 5), signatures.subList(3, 5)));
+
+		assertEquals(Arrays.asList(true, true, false, true, true, true),
+				signatureService.verifySignatures(signedTransactions));
+	}
+
+	private Signature sign(Address sender, Transaction transaction, FilecoinProtocol filecoinProtocol) {
+		return signatureService.signTransaction(Hex.encodeHexString(sender.getPrivateKey()), transaction,
+				filecoinProtocol);
+	}
+
+	private static byte[] digest(Transaction transaction) throws Exception {
+		return UtilityService.getDigest(CborMessageEncoder.encode(transaction));
+	}
+
+	private static Transaction transaction(Address sender, int nonce) {
+		byte[] to = new byte[21];
+		new Random(nonce).nextBytes(to);
+		to[0] = (byte) FilecoinProtocol.SECP256K1.getValue();
+		return new Transaction(0, to, sender.getAddress(), nonce, "1000", 1_000_000, "100", "10", 0,
+				Base64.getEncoder().encode(new byte[0]));
+	}
+
+	private static byte[] privateKey(long seed) {
+		byte[] privateKey = new byte[32];
+		new Random(seed).nextBytes(privateKey);
+		// keeps the key below the secp256k1 and BLS12-381 group orders
+		privateKey[0] &= 0x3f;
+		return privateKey;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.model.ExtendedKey;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Bip32KeyDerivationTests {
+
+	// test vector 1 of BIP32
+	private static final String SEED = "000102030405060708090a0b0c0d0e0f";
+
+	@Test
+	void deriveMatchesBip32TestVector() throws Exception {
+		ExtendedKey master = Bip32KeyDerivation.master(Hex.decodeHex(SEED));
+
+		assertEquals("e8f32e723decf4051aefac8e2c93c9c5b214313817cdb01a1494b917c8436b35",
+				Hex.encodeHexString(master.getPrivateKey()));
+		assertEquals("edb2e14f9ee77d26dd93b4ecede8d16ed408ce149b6cd80b0715a2d911a0afea",
+				Hex.encodeHexString(Bip32KeyDerivation.derivePath(master, "m/0'").getPrivateKey()));
+		assertEquals("3c6cb8d0f6a264c91ea8b5030fadaa8e538b020f0a387421a12de9319dc93368",
+				Hex.encodeHexString(Bip32KeyDerivation.derivePath(master, "m/0'/1").getPrivateKey()));
+		assertEquals("471b76e389e528d6de6d816857e012c5455051cad6660850e58372a6c3e6e7c8",
+				Hex.encodeHexString(Bip32KeyDerivation.derivePath(master, "m/0'/1/2'/2/1000000000").getPrivateKey()));
+	}
+
+	@Test
+	void deriveFromCachedParentMatchesFullPath() throws Exception {
+		ExtendedKey master = Bip32KeyDerivation.master(Hex.decodeHex(SEED));
+		ExtendedKey account = Bip32KeyDerivation.derivePath(master, Bip32KeyDerivation.accountPath(0));
+
+		for (int i = 0; i < 5; i++) {
+			assertArrayEquals(Bip32KeyDerivation.derivePath(master, Bip32KeyDerivation.filecoinPath(0, i)).getPrivateKey(),
+					Bip32KeyDerivation.deriveChild(account, i).getPrivateKey());
+		}
+	}
+
+}
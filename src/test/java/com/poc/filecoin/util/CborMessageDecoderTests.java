@@ -0,0 +1,89 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.exceptions.InvalidFilecoinPayloadException;
+import com.poc.filecoin.model.SignedTransaction;
+import com.poc.filecoin.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CborMessageDecoderTests {
+
+	@Test
+	void decodeRoundTripsWithEncoder() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			byte[] cbor = CborMessageEncoder.encode(TestTransactions.randomCanonical(random));
+
+			Transaction decoded = CborMessageDecoder.decodeMessage(cbor);
+			assertArrayEquals(cbor, CborMessageEncoder.encode(decoded));
+
+			ByteBuffer direct = ByteBuffer.allocateDirect(cbor.length);
+			direct.put(cbor).flip();
+			assertArrayEquals(cbor, CborMessageEncoder.encode(CborMessageDecoder.decodeMessage(direct)));
+			assertEquals(0, direct.remaining());
+		}
+	}
+
+	@Test
+	void decodeSignedMessagesFromStream() throws Exception {
+		Random random = new Random(7);
+		ByteArrayOutputStream archive = new ByteArrayOutputStream();
+		List<byte[]> signedMessages = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			byte[] message = CborMessageEncoder.encode(TestTransactions.randomCanonical(random));
+			boolean bls = random.nextBoolean();
+			byte[] signature = new byte[bls ? 96 : 65];
+			random.nextBytes(signature);
+			byte[] signedMessage = CborMessageEncoder.encodeSignedMessage(message, bls ? 2 : 1, signature);
+			signedMessages.add(signedMessage);
+			archive.write(signedMessage);
+		}
+
+		CborMessageDecoder decoder = new CborMessageDecoder(new ByteArrayInputStream(archive.toByteArray()));
+		for (byte[] expected : signedMessages) {
+			SignedTransaction decoded = decoder.nextSignedMessage();
+			byte[] message = CborMessageEncoder.encode(decoded.getTransaction());
+			assertArrayEquals(expected, CborMessageEncoder.encodeSignedMessage(message,
+					decoded.getSignature().getSignatureType().getValue(), decoded.getSignature().getSignatureBytes()));
+		}
+		assertFalse(decoder.hasNext());
+		assertNull(decoder.nextSignedMessage());
+	}
+
+	@Test
+	void rejectMalformedInput() throws Exception {
+		byte[] cbor = CborMessageEncoder.encode(TestTransactions.randomCanonical(new Random(11)));
+
+		// truncated message
+		assertThrows(InvalidFilecoinPayloadException.class,
+				() -> CborMessageDecoder.decodeMessage(Arrays.copyOf(cbor, cbor.length - 1)));
+		// trailing bytes
+		assertThrows(InvalidFilecoinPayloadException.class,
+				() -> CborMessageDecoder.decodeMessage(Arrays.copyOf(cbor, cbor.length + 1)));
+		// wrong number of fields
+		byte[] wrongHeader = cbor.clone();
+		wrongHeader[0] = (byte) 0x89;
+		assertThrows(InvalidFilecoinPayloadException.class, () -> CborMessageDecoder.decodeMessage(wrongHeader));
+		// version 0 written with a one byte argument
+		byte[] nonCanonical = new byte[cbor.length + 1];
+		nonCanonical[0] = cbor[0];
+		nonCanonical[1] = 0x18;
+		System.arraycopy(cbor, 1, nonCanonical, 2, cbor.length - 1);
+		nonCanonical[2] = 0;
+		assertThrows(InvalidFilecoinPayloadException.class, () -> CborMessageDecoder.decodeMessage(nonCanonical));
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CborMessageEncoderTests {
+
+	@Test
+	void encodeMatchesMarshalCBOR() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			Transaction transaction = TestTransactions.random(random);
+			byte[] expected = UtilityService.marshalCBOR(transaction).toByteArray();
+
+			assertEquals(expected.length, CborMessageEncoder.encodedSize(transaction));
+			assertArrayEquals(expected, CborMessageEncoder.encode(transaction));
+		}
+	}
+
+	@Test
+	void encodeIntoBufferAtPosition() throws Exception {
+		Random random = new Random(7);
+		Transaction transaction = TestTransactions.random(random);
+		byte[] expected = UtilityService.marshalCBOR(transaction).toByteArray();
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put((byte) 0xff);
+		assertEquals(expected.length, CborMessageEncoder.encode(transaction, buffer));
+		assertEquals(0, buffer.remaining());
+
+		byte[] actual = new byte[expected.length];
+		buffer.position(1);
+		buffer.get(actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	void encodeSignedMessage() throws Exception {
+		byte[] message = CborMessageEncoder.encode(TestTransactions.random(new Random(11)));
+		byte[] signature = new byte[65];
+		new Random(13).nextBytes(signature);
+
+		byte[] signedMessage = CborMessageEncoder.encodeSignedMessage(message, 1, signature);
+
+		// two element array, message, then a 66 byte string holding the type and the signature
+		assertEquals(1 + message.length + 2 + 66, signedMessage.length);
+		assertEquals((byte) 0x82, signedMessage[0]);
+		assertArrayEquals(message, Arrays.copyOfRange(signedMessage, 1, 1 + message.length));
+		assertEquals((byte) 0x58, signedMessage[1 + message.length]);
+		assertEquals(66, signedMessage[2 + message.length]);
+		assertEquals(1, signedMessage[3 + message.length]);
+		assertArrayEquals(signature, Arrays.copyOfRange(signedMessage, 4 + message.length, signedMessage.length));
+	}
+
+}
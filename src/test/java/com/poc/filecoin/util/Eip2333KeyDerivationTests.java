@@ -0,0 +1,24 @@
+package com.poc.filecoin.util;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Eip2333KeyDerivationTests {
+
+	@Test
+	void deriveMatchesEip2333TestCase() throws Exception {
+		byte[] seed = Hex.decodeHex("c55257c360c07c72029aebc1b53c05ed0362ada38ead3e3e9efa3708e53495531f09a6987599d18264c1e1c92f2cf141630c7a3c4ab7c81b2f001698e7463b04");
+
+		byte[] master = Eip2333KeyDerivation.master(seed);
+
+		assertEquals(new BigInteger("6083874454709270928345386274498605044986640685124978867557563392430687146096"),
+				new BigInteger(1, master));
+		assertEquals(new BigInteger("20397789859736650942317412262472558107875392172444076792671091975210932703118"),
+				new BigInteger(1, Eip2333KeyDerivation.deriveChild(master, 0)));
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.poc.filecoin.util;
+
+import com.google.common.io.BaseEncoding;
+import com.poc.filecoin.enums.AddressValidationResult;
+import com.poc.filecoin.enums.FilecoinNetwork;
+import com.poc.filecoin.enums.FilecoinProtocol;
+import com.poc.filecoin.exceptions.InvalidFilecoinAddressException;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FilecoinAddressCodecTests {
+
+	@Test
+	void encodeMatchesGuavaBase32() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			FilecoinProtocol protocol = random.nextBoolean() ? FilecoinProtocol.SECP256K1 : FilecoinProtocol.BLS;
+			FilecoinNetwork network = random.nextBoolean() ? FilecoinNetwork.MAIN_NET : FilecoinNetwork.DEV_NET;
+			byte[] payload = new byte[protocol == FilecoinProtocol.SECP256K1 ? 20 : 48];
+			random.nextBytes(payload);
+
+			String encoded = FilecoinAddressCodec.encode(network, protocol, payload);
+
+			assertEquals(guavaEncode(network, protocol, payload), encoded);
+			assertArrayEquals(payload, FilecoinAddressCodec.decode(encoded));
+		}
+	}
+
+	@Test
+	void decodeIntoBufferAtPosition() throws Exception {
+		byte[] payload = new byte[20];
+		new Random(7).nextBytes(payload);
+		String encoded = FilecoinAddressCodec.encode(FilecoinNetwork.DEV_NET, FilecoinProtocol.SECP256K1, payload);
+
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		buffer.put((byte) 1);
+		assertEquals(20, FilecoinAddressCodec.decode(encoded, buffer));
+		assertEquals(21, buffer.position());
+
+		byte[] decoded = new byte[20];
+		buffer.position(1);
+		buffer.get(decoded);
+		assertArrayEquals(payload, decoded);
+	}
+
+	@Test
+	void decodeRejectsInvalidAddresses() {
+		byte[] payload = new byte[20];
+		String encoded = FilecoinAddressCodec.encode(FilecoinNetwork.DEV_NET, FilecoinProtocol.SECP256K1, payload);
+		char[] corrupted = encoded.toCharArray();
+		corrupted[5] = corrupted[5] == 'a' ? 'b' : 'a';
+
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decode(new String(corrupted)));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decode("x" + encoded.substring(1)));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decode(encoded.toUpperCase()));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decode("t1a"));
+	}
+
+	@Test
+	void validateReportsResultCodes() {
+		byte[] payload = new byte[20];
+		new Random(11).nextBytes(payload);
+		String encoded = FilecoinAddressCodec.encode(FilecoinNetwork.MAIN_NET, FilecoinProtocol.SECP256K1, payload);
+		char[] corrupted = encoded.toCharArray();
+		corrupted[5] = corrupted[5] == 'a' ? 'b' : 'a';
+		String bls = FilecoinAddressCodec.encode(FilecoinNetwork.DEV_NET, FilecoinProtocol.BLS, new byte[48]);
+
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate(encoded));
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate(bls));
+		assertEquals(AddressValidationResult.EMPTY, FilecoinAddressCodec.validate(null));
+		assertEquals(AddressValidationResult.INVALID_LENGTH, FilecoinAddressCodec.validate("t1"));
+		assertEquals(AddressValidationResult.INVALID_NETWORK, FilecoinAddressCodec.validate("x" + encoded.substring(1)));
+		assertEquals(AddressValidationResult.INVALID_PROTOCOL, FilecoinAddressCodec.validate("f9" + encoded.substring(2)));
+		assertEquals(AddressValidationResult.INVALID_CHARACTER,
+				FilecoinAddressCodec.validate(encoded.substring(0, 2) + encoded.substring(2).toUpperCase()));
+		assertEquals(AddressValidationResult.INVALID_PAYLOAD_LENGTH,
+				FilecoinAddressCodec.validate(encoded.substring(0, encoded.length() - 8)));
+		assertEquals(AddressValidationResult.INVALID_CHECKSUM, FilecoinAddressCodec.validate(new String(corrupted)));
+	}
+
+	@Test
+	void idAddressRoundTrips() throws Exception {
+		long[] ids = {0, 1, 127, 128, 1000, 16384, 1L << 32, Long.MAX_VALUE};
+		for (long id : ids) {
+			byte[] payload = FilecoinAddressCodec.uvarint(id);
+			assertEquals(id, FilecoinAddressCodec.readUvarint(payload, 0, payload.length));
+		}
+		assertArrayEquals(new byte[]{(byte) 0xe8, 0x07}, FilecoinAddressCodec.uvarint(1000));
+		assertEquals("f01234", FilecoinAddressCodec.encodeId(FilecoinNetwork.MAIN_NET, 1234));
+		assertEquals(1234, FilecoinAddressCodec.decodeId("f01234"));
+		assertEquals(Long.MAX_VALUE, FilecoinAddressCodec.decodeId("t0" + Long.MAX_VALUE));
+
+		// non minimal and unterminated varints
+		assertThrows(InvalidFilecoinAddressException.class,
+				() -> FilecoinAddressCodec.readUvarint(new byte[]{(byte) 0x81, 0x00}, 0, 2));
+		assertThrows(InvalidFilecoinAddressException.class,
+				() -> FilecoinAddressCodec.readUvarint(new byte[]{(byte) 0x81}, 0, 1));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decodeId("f0"));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decodeId("f012a"));
+	}
+
+	@Test
+	void rejectIdsOutsideInt64() {
+		assertThrows(IllegalArgumentException.class, () -> FilecoinAddressCodec.uvarint(-1));
+		// ten byte varint of 2^63
+		byte[] aboveInt64 = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+				(byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+		assertThrows(InvalidFilecoinAddressException.class,
+				() -> FilecoinAddressCodec.readUvarint(aboveInt64, 0, aboveInt64.length));
+
+		String[] outOfRange = {"f09223372036854775808", "f09999999999999999999", "f018446744073709551615"};
+		for (String encodedAddress : outOfRange) {
+			assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decodeId(encodedAddress));
+		}
+		assertEquals(AddressValidationResult.INVALID_ENCODING, FilecoinAddressCodec.validate(outOfRange[0]));
+		assertEquals(AddressValidationResult.INVALID_ENCODING, FilecoinAddressCodec.validate(outOfRange[1]));
+		assertEquals(AddressValidationResult.INVALID_LENGTH, FilecoinAddressCodec.validate(outOfRange[2]));
+	}
+
+	@Test
+	void rejectIdsWithLeadingZeros() throws Exception {
+		assertEquals(0, FilecoinAddressCodec.decodeId("f00"));
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate("f00"));
+
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decodeId("f00123"));
+		assertThrows(InvalidFilecoinAddressException.class, () -> FilecoinAddressCodec.decodeId("t000"));
+		assertEquals(AddressValidationResult.INVALID_ENCODING, FilecoinAddressCodec.validate("f00123"));
+	}
+
+	@Test
+	void validateIdAndActorAddresses() {
+		String actor = FilecoinAddressCodec.encode(FilecoinNetwork.MAIN_NET, FilecoinProtocol.ACTOR, new byte[20]);
+
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate("f01234"));
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate("t0" + Long.MAX_VALUE));
+		assertEquals(AddressValidationResult.VALID, FilecoinAddressCodec.validate(actor));
+		assertEquals(AddressValidationResult.INVALID_LENGTH, FilecoinAddressCodec.validate("f012345678901234567890"));
+		assertEquals(AddressValidationResult.INVALID_CHARACTER, FilecoinAddressCodec.validate("f012a4"));
+		assertEquals(AddressValidationResult.UNSUPPORTED_PROTOCOL, FilecoinAddressCodec.validate("f4" + actor.substring(2)));
+	}
+
+	private static String guavaEncode(FilecoinNetwork network, FilecoinProtocol protocol, byte[] payload) {
+		byte[] bytesToDigest = new byte[payload.length + 1];
+		bytesToDigest[0] = (byte) protocol.getValue();
+		System.arraycopy(payload, 0, bytesToDigest, 1, payload.length);
+		Blake2bDigest digest = new Blake2bDigest(null, 4, null, null);
+		digest.update(bytesToDigest, 0, bytesToDigest.length);
+		byte[] valueWithChecksum = new byte[payload.length + 4];
+		System.arraycopy(payload, 0, valueWithChecksum, 0, payload.length);
+		digest.doFinal(valueWithChecksum, payload.length);
+		return network.getValue() + protocol.getValue()
+				+ BaseEncoding.base32().omitPadding().lowerCase().encode(valueWithChecksum);
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.poc.filecoin.util;
+
+import com.poc.filecoin.model.Transaction;
+
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Random transactions shared by the CBOR tests
+ */
+final class TestTransactions {
+
+	private static final String[] AMOUNTS = {"0", "1", "23", "24", "255", "256", "65536", "100",
+			"999999999999999999", "1000000000000000000", "9223372036854775807", "18446744073709551616",
+			"123456789012345678901234567890", "-1", "-256", "007"};
+
+	private static final int[] INTEGERS = {0, 1, 23, 24, 255, 256, 65535, 65536, Integer.MAX_VALUE, -1, -100,
+			Integer.MIN_VALUE};
+
+	// negative amounts and integers are left out, the encoder does not write them in a canonical form
+	private static final String[] CANONICAL_AMOUNTS = {"0", "1", "23", "24", "255", "256", "65536", "100",
+			"999999999999999999", "1000000000000000000", "9223372036854775807", "18446744073709551616",
+			"123456789012345678901234567890", "007"};
+
+	private static final int[] CANONICAL_INTEGERS = {0, 1, 23, 24, 255, 256, 65535, 65536, Integer.MAX_VALUE};
+
+	private static final int[] CANONICAL_GAS_LIMITS = {0, 1, 24, 65536, Integer.MAX_VALUE, -1, -100, -65536};
+
+	private TestTransactions() {
+	}
+
+	/**
+	 * Method to build a transaction with any field values, including ones the encoder does not write in a
+	 * canonical form and params without base64 padding
+	 */
+	static Transaction random(Random random) {
+		return random(random, AMOUNTS, INTEGERS, INTEGERS, true);
+	}
+
+	/**
+	 * Method to build a transaction that survives a round trip through the encoder and decoder
+	 */
+	static Transaction randomCanonical(Random random) {
+		return random(random, CANONICAL_AMOUNTS, CANONICAL_INTEGERS, CANONICAL_GAS_LIMITS, false);
+	}
+
+	private static Transaction random(Random random, String[] amounts, int[] integers, int[] gasLimits,
+									  boolean unpaddedParams) {
+		byte[] to = new byte[random.nextBoolean() ? 21 : 49];
+		random.nextBytes(to);
+		byte[] from = new byte[random.nextBoolean() ? 21 : 49];
+		random.nextBytes(from);
+		byte[] message = new byte[random.nextInt(random.nextBoolean() ? 40 : 70000)];
+		random.nextBytes(message);
+		byte[] params = unpaddedParams && random.nextInt(4) == 0
+				? Base64.getEncoder().withoutPadding().encode(message)
+				: Base64.getEncoder().encode(message);
+		String value = random.nextBoolean()
+				? amounts[random.nextInt(amounts.length)]
+				: Long.toString(random.nextLong() & (Long.MAX_VALUE >> random.nextInt(63)));
+		return new Transaction(integers[random.nextInt(integers.length)], to, from,
+				integers[random.nextInt(integers.length)], value, gasLimits[random.nextInt(gasLimits.length)],
+				amounts[random.nextInt(amounts.length)], amounts[random.nextInt(amounts.length)],
+				integers[random.nextInt(integers.length)], params);
+	}
+
+}
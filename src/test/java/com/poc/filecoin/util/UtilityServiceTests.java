@@ -0,0 +1,84 @@
+package com.poc.filecoin.util;
+
+import com.google.common.io.BaseEncoding;
+import io.ipfs.cid.Cid;
+import io.ipfs.multihash.Multihash;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Hash;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilityServiceTests {
+
+	@Test
+	void digestMatchesCidBuilder() {
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			byte[] message = new byte[random.nextInt(300)];
+			random.nextBytes(message);
+
+			// the digest was built this way before the prefix was written by hand
+			byte[] expected = Cid.buildCidV1(Cid.Codec.DagCbor, Multihash.Type.blake2b_256,
+					Hash.blake2b256(message)).toBytes();
+
+			assertArrayEquals(expected, UtilityService.getDigest(message));
+		}
+	}
+
+	@Test
+	void digestOfMessagesMatchesCidBuilder() {
+		Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			byte[] message = UtilityService.marshalCBOR(TestTransactions.random(random)).toByteArray();
+
+			byte[] expected = Cid.buildCidV1(Cid.Codec.DagCbor, Multihash.Type.blake2b_256,
+					Hash.blake2b256(message)).toBytes();
+
+			assertArrayEquals(expected, UtilityService.getDigest(message));
+		}
+	}
+
+	@Test
+	void digestWrittenAtOffset() {
+		byte[] message = new byte[64];
+		new Random(3).nextBytes(message);
+		byte[] target = new byte[UtilityService.CID_LENGTH + 10];
+
+		UtilityService.getDigest(message, 8, 40, target, 5);
+
+		byte[] expected = UtilityService.getDigest(Arrays.copyOfRange(message, 8, 48));
+		assertArrayEquals(expected, Arrays.copyOfRange(target, 5, 5 + UtilityService.CID_LENGTH));
+		assertEquals(0, target[4]);
+		assertEquals(0, target[5 + UtilityService.CID_LENGTH]);
+	}
+
+	@Test
+	void cidStringMatchesLotus() {
+		// CID of the empty HAMT node [[], []] which lotus uses as the root of empty actor state maps
+		byte[] emptyHamt = BaseEncoding.base16().lowerCase().decode("824080");
+
+		String cid = UtilityService.toCidString(UtilityService.getDigest(emptyHamt));
+
+		assertEquals("bafy2bzaceamp42wmmgr2g2ymg46euououzfyck7szknvfacqscohrvaikwfay", cid);
+	}
+
+	@Test
+	void cidStringHasLotusMessageForm() {
+		Random random = new Random(11);
+		for (int i = 0; i < 50; i++) {
+			byte[] message = UtilityService.marshalCBOR(TestTransactions.random(random)).toByteArray();
+
+			String cid = UtilityService.toCidString(UtilityService.getDigest(message));
+
+			// every lotus message CID is a base32 dag-cbor blake2b-256 CID v1
+			assertTrue(cid.startsWith("bafy2bzace"), cid);
+			assertEquals(62, cid.length());
+		}
+	}
+
+}